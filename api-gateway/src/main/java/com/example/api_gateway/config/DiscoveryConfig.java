@@ -0,0 +1,14 @@
+package com.example.api_gateway.config;
+
+import com.example.api_gateway.discovery.DiscoveryLoadBalancerConfiguration;
+import com.example.api_gateway.discovery.DiscoveryProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.context.annotation.Configuration;
+
+// Маршруты lb://<serviceId> получают экземпляры из gateway.discovery и балансировку с учётом здоровья
+@Configuration
+@EnableConfigurationProperties(DiscoveryProperties.class)
+@LoadBalancerClients(defaultConfiguration = DiscoveryLoadBalancerConfiguration.class)
+public class DiscoveryConfig {
+}
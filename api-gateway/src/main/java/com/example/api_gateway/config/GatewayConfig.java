@@ -1,22 +1,111 @@
 package com.example.api_gateway.config;
 
+import com.example.api_gateway.filter.RequestCoalescingFilter;
+import com.example.api_gateway.filter.ResponseCacheFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.RequestRateLimiterGatewayFilterFactory;
+import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
+import org.springframework.cloud.gateway.filter.ratelimit.RedisRateLimiter;
+import org.springframework.cloud.gateway.support.ipresolver.RemoteAddressResolver;
+import org.springframework.cloud.gateway.support.ipresolver.XForwardedRemoteAddressResolver;
+import org.springframework.cloud.gateway.route.Route;
 import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.cloud.gateway.route.builder.BooleanSpec;
+import org.springframework.cloud.gateway.route.builder.Buildable;
 import org.springframework.cloud.gateway.route.builder.RouteLocatorBuilder;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+
+import static org.springframework.cloud.gateway.support.RouteMetadataUtils.CONNECT_TIMEOUT_ATTR;
+import static org.springframework.cloud.gateway.support.RouteMetadataUtils.RESPONSE_TIMEOUT_ATTR;
 
 @Configuration
+@EnableConfigurationProperties(GatewayRouteProperties.class)
 public class GatewayConfig {
 
     @Bean
-    public RouteLocator customRouteLocator(RouteLocatorBuilder builder) {
+    public RouteLocator customRouteLocator(RouteLocatorBuilder builder,
+                                           GatewayRouteProperties properties,
+                                           RequestRateLimiterGatewayFilterFactory rateLimiterFactory,
+                                           RedisRateLimiter redisRateLimiter,
+                                           KeyResolver clientKeyResolver,
+                                           RequestCoalescingFilter coalescingFilter,
+                                           ResponseCacheFilter responseCacheFilter) {
+        RouteFilters filters = new RouteFilters(properties, rateLimiterFactory, redisRateLimiter,
+                clientKeyResolver, coalescingFilter, responseCacheFilter);
         return builder.routes()
-                .route("service-one-route", r -> r.path("/service-one/**")
-                        .filters(f -> f.rewritePath("/service-one/(?<segment>.*)", "/${segment}"))
-                        .uri("http://service-one:8080"))  // Имя Docker-сервиса, а не localhost
-                .route("service-two-route", r -> r.path("/service-two/**")
-                        .filters(f -> f.rewritePath("/service-two/(?<segment>.*)", "/${segment}"))
-                        .uri("http://service-two:8080"))  // Имя Docker-сервиса, а не localhost
+                .route("service-one-route", r -> filters.apply("service-one-route", "service-one",
+                        r.path("/service-one/**")))
+                .route("service-two-route", r -> filters.apply("service-two-route", "service-two",
+                        r.path("/service-two/**")))
                 .build();
     }
-}
\ No newline at end of file
+
+    // Клиент — аутентифицированный пользователь, иначе адрес соединения. X-Forwarded-For
+    // учитывается только в последних trusted-proxy-hops адресах, добавленных своими прокси:
+    // остальное клиент пишет сам и мог бы получать новое ведро на каждый запрос.
+    // Маршрут входит в ключ, чтобы у каждого маршрута было своё ведро токенов
+    @Bean
+    public KeyResolver clientKeyResolver(@Value("${gateway.rate-limit.trusted-proxy-hops:0}") int trustedProxyHops) {
+        RemoteAddressResolver addressResolver = trustedProxyHops > 0
+                ? XForwardedRemoteAddressResolver.maxTrustedIndex(trustedProxyHops)
+                : new RemoteAddressResolver() { };
+        return exchange -> {
+            Route route = exchange.getAttribute(ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR);
+            String routeId = route != null ? route.getId() : "unknown";
+            return exchange.getPrincipal()
+                    .map(principal -> "user:" + principal.getName())
+                    .switchIfEmpty(Mono.fromSupplier(() -> clientAddress(addressResolver.resolve(exchange))))
+                    .map(client -> routeId + ":" + client);
+        };
+    }
+
+    // Адрес из X-Forwarded-For не разрешён в IP, поэтому берём строку хоста
+    private static String clientAddress(InetSocketAddress address) {
+        return address != null ? address.getHostString() : "anonymous";
+    }
+
+    /**
+     * Общий набор фильтров и таймаутов маршрута по его настройкам gateway.routes.&lt;имя&gt;
+     */
+    private record RouteFilters(GatewayRouteProperties properties,
+                                RequestRateLimiterGatewayFilterFactory rateLimiterFactory,
+                                RedisRateLimiter redisRateLimiter,
+                                KeyResolver clientKeyResolver,
+                                RequestCoalescingFilter coalescingFilter,
+                                ResponseCacheFilter responseCacheFilter) {
+
+        Buildable<Route> apply(String routeId, String name, BooleanSpec predicate) {
+            GatewayRouteProperties.Route settings = properties.route(name);
+            return predicate
+                    .filters(f -> {
+                        if (settings.rateLimit().enabled()) {
+                            redisRateLimiter.getConfig().put(routeId, new RedisRateLimiter.Config()
+                                    .setReplenishRate(settings.rateLimit().replenishRate())
+                                    .setBurstCapacity(settings.rateLimit().burstCapacity()));
+                            GatewayFilter rateLimiter = rateLimiterFactory.apply(routeId, c -> c
+                                    .setRateLimiter(redisRateLimiter)
+                                    .setKeyResolver(clientKeyResolver));
+                            // Лимит проверяется раньше кеша и схлопывания: каждый клиент тратит свои токены
+                            f.filter(rateLimiter, ResponseCacheFilter.ORDER - 1);
+                        }
+                        if (settings.cache().enabled()) {
+                            f.filter(responseCacheFilter.forRoute(routeId, settings.cache()));
+                        }
+                        if (settings.coalescing().enabled()) {
+                            f.filter(coalescingFilter.forRoute(settings.coalescing()));
+                        }
+                        return f.rewritePath("/" + name + "/(?<segment>.*)", "/${segment}");
+                    })
+                    .metadata(CONNECT_TIMEOUT_ATTR, Math.toIntExact(settings.connectTimeout().toMillis()))
+                    .metadata(RESPONSE_TIMEOUT_ATTR, settings.responseTimeout().toMillis())
+                    .uri(settings.uri());
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.api_gateway.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.http.MediaType;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Настройки маршрутов шлюза (gateway.routes.&lt;имя&gt;): адрес сервиса,
+ * таймауты, лимит запросов, кеш и схлопывание одинаковых GET-запросов
+ */
+@ConfigurationProperties(prefix = "gateway")
+public record GatewayRouteProperties(@DefaultValue Map<String, Route> routes) {
+
+    public Route route(String name) {
+        Route route = routes.get(name);
+        if (route == null) {
+            throw new IllegalStateException("Нет настроек маршрута gateway.routes." + name);
+        }
+        return route;
+    }
+
+    public record Route(String uri,
+                        @DefaultValue("2s") Duration connectTimeout,
+                        @DefaultValue("10s") Duration responseTimeout,
+                        @DefaultValue RateLimit rateLimit,
+                        @DefaultValue Coalescing coalescing,
+                        @DefaultValue Cache cache) {
+    }
+
+    /**
+     * Кеш GET-ответов маршрута: пути (пусто — все), TTL, состав ключа и предельный размер тела
+     */
+    public record Cache(@DefaultValue("false") boolean enabled,
+                        @DefaultValue("5s") Duration ttl,
+                        @DefaultValue List<String> paths,
+                        @DefaultValue("true") boolean includeQuery,
+                        @DefaultValue("Accept") List<String> headers,
+                        @DefaultValue("1MB") DataSize maxBodySize) {
+    }
+
+    /**
+     * Схлопывание одинаковых GET: пути (пусто — все), типы ответов, которые можно
+     * раздать ожидающим, и предельный размер тела. Больший ответ идёт без копии
+     */
+    public record Coalescing(@DefaultValue("false") boolean enabled,
+                             @DefaultValue List<String> paths,
+                             @DefaultValue({"application/json", "text/plain"}) List<MediaType> contentTypes,
+                             @DefaultValue("1MB") DataSize maxBodySize) {
+    }
+
+    /**
+     * Token bucket: replenishRate токенов в секунду, не больше burstCapacity в запасе
+     */
+    public record RateLimit(@DefaultValue("true") boolean enabled,
+                            @DefaultValue("100") int replenishRate,
+                            @DefaultValue("200") int burstCapacity) {
+    }
+}
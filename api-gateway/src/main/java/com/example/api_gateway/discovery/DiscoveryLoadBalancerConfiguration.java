@@ -0,0 +1,38 @@
+package com.example.api_gateway.discovery;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ReactorLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+/**
+ * Конфигурация балансировщика для каждого lb://&lt;serviceId&gt;.
+ *
+ * Создаётся Spring Cloud LoadBalancer в отдельном дочернем контексте на
+ * каждый сервис, поэтому без @Configuration и вне сканирования компонентов.
+ */
+public class DiscoveryLoadBalancerConfiguration {
+
+    @Bean
+    public ServiceInstanceListSupplier discoveryInstanceListSupplier(Environment environment,
+                                                                     DiscoveryProperties properties) {
+        String serviceId = environment.getRequiredProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+        DiscoveryProperties.Service service = properties.services().get(serviceId);
+        if (service == null) {
+            throw new IllegalStateException("Нет настроек gateway.discovery.services." + serviceId);
+        }
+        return InstanceSources.create(serviceId, service);
+    }
+
+    @Bean
+    public ReactorLoadBalancer<ServiceInstance> healthAwareLoadBalancer(Environment environment,
+                                                                        ObjectProvider<ServiceInstanceListSupplier> suppliers,
+                                                                        InstanceHealthTracker healthTracker,
+                                                                        DiscoveryProperties properties) {
+        String serviceId = environment.getRequiredProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+        return new HealthAwareLoadBalancer(serviceId, suppliers, healthTracker, properties.balancing().strategy());
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.api_gateway.discovery;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Источники экземпляров сервисов (gateway.discovery.services.&lt;serviceId&gt;)
+ * и настройки балансировки для маршрутов lb://&lt;serviceId&gt;
+ */
+@ConfigurationProperties(prefix = "gateway.discovery")
+public record DiscoveryProperties(@DefaultValue Map<String, Service> services,
+                                  @DefaultValue Balancing balancing) {
+
+    public enum Source {
+        // Список host:port из конфигурации
+        STATIC,
+        // SRV-запись (имя вида _http._tcp.service), иначе все A-записи имени с портом port
+        DNS,
+        // Файл со строками host:port, перечитывается при изменении
+        FILE
+    }
+
+    public enum Strategy {
+        LEAST_OUTSTANDING,
+        POWER_OF_TWO_CHOICES
+    }
+
+    public record Service(@DefaultValue("static") Source source,
+                          @DefaultValue List<String> instances,
+                          String dnsName,
+                          @DefaultValue("8080") int port,
+                          Path file,
+                          @DefaultValue("10s") Duration refreshInterval) {
+    }
+
+    public record Balancing(@DefaultValue("least-outstanding") Strategy strategy,
+                            @DefaultValue Ejection ejection) {
+    }
+
+    /**
+     * Пассивная проверка здоровья: экземпляр исключается на ejectionDuration,
+     * если за окно набралось minRequests запросов и доля ошибок или средняя
+     * задержка превысили порог
+     */
+    public record Ejection(@DefaultValue("true") boolean enabled,
+                           @DefaultValue("10s") Duration window,
+                           @DefaultValue("20") int minRequests,
+                           @DefaultValue("0.5") double errorRateThreshold,
+                           @DefaultValue("2s") Duration latencyThreshold,
+                           @DefaultValue("30s") Duration ejectionDuration) {
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.api_gateway.discovery;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Выбор экземпляра по числу выполняющихся запросов.
+ *
+ * LEAST_OUTSTANDING — экземпляр с наименьшим числом запросов (при равенстве —
+ * случайный из них), POWER_OF_TWO_CHOICES — лучший из двух случайных.
+ * Исключённые по здоровью экземпляры пропускаются; если исключены все,
+ * выбор идёт из полного списка, чтобы не отказывать во всех запросах.
+ */
+public class HealthAwareLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+    private final String serviceId;
+    private final ObjectProvider<ServiceInstanceListSupplier> supplierProvider;
+    private final InstanceHealthTracker healthTracker;
+    private final DiscoveryProperties.Strategy strategy;
+
+    public HealthAwareLoadBalancer(String serviceId,
+                                   ObjectProvider<ServiceInstanceListSupplier> supplierProvider,
+                                   InstanceHealthTracker healthTracker,
+                                   DiscoveryProperties.Strategy strategy) {
+        this.serviceId = serviceId;
+        this.supplierProvider = supplierProvider;
+        this.healthTracker = healthTracker;
+        this.strategy = strategy;
+    }
+
+    @Override
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = supplierProvider.getIfAvailable(NoopServiceInstanceListSupplier::new);
+        return supplier.get(request).next().map(this::choose);
+    }
+
+    private Response<ServiceInstance> choose(List<ServiceInstance> instances) {
+        if (instances.isEmpty()) {
+            return new EmptyResponse();
+        }
+        List<ServiceInstance> healthy = instances.stream()
+                .filter(instance -> !healthTracker.isEjected(instance))
+                .toList();
+        List<ServiceInstance> candidates = healthy.isEmpty() ? instances : healthy;
+
+        ServiceInstance chosen = switch (strategy) {
+            case LEAST_OUTSTANDING -> leastOutstanding(candidates);
+            case POWER_OF_TWO_CHOICES -> powerOfTwoChoices(candidates);
+        };
+        return new DefaultResponse(chosen);
+    }
+
+    // Начинаем со случайной позиции, чтобы при равной нагрузке не выбирать всегда первый
+    private ServiceInstance leastOutstanding(List<ServiceInstance> candidates) {
+        int size = candidates.size();
+        int start = ThreadLocalRandom.current().nextInt(size);
+        ServiceInstance best = null;
+        int bestOutstanding = Integer.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            ServiceInstance candidate = candidates.get((start + i) % size);
+            int outstanding = healthTracker.outstanding(candidate);
+            if (outstanding < bestOutstanding) {
+                best = candidate;
+                bestOutstanding = outstanding;
+            }
+        }
+        return best;
+    }
+
+    private ServiceInstance powerOfTwoChoices(List<ServiceInstance> candidates) {
+        int size = candidates.size();
+        if (size == 1) {
+            return candidates.get(0);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(size);
+        int second = random.nextInt(size - 1);
+        if (second >= first) {
+            second++;
+        }
+        ServiceInstance a = candidates.get(first);
+        ServiceInstance b = candidates.get(second);
+        return healthTracker.outstanding(a) <= healthTracker.outstanding(b) ? a : b;
+    }
+
+    @Override
+    public String toString() {
+        return "HealthAwareLoadBalancer[" + serviceId + ", " + strategy + "]";
+    }
+}
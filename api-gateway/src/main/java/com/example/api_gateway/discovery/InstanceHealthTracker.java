@@ -0,0 +1,156 @@
+package com.example.api_gateway.discovery;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.cloud.client.loadbalancer.TimedRequestContext;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Статистика экземпляров сервисов по запросам, прошедшим через балансировщик:
+ * число выполняющихся запросов, ошибки и задержки в текущем окне.
+ *
+ * Экземпляр с высокой долей ошибок (5xx или сбой соединения) или большой
+ * средней задержкой исключается из выбора на ejection-duration.
+ */
+@Component
+public class InstanceHealthTracker implements LoadBalancerLifecycle<RequestDataContext, ResponseData, ServiceInstance> {
+
+    private static final Logger logger = LoggerFactory.getLogger(InstanceHealthTracker.class);
+
+    private final DiscoveryProperties.Ejection ejection;
+    private final MeterRegistry meterRegistry;
+    private final ConcurrentMap<String, InstanceStats> stats = new ConcurrentHashMap<>();
+
+    public InstanceHealthTracker(DiscoveryProperties properties, MeterRegistry meterRegistry) {
+        this.ejection = properties.balancing().ejection();
+        this.meterRegistry = meterRegistry;
+    }
+
+    public int outstanding(ServiceInstance instance) {
+        InstanceStats instanceStats = stats.get(instance.getInstanceId());
+        return instanceStats != null ? instanceStats.outstanding.get() : 0;
+    }
+
+    public boolean isEjected(ServiceInstance instance) {
+        InstanceStats instanceStats = stats.get(instance.getInstanceId());
+        return instanceStats != null && instanceStats.ejectedUntil > System.nanoTime();
+    }
+
+    @Override
+    public void onStart(Request<RequestDataContext> request) {
+    }
+
+    @Override
+    public void onStartRequest(Request<RequestDataContext> request, Response<ServiceInstance> lbResponse) {
+        if (!lbResponse.hasServer()) {
+            return;
+        }
+        if (request.getContext() instanceof TimedRequestContext timed && timed.getRequestStartTime() == 0) {
+            timed.setRequestStartTime(System.nanoTime());
+        }
+        statsFor(lbResponse.getServer()).outstanding.incrementAndGet();
+    }
+
+    @Override
+    public void onComplete(CompletionContext<ResponseData, ServiceInstance, RequestDataContext> completion) {
+        Response<ServiceInstance> lbResponse = completion.getLoadBalancerResponse();
+        if (lbResponse == null || !lbResponse.hasServer()) {
+            return;
+        }
+        InstanceStats instanceStats = statsFor(lbResponse.getServer());
+        instanceStats.outstanding.decrementAndGet();
+
+        long latencyNanos = 0;
+        if (completion.getLoadBalancerRequest().getContext() instanceof TimedRequestContext timed
+                && timed.getRequestStartTime() > 0) {
+            latencyNanos = System.nanoTime() - timed.getRequestStartTime();
+        }
+        ResponseData response = completion.getClientResponse();
+        boolean failed = completion.status() == CompletionContext.Status.FAILED
+                || (response != null && response.getHttpStatus() != null && response.getHttpStatus().is5xxServerError());
+        if (ejection.enabled()) {
+            instanceStats.record(failed, latencyNanos);
+        }
+    }
+
+    private InstanceStats statsFor(ServiceInstance instance) {
+        return stats.computeIfAbsent(instance.getInstanceId(), id -> {
+            InstanceStats created = new InstanceStats(instance.getServiceId(), id);
+            Gauge.builder("gateway.lb.outstanding", created.outstanding, AtomicInteger::get)
+                    .description("Запросы к экземпляру, ожидающие ответа")
+                    .tag("service", instance.getServiceId())
+                    .tag("instance", id)
+                    .register(meterRegistry);
+            return created;
+        });
+    }
+
+    private class InstanceStats {
+
+        private final String serviceId;
+        private final String instanceId;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final Counter ejections;
+        private volatile long ejectedUntil;
+        private long windowStart = System.nanoTime();
+        private int requests;
+        private int errors;
+        private long latencySumNanos;
+
+        InstanceStats(String serviceId, String instanceId) {
+            this.serviceId = serviceId;
+            this.instanceId = instanceId;
+            this.ejections = Counter.builder("gateway.lb.ejections")
+                    .description("Исключения экземпляра из балансировки по ошибкам или задержке")
+                    .tag("service", serviceId)
+                    .tag("instance", instanceId)
+                    .register(meterRegistry);
+        }
+
+        synchronized void record(boolean failed, long latencyNanos) {
+            long now = System.nanoTime();
+            if (now - windowStart > ejection.window().toNanos()) {
+                resetWindow(now);
+            }
+            requests++;
+            latencySumNanos += latencyNanos;
+            if (failed) {
+                errors++;
+            }
+            if (requests < ejection.minRequests()) {
+                return;
+            }
+
+            double errorRate = (double) errors / requests;
+            long meanLatencyNanos = latencySumNanos / requests;
+            if (errorRate >= ejection.errorRateThreshold() || meanLatencyNanos >= ejection.latencyThreshold().toNanos()) {
+                ejectedUntil = now + ejection.ejectionDuration().toNanos();
+                ejections.increment();
+                logger.warn("⛔ Экземпляр {} сервиса {} исключён на {}: ошибки {}/{}, средняя задержка {} мс",
+                        instanceId, serviceId, ejection.ejectionDuration(), errors, requests, meanLatencyNanos / 1_000_000);
+                resetWindow(now);
+            }
+        }
+
+        private void resetWindow(long now) {
+            windowStart = now;
+            requests = 0;
+            errors = 0;
+            latencySumNanos = 0;
+        }
+    }
+}
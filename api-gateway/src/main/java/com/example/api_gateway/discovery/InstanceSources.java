@@ -0,0 +1,143 @@
+package com.example.api_gateway.discovery;
+
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Flux;
+
+import javax.naming.Context;
+import javax.naming.NamingEnumeration;
+import javax.naming.NamingException;
+import javax.naming.directory.Attribute;
+import javax.naming.directory.DirContext;
+import javax.naming.directory.InitialDirContext;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Hashtable;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Создаёт поставщика экземпляров сервиса по его настройкам: статический список,
+ * DNS (SRV или A-записи) или файл
+ */
+final class InstanceSources {
+
+    private InstanceSources() {
+    }
+
+    static ServiceInstanceListSupplier create(String serviceId, DiscoveryProperties.Service service) {
+        return switch (service.source()) {
+            case STATIC -> {
+                List<ServiceInstance> instances = parse(serviceId, service.instances());
+                yield new ServiceInstanceListSupplier() {
+                    @Override
+                    public String getServiceId() {
+                        return serviceId;
+                    }
+
+                    @Override
+                    public Flux<List<ServiceInstance>> get() {
+                        return Flux.just(instances);
+                    }
+                };
+            }
+            case DNS -> {
+                String name = service.dnsName() != null ? service.dnsName() : serviceId;
+                yield new RefreshingInstanceListSupplier(serviceId, service.refreshInterval(),
+                        () -> resolveDns(serviceId, name, service.port()));
+            }
+            case FILE -> {
+                if (service.file() == null) {
+                    throw new IllegalStateException("Не задан gateway.discovery.services." + serviceId + ".file");
+                }
+                yield new RefreshingInstanceListSupplier(serviceId, service.refreshInterval(),
+                        new FileLoader(serviceId, service.file()));
+            }
+        };
+    }
+
+    // Имя вида _http._tcp.service — SRV-запись с портами, иначе все A-записи с общим портом.
+    // A-записи кешируются JVM на networkaddress.cache.ttl
+    private static List<ServiceInstance> resolveDns(String serviceId, String name, int port)
+            throws NamingException, UnknownHostException {
+        List<ServiceInstance> instances = new ArrayList<>();
+        if (name.startsWith("_")) {
+            Hashtable<String, String> env = new Hashtable<>();
+            env.put(Context.INITIAL_CONTEXT_FACTORY, "com.sun.jndi.dns.DnsContextFactory");
+            DirContext context = new InitialDirContext(env);
+            try {
+                Attribute records = context.getAttributes(name, new String[]{"SRV"}).get("SRV");
+                if (records != null) {
+                    NamingEnumeration<?> values = records.getAll();
+                    while (values.hasMore()) {
+                        // priority weight port target
+                        String[] parts = values.next().toString().split(" ");
+                        String host = parts[3].endsWith(".") ? parts[3].substring(0, parts[3].length() - 1) : parts[3];
+                        instances.add(instance(serviceId, host, Integer.parseInt(parts[2])));
+                    }
+                }
+            } finally {
+                context.close();
+            }
+        } else {
+            for (InetAddress address : InetAddress.getAllByName(name)) {
+                instances.add(instance(serviceId, address.getHostAddress(), port));
+            }
+        }
+        instances.sort((a, b) -> a.getInstanceId().compareTo(b.getInstanceId()));
+        return instances;
+    }
+
+    private static List<ServiceInstance> parse(String serviceId, Collection<String> lines) {
+        List<ServiceInstance> instances = new ArrayList<>();
+        for (String line : lines) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            int colon = trimmed.lastIndexOf(':');
+            if (colon < 0) {
+                throw new IllegalArgumentException("Ожидается host:port, получено: " + trimmed);
+            }
+            instances.add(instance(serviceId, trimmed.substring(0, colon), Integer.parseInt(trimmed.substring(colon + 1))));
+        }
+        return instances;
+    }
+
+    private static ServiceInstance instance(String serviceId, String host, int port) {
+        return new DefaultServiceInstance(host + ":" + port, serviceId, host, port, false);
+    }
+
+    /**
+     * Перечитывает файл, только когда изменилось время его модификации
+     */
+    private static class FileLoader implements Callable<List<ServiceInstance>> {
+
+        private final String serviceId;
+        private final Path file;
+        private volatile FileTime lastModified;
+        private volatile List<ServiceInstance> instances = List.of();
+
+        FileLoader(String serviceId, Path file) {
+            this.serviceId = serviceId;
+            this.file = file;
+        }
+
+        @Override
+        public List<ServiceInstance> call() throws IOException {
+            FileTime modified = Files.getLastModifiedTime(file);
+            if (!modified.equals(lastModified)) {
+                instances = parse(serviceId, Files.readAllLines(file));
+                lastModified = modified;
+            }
+            return instances;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.api_gateway.discovery;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Список экземпляров, который перечитывается из источника с заданным интервалом.
+ *
+ * Балансировщик получает последний прочитанный список сразу, без обращения
+ * к источнику. Ошибка чтения не сбрасывает список — остаётся предыдущий.
+ */
+class RefreshingInstanceListSupplier implements ServiceInstanceListSupplier {
+
+    private static final Logger logger = LoggerFactory.getLogger(RefreshingInstanceListSupplier.class);
+
+    private final String serviceId;
+    private final Flux<List<ServiceInstance>> instances;
+
+    RefreshingInstanceListSupplier(String serviceId, Duration refreshInterval,
+                                   Callable<List<ServiceInstance>> loader) {
+        this.serviceId = serviceId;
+        this.instances = Flux.interval(Duration.ZERO, refreshInterval)
+                .onBackpressureDrop()
+                // DNS и файловая система блокируют поток — читаем вне event loop
+                .concatMap(tick -> Mono.fromCallable(loader)
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .onErrorResume(e -> {
+                            logger.warn("⚠️ Не удалось обновить экземпляры {}: {}", serviceId, e.getMessage());
+                            return Mono.empty();
+                        }))
+                .distinctUntilChanged()
+                .doOnNext(list -> logger.info("🔄 Экземпляры {}: {}", serviceId,
+                        list.stream().map(i -> i.getHost() + ":" + i.getPort()).toList()))
+                .replay(1)
+                .autoConnect();
+    }
+
+    @Override
+    public String getServiceId() {
+        return serviceId;
+    }
+
+    @Override
+    public Flux<List<ServiceInstance>> get() {
+        return instances;
+    }
+}
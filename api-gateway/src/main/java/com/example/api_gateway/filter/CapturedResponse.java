@@ -0,0 +1,20 @@
+package com.example.api_gateway.filter;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import reactor.core.publisher.Mono;
+
+/**
+ * Полностью прочитанный ответ сервиса, который можно отдать повторно
+ */
+record CapturedResponse(HttpStatusCode status, HttpHeaders headers, byte[] body) {
+
+    Mono<Void> writeTo(ServerHttpResponse response) {
+        response.setStatusCode(status);
+        response.getHeaders().putAll(headers);
+        response.getHeaders().remove(HttpHeaders.TRANSFER_ENCODING);
+        response.getHeaders().setContentLength(body.length);
+        return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(body)));
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.api_gateway.filter;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Пропускает ответ клиенту и параллельно сохраняет его копию.
+ *
+ * Обработчик вызывается до отправки заголовков, поэтому может их дополнить.
+ * Копия не сохраняется (обработчик получает null), если ответ потоковый, его тип
+ * не подходит или тело больше maxBodySize: тогда ответ идёт клиенту без накопления.
+ * Ответы через writeAndFlushWith не перехватываются.
+ */
+class CapturingResponse extends ServerHttpResponseDecorator {
+
+    // Gateway отдаёт их через writeWith, но тело приходит частями неограниченно долго
+    private static final List<MediaType> STREAMING_TYPES = List.of(
+            MediaType.TEXT_EVENT_STREAM,
+            MediaType.APPLICATION_NDJSON,
+            MediaType.parseMediaType("application/stream+json"));
+
+    private final Predicate<MediaType> capturableType;
+    private final long maxBodySize;
+    private final Consumer<CapturedResponse> onCaptured;
+
+    CapturingResponse(ServerHttpResponse delegate, Predicate<MediaType> capturableType, long maxBodySize,
+                      Consumer<CapturedResponse> onCaptured) {
+        super(delegate);
+        this.capturableType = capturableType;
+        this.maxBodySize = maxBodySize;
+        this.onCaptured = onCaptured;
+    }
+
+    @Override
+    public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+        if (!capturable()) {
+            onCaptured.accept(null);
+            return super.writeWith(body);
+        }
+
+        // Тело копится, пока укладывается в maxBodySize; concatMap обрабатывает буферы по одному
+        List<DataBuffer> head = new ArrayList<>();
+        long[] size = {0};
+        boolean[] passThrough = {false};
+        Flux<DataBuffer> buffers = Flux.<DataBuffer>from(body)
+                .concatMap(buffer -> {
+                    if (passThrough[0]) {
+                        return Mono.just(buffer);
+                    }
+                    head.add(buffer);
+                    size[0] += buffer.readableByteCount();
+                    if (size[0] <= maxBodySize) {
+                        return Flux.empty();
+                    }
+                    // Тело больше предела: отдаём накопленное и дальше идём потоком без копии
+                    passThrough[0] = true;
+                    onCaptured.accept(null);
+                    List<DataBuffer> buffered = new ArrayList<>(head);
+                    head.clear();
+                    return Flux.fromIterable(buffered);
+                })
+                .concatWith(Mono.defer(() -> passThrough[0] ? Mono.empty() : Mono.just(capture(head, size[0]))))
+                .doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+                .doFinally(signal -> {
+                    head.forEach(DataBufferUtils::release);
+                    head.clear();
+                });
+        return super.writeWith(buffers);
+    }
+
+    private boolean capturable() {
+        HttpHeaders headers = getHeaders();
+        MediaType contentType;
+        try {
+            contentType = headers.getContentType();
+        } catch (InvalidMediaTypeException e) {
+            return false;
+        }
+        if (contentType != null && STREAMING_TYPES.stream().anyMatch(contentType::isCompatibleWith)) {
+            return false;
+        }
+        return headers.getContentLength() <= maxBodySize && capturableType.test(contentType);
+    }
+
+    private DataBuffer capture(List<DataBuffer> head, long size) {
+        byte[] bytes = new byte[Math.toIntExact(size)];
+        int position = 0;
+        for (DataBuffer buffer : head) {
+            int length = buffer.readableByteCount();
+            buffer.read(bytes, position, length);
+            position += length;
+            DataBufferUtils.release(buffer);
+        }
+        head.clear();
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(getHeaders());
+        onCaptured.accept(new CapturedResponse(getStatusCode(), headers, bytes));
+        return bufferFactory().wrap(bytes);
+    }
+}
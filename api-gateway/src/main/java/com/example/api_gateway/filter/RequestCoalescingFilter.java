@@ -0,0 +1,110 @@
+package com.example.api_gateway.filter;
+
+import com.example.api_gateway.config.GatewayRouteProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Схлопывает одинаковые одновременные GET-запросы в один запрос к сервису.
+ *
+ * Первый запрос (лидер) уходит дальше по цепочке, его ответ целиком
+ * запоминается и отдаётся всем, кто пришёл с тем же URI, Accept и теми же
+ * учётными данными, пока лидер не завершился. Схлопываются только пути
+ * и типы ответов из настроек маршрута. Если лидер упал, ответ оказался
+ * потоковым или больше предела, остальные выполняют свой запрос сами.
+ */
+@Component
+public class RequestCoalescingFilter {
+
+    // Ответ должен пройти через наш декоратор, значит фильтр стоит раньше NettyWriteResponseFilter
+    public static final int ORDER = NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1;
+
+    private final ConcurrentMap<String, Sinks.One<CapturedResponse>> inFlight = new ConcurrentHashMap<>();
+    private final Counter coalesced;
+
+    public RequestCoalescingFilter(MeterRegistry meterRegistry) {
+        this.coalesced = Counter.builder("gateway.requests.coalesced")
+                .description("GET-запросы, получившие ответ уже выполняющегося одинакового запроса")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Фильтр схлопывания для маршрута с его путями, типами ответов и пределом размера
+     */
+    public GatewayFilter forRoute(GatewayRouteProperties.Coalescing rules) {
+        RoutePaths paths = RoutePaths.of(rules.paths());
+        return new OrderedGatewayFilter((exchange, chain) -> filter(exchange, chain, rules, paths), ORDER);
+    }
+
+    private Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain,
+                              GatewayRouteProperties.Coalescing rules, RoutePaths paths) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (request.getMethod() != HttpMethod.GET || !paths.matches(request)) {
+            return chain.filter(exchange);
+        }
+
+        String key = coalescingKey(request);
+        Sinks.One<CapturedResponse> sink = Sinks.one();
+        Sinks.One<CapturedResponse> leader = inFlight.putIfAbsent(key, sink);
+        if (leader != null) {
+            return leader.asMono()
+                    .map(Optional::of)
+                    .defaultIfEmpty(Optional.empty())
+                    .flatMap(captured -> {
+                        if (captured.isEmpty()) {
+                            return chain.filter(exchange);
+                        }
+                        coalesced.increment();
+                        return captured.get().writeTo(exchange.getResponse());
+                    });
+        }
+
+        ServerHttpResponse capturing = new CapturingResponse(exchange.getResponse(),
+                contentType -> isCoalescable(rules, contentType), rules.maxBodySize().toBytes(),
+                captured -> {
+                    if (captured != null) {
+                        sink.tryEmitValue(captured);
+                        return;
+                    }
+                    // Ответ не раздаётся: ожидающие идут к сервису сразу, новые не ждут лидера
+                    inFlight.remove(key, sink);
+                    sink.tryEmitEmpty();
+                });
+        return chain.filter(exchange.mutate().response(capturing).build())
+                .doFinally(signal -> {
+                    inFlight.remove(key, sink);
+                    // Ответ не записан (ошибка, отмена) — ожидающие пойдут к сервису сами
+                    sink.tryEmitEmpty();
+                });
+    }
+
+    // Ответ без Content-Type (пустое тело) раздать можно
+    private static boolean isCoalescable(GatewayRouteProperties.Coalescing rules, MediaType contentType) {
+        return contentType == null || rules.contentTypes().stream().anyMatch(type -> type.includes(contentType));
+    }
+
+    // Ответ зависит от учётных данных и формата, поэтому они входят в ключ
+    private static String coalescingKey(ServerHttpRequest request) {
+        HttpHeaders headers = request.getHeaders();
+        return request.getURI() + "|" + headers.getFirst(HttpHeaders.AUTHORIZATION)
+                + "|" + headers.getFirst(HttpHeaders.COOKIE)
+                + "|" + headers.getFirst(HttpHeaders.ACCEPT);
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.api_gateway.filter;
+
+import com.example.api_gateway.config.GatewayRouteProperties;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Кеш GET-ответов в памяти шлюза.
+ *
+ * Ключ — маршрут, путь, при необходимости строка запроса и выбранные заголовки.
+ * Размер кеша ограничен суммарным объёмом тел ответов, время жизни задаётся
+ * для каждого маршрута. При промахе к сервису идёт только первый запрос,
+ * остальные ждут его ответ. Клиенты с совпавшим If-None-Match получают 304.
+ */
+@Component
+public class ResponseCacheFilter {
+
+    public static final int ORDER = RequestCoalescingFilter.ORDER - 1;
+
+    private static final String CACHE_STATUS_HEADER = "X-Cache";
+    // Оценка накладных расходов на запись сверх тела ответа
+    private static final int ENTRY_OVERHEAD_BYTES = 512;
+
+    private final AsyncCache<String, CacheEntry> cache;
+    private final Counter notModified;
+
+    public ResponseCacheFilter(MeterRegistry meterRegistry,
+                               @Value("${gateway.response-cache.maximum-size:64MB}") DataSize maximumSize) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maximumSize.toBytes())
+                .weigher((String key, CacheEntry entry) -> entry.response().body().length + ENTRY_OVERHEAD_BYTES)
+                .expireAfter(new RouteTtlExpiry())
+                .recordStats()
+                .buildAsync();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "gateway.response-cache");
+        Gauge.builder("gateway.response-cache.weighted.size", cache,
+                        c -> c.synchronous().policy().eviction().map(e -> e.weightedSize().orElse(0L)).orElse(0L))
+                .description("Объём ответов в кеше шлюза")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.notModified = Counter.builder("gateway.response-cache.not-modified")
+                .description("Ответы 304 по совпавшему If-None-Match")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Фильтр кеширования для маршрута с его правилами ключа и TTL
+     */
+    public GatewayFilter forRoute(String routeId, GatewayRouteProperties.Cache rules) {
+        RoutePaths paths = RoutePaths.of(rules.paths());
+        return new OrderedGatewayFilter((exchange, chain) -> filter(exchange, chain, routeId, rules, paths), ORDER);
+    }
+
+    private Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain, String routeId,
+                              GatewayRouteProperties.Cache rules, RoutePaths paths) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (request.getMethod() != HttpMethod.GET || !paths.matches(request)) {
+            return chain.filter(exchange);
+        }
+
+        // Первый запрос по ключу становится загрузчиком, остальные получают его future
+        AtomicBoolean loader = new AtomicBoolean();
+        CompletableFuture<CacheEntry> loading = new CompletableFuture<>();
+        CompletableFuture<CacheEntry> cached = cache.get(cacheKey(routeId, rules, request), (key, executor) -> {
+            loader.set(true);
+            return loading;
+        });
+        if (loader.get()) {
+            return load(exchange, chain, rules, loading);
+        }
+
+        return Mono.fromFuture(cached, true)
+                .map(Optional::of)
+                .defaultIfEmpty(Optional.empty())
+                // Ответ оказался некешируемым — выполняем свой запрос
+                .flatMap(entry -> entry.isPresent() ? respond(exchange, entry.get()) : chain.filter(exchange));
+    }
+
+    private Mono<Void> load(ServerWebExchange exchange, GatewayFilterChain chain,
+                            GatewayRouteProperties.Cache rules, CompletableFuture<CacheEntry> loading) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.getHeaders().set(CACHE_STATUS_HEADER, "MISS");
+        ServerHttpResponse capturing = new CapturingResponse(response, contentType -> true,
+                rules.maxBodySize().toBytes(),
+                captured -> loading.complete(captured != null ? toEntry(captured, rules.ttl(), response) : null));
+        return chain.filter(exchange.mutate().response(capturing).build())
+                // null удаляет запись: ожидающие запросы пойдут к сервису сами
+                .doFinally(signal -> loading.complete(null));
+    }
+
+    private Mono<Void> respond(ServerWebExchange exchange, CacheEntry entry) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.getHeaders().set(CACHE_STATUS_HEADER, "HIT");
+        response.getHeaders().set(HttpHeaders.AGE, String.valueOf(entry.ageSeconds()));
+        if (isNotModified(exchange.getRequest(), entry.etag())) {
+            notModified.increment();
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            response.getHeaders().setETag(entry.etag());
+            return response.setComplete();
+        }
+        return entry.response().writeTo(response);
+    }
+
+    // Кешируются только успешные ответы без запрета кеширования и без Set-Cookie
+    private static CacheEntry toEntry(CapturedResponse captured, Duration ttl, ServerHttpResponse response) {
+        HttpHeaders headers = captured.headers();
+        String cacheControl = headers.getCacheControl();
+        if (captured.status() == null || captured.status().value() != HttpStatus.OK.value()
+                || headers.containsKey(HttpHeaders.SET_COOKIE)
+                || (cacheControl != null && (cacheControl.contains("no-store") || cacheControl.contains("private")))) {
+            return null;
+        }
+        String etag = headers.getETag();
+        if (etag == null) {
+            etag = "\"" + DigestUtils.md5DigestAsHex(captured.body()) + "\"";
+            headers.setETag(etag);
+            // Заголовки ещё не отправлены: ETag получит и клиент, загрузивший запись
+            response.getHeaders().setETag(etag);
+        }
+        headers.remove(CACHE_STATUS_HEADER);
+        return new CacheEntry(captured, etag, ttl.toNanos(), System.nanoTime());
+    }
+
+    private static boolean isNotModified(ServerHttpRequest request, String etag) {
+        for (String candidate : request.getHeaders().getIfNoneMatch()) {
+            if ("*".equals(candidate) || stripWeak(candidate).equals(stripWeak(etag))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeak(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    // Authorization входит в ключ всегда: ответы разных пользователей не смешиваются
+    private static String cacheKey(String routeId, GatewayRouteProperties.Cache rules, ServerHttpRequest request) {
+        StringBuilder key = new StringBuilder(routeId).append('|').append(request.getPath().value());
+        if (rules.includeQuery() && request.getURI().getRawQuery() != null) {
+            key.append('?').append(request.getURI().getRawQuery());
+        }
+        HttpHeaders headers = request.getHeaders();
+        key.append('|').append(headers.getFirst(HttpHeaders.AUTHORIZATION));
+        for (String header : rules.headers()) {
+            key.append('|').append(header).append('=').append(headers.getFirst(header));
+        }
+        return key.toString();
+    }
+
+    private record CacheEntry(CapturedResponse response, String etag, long ttlNanos, long storedAtNanos) {
+
+        long ageSeconds() {
+            return TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - storedAtNanos);
+        }
+    }
+
+    private static class RouteTtlExpiry implements Expiry<String, CacheEntry> {
+
+        @Override
+        public long expireAfterCreate(String key, CacheEntry entry, long currentTime) {
+            return entry.ttlNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, CacheEntry entry, long currentTime, long currentDuration) {
+            return entry.ttlNanos();
+        }
+
+        @Override
+        public long expireAfterRead(String key, CacheEntry entry, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.api_gateway.filter;
+
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.List;
+
+/**
+ * Пути маршрута, к которым применяется фильтр; пустой список — все пути
+ */
+record RoutePaths(List<PathPattern> patterns) {
+
+    static RoutePaths of(List<String> paths) {
+        return new RoutePaths(paths.stream()
+                .map(PathPatternParser.defaultInstance::parse)
+                .toList());
+    }
+
+    boolean matches(ServerHttpRequest request) {
+        if (patterns.isEmpty()) {
+            return true;
+        }
+        return patterns.stream().anyMatch(pattern -> pattern.matches(request.getPath().pathWithinApplication()));
+    }
+}
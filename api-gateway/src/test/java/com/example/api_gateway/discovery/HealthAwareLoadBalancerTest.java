@@ -0,0 +1,140 @@
+package com.example.api_gateway.discovery;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Flux;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HealthAwareLoadBalancerTest {
+
+    private static final String SERVICE_ID = "service-one";
+
+    private final ServiceInstance a = instance("a");
+    private final ServiceInstance b = instance("b");
+    private final ServiceInstance c = instance("c");
+
+    private final InstanceHealthTracker tracker = new InstanceHealthTracker(
+            InstanceHealthTrackerTest.properties(DiscoveryProperties.Strategy.LEAST_OUTSTANDING, true),
+            new SimpleMeterRegistry());
+
+    @Test
+    void leastOutstandingPicksIdleInstance() {
+        startRequests(a, 2);
+        startRequests(b, 1);
+
+        HealthAwareLoadBalancer balancer = balancer(DiscoveryProperties.Strategy.LEAST_OUTSTANDING, a, b, c);
+
+        for (int i = 0; i < 20; i++) {
+            assertThat(choose(balancer)).isEqualTo(c);
+        }
+    }
+
+    @Test
+    void leastOutstandingSpreadsEqualLoad() {
+        HealthAwareLoadBalancer balancer = balancer(DiscoveryProperties.Strategy.LEAST_OUTSTANDING, a, b, c);
+
+        assertThat(IntStream.range(0, 200).mapToObj(i -> choose(balancer)).distinct())
+                .containsExactlyInAnyOrder(a, b, c);
+    }
+
+    @Test
+    void powerOfTwoChoicesComparesTwoDistinctInstances() {
+        startRequests(a, 1);
+
+        HealthAwareLoadBalancer balancer = balancer(DiscoveryProperties.Strategy.POWER_OF_TWO_CHOICES, a, b);
+
+        for (int i = 0; i < 20; i++) {
+            assertThat(choose(balancer)).isEqualTo(b);
+        }
+    }
+
+    @Test
+    void skipsEjectedInstance() {
+        eject(a);
+
+        HealthAwareLoadBalancer balancer = balancer(DiscoveryProperties.Strategy.LEAST_OUTSTANDING, a, b);
+
+        for (int i = 0; i < 20; i++) {
+            assertThat(choose(balancer)).isEqualTo(b);
+        }
+    }
+
+    @Test
+    void fallsBackToAllInstancesWhenAllEjected() {
+        eject(a);
+        eject(b);
+
+        HealthAwareLoadBalancer balancer = balancer(DiscoveryProperties.Strategy.POWER_OF_TWO_CHOICES, a, b);
+
+        assertThat(choose(balancer)).isIn(a, b);
+    }
+
+    @Test
+    void noInstancesGivesEmptyResponse() {
+        HealthAwareLoadBalancer balancer = balancer(DiscoveryProperties.Strategy.LEAST_OUTSTANDING);
+
+        Response<ServiceInstance> response = balancer.choose(new DefaultRequest<>()).block();
+
+        assertThat(response).isNotNull();
+        assertThat(response.hasServer()).isFalse();
+    }
+
+    private HealthAwareLoadBalancer balancer(DiscoveryProperties.Strategy strategy, ServiceInstance... instances) {
+        ServiceInstanceListSupplier supplier = new ServiceInstanceListSupplier() {
+            @Override
+            public String getServiceId() {
+                return SERVICE_ID;
+            }
+
+            @Override
+            public Flux<List<ServiceInstance>> get() {
+                return Flux.just(List.of(instances));
+            }
+        };
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory(Map.of("supplier", supplier));
+        return new HealthAwareLoadBalancer(SERVICE_ID, beanFactory.getBeanProvider(ServiceInstanceListSupplier.class),
+                tracker, strategy);
+    }
+
+    private ServiceInstance choose(HealthAwareLoadBalancer balancer) {
+        Response<ServiceInstance> response = balancer.choose(new DefaultRequest<>()).block();
+        assertThat(response).isNotNull();
+        return response.getServer();
+    }
+
+    private void startRequests(ServiceInstance instance, int count) {
+        for (int i = 0; i < count; i++) {
+            tracker.onStartRequest(new DefaultRequest<>(new RequestDataContext()), new DefaultResponse(instance));
+        }
+    }
+
+    // Четыре сбоя подряд: minRequests = 4, доля ошибок 100%
+    private void eject(ServiceInstance instance) {
+        for (int i = 0; i < 4; i++) {
+            Request<RequestDataContext> request = new DefaultRequest<>(new RequestDataContext());
+            tracker.onStartRequest(request, new DefaultResponse(instance));
+            tracker.onComplete(new CompletionContext<>(CompletionContext.Status.FAILED,
+                    new IllegalStateException("connection refused"), request, new DefaultResponse(instance)));
+        }
+        assertThat(tracker.isEjected(instance)).isTrue();
+    }
+
+    private static ServiceInstance instance(String id) {
+        return new DefaultServiceInstance(id, SERVICE_ID, id + ".local", 8080, false);
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.api_gateway.discovery;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.RequestDataContext;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.util.LinkedMultiValueMap;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InstanceHealthTrackerTest {
+
+    private final ServiceInstance instance = new DefaultServiceInstance("a", "service-one", "10.0.0.1", 8080, false);
+
+    @Test
+    void countsOutstandingRequests() {
+        InstanceHealthTracker tracker = tracker(true);
+
+        Request<RequestDataContext> first = start(tracker);
+        Request<RequestDataContext> second = start(tracker);
+        assertThat(tracker.outstanding(instance)).isEqualTo(2);
+
+        complete(tracker, first, HttpStatus.OK);
+        complete(tracker, second, HttpStatus.OK);
+        assertThat(tracker.outstanding(instance)).isZero();
+    }
+
+    @Test
+    void ejectsOnErrorRate() {
+        InstanceHealthTracker tracker = tracker(true);
+
+        complete(tracker, start(tracker), HttpStatus.OK);
+        complete(tracker, start(tracker), HttpStatus.OK);
+        complete(tracker, start(tracker), HttpStatus.BAD_GATEWAY);
+        assertThat(tracker.isEjected(instance)).isFalse();
+
+        failed(tracker, start(tracker));
+        assertThat(tracker.isEjected(instance)).isTrue();
+    }
+
+    @Test
+    void clientErrorsDoNotCount() {
+        InstanceHealthTracker tracker = tracker(true);
+
+        for (int i = 0; i < 10; i++) {
+            complete(tracker, start(tracker), HttpStatus.NOT_FOUND);
+        }
+
+        assertThat(tracker.isEjected(instance)).isFalse();
+    }
+
+    @Test
+    void waitsForMinRequests() {
+        InstanceHealthTracker tracker = tracker(true);
+
+        failed(tracker, start(tracker));
+        failed(tracker, start(tracker));
+        failed(tracker, start(tracker));
+
+        assertThat(tracker.isEjected(instance)).isFalse();
+    }
+
+    @Test
+    void ejectsOnMeanLatency() {
+        InstanceHealthTracker tracker = tracker(true);
+
+        for (int i = 0; i < 4; i++) {
+            Request<RequestDataContext> request = new DefaultRequest<>(new RequestDataContext());
+            // Запрос «начался» 3 секунды назад: порог средней задержки — 2 секунды
+            request.getContext().setRequestStartTime(System.nanoTime() - Duration.ofSeconds(3).toNanos());
+            tracker.onStartRequest(request, new DefaultResponse(instance));
+            complete(tracker, request, HttpStatus.OK);
+        }
+
+        assertThat(tracker.isEjected(instance)).isTrue();
+    }
+
+    @Test
+    void disabledEjectionOnlyCountsOutstanding() {
+        InstanceHealthTracker tracker = tracker(false);
+
+        for (int i = 0; i < 10; i++) {
+            failed(tracker, start(tracker));
+        }
+
+        assertThat(tracker.isEjected(instance)).isFalse();
+        assertThat(tracker.outstanding(instance)).isZero();
+    }
+
+    static DiscoveryProperties properties(DiscoveryProperties.Strategy strategy, boolean ejection) {
+        return new DiscoveryProperties(Map.of(), new DiscoveryProperties.Balancing(strategy,
+                new DiscoveryProperties.Ejection(ejection, Duration.ofSeconds(10), 4, 0.5,
+                        Duration.ofSeconds(2), Duration.ofSeconds(30))));
+    }
+
+    private static InstanceHealthTracker tracker(boolean ejection) {
+        return new InstanceHealthTracker(properties(DiscoveryProperties.Strategy.LEAST_OUTSTANDING, ejection),
+                new SimpleMeterRegistry());
+    }
+
+    private Request<RequestDataContext> start(InstanceHealthTracker tracker) {
+        Request<RequestDataContext> request = new DefaultRequest<>(new RequestDataContext());
+        tracker.onStartRequest(request, new DefaultResponse(instance));
+        return request;
+    }
+
+    private void complete(InstanceHealthTracker tracker, Request<RequestDataContext> request, HttpStatus status) {
+        ResponseData response = new ResponseData(status, new HttpHeaders(), new LinkedMultiValueMap<>(), null);
+        tracker.onComplete(new CompletionContext<>(CompletionContext.Status.SUCCESS, request, lbResponse(), response));
+    }
+
+    private void failed(InstanceHealthTracker tracker, Request<RequestDataContext> request) {
+        tracker.onComplete(new CompletionContext<>(CompletionContext.Status.FAILED,
+                new IllegalStateException("connection refused"), request, lbResponse()));
+    }
+
+    private Response<ServiceInstance> lbResponse() {
+        return new DefaultResponse(instance);
+    }
+}
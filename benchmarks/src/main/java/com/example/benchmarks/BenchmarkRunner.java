@@ -0,0 +1,40 @@
+package com.example.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+
+/**
+ * Точка входа benchmarks.jar. Принимает обычные аргументы JMH, но по умолчанию
+ * сохраняет результаты в JSON (jmh-result.json в текущем каталоге),
+ * чтобы прогоны можно было сравнивать между собой.
+ */
+public class BenchmarkRunner {
+
+    private static final String DEFAULT_RESULT_FILE = "jmh-result.json";
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException, IOException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        if (commandLine.shouldHelp() || commandLine.shouldList() || commandLine.shouldListWithParams()
+                || commandLine.shouldListProfilers() || commandLine.shouldListResultFormats()) {
+            // Справка и списки — как у стандартного org.openjdk.jmh.Main
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+        if (!commandLine.getResultFormat().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON);
+        }
+        if (!commandLine.getResult().hasValue()) {
+            options.result(DEFAULT_RESULT_FILE);
+        }
+        new Runner(options.build()).run();
+    }
+}
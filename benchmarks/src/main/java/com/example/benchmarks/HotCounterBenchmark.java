@@ -0,0 +1,95 @@
+package com.example.benchmarks;
+
+import com.example.service.one.cache.NearCache;
+import com.example.service.one.counter.CounterAggregator;
+import com.example.service.one.service.RedisService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Один горячий счётчик из нескольких потоков через RedisService.increment:
+ * INCRBY на каждый инкремент против локальной агрегации (CounterAggregator)
+ * со сбросом в Redis раз в 100 мс или по порогу.
+ *
+ * Нужен Redis, как для RedisServiceBenchmark. Бенчмарк пишет и удаляет ключи counter:bench*.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+public class HotCounterBenchmark {
+
+    private static final String KEY = "counter:bench";
+    private static final Duration TTL = Duration.ofMinutes(1);
+
+    // false — каждый инкремент уходит в Redis, true — копится локально
+    @Param({"false", "true"})
+    public boolean aggregation;
+
+    // Число ключей-шардов счётчика в Redis (при агрегации)
+    @Param({"1", "8"})
+    public int shards;
+
+    private LettuceConnectionFactory connectionFactory;
+    private CounterAggregator counterAggregator;
+    private RedisService redisService;
+    private ScheduledExecutorService flusher;
+
+    @Setup
+    public void setUp() {
+        RedisStandaloneConfiguration configuration = new RedisStandaloneConfiguration(
+                System.getProperty("redis.host", "localhost"),
+                Integer.getInteger("redis.port", 6379));
+        connectionFactory = new LettuceConnectionFactory(configuration);
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+
+        StringRedisTemplate redisTemplate = new StringRedisTemplate(connectionFactory);
+        NearCache nearCache = new NearCache(connectionFactory, new SimpleMeterRegistry(), false, 0, TTL);
+        counterAggregator = new CounterAggregator(redisTemplate, nearCache, new SimpleMeterRegistry(),
+                aggregation, List.of("counter:"), 10_000, shards);
+        redisService = new RedisService(redisTemplate, nearCache, counterAggregator);
+        redisService.deleteKey(KEY);
+
+        // В приложении сброс по интервалу выполняет @Scheduled
+        flusher = Executors.newSingleThreadScheduledExecutor();
+        flusher.scheduleWithFixedDelay(counterAggregator::flushAll, 100, 100, TimeUnit.MILLISECONDS);
+    }
+
+    @TearDown
+    public void tearDown() {
+        flusher.shutdownNow();
+        counterAggregator.flushAll();
+        redisService.deleteKey(KEY);
+        connectionFactory.destroy();
+    }
+
+    @Benchmark
+    public Long increment() {
+        return redisService.increment(KEY);
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.benchmarks;
+
+import com.example.service.one.kafka.MessageEnvelope;
+import com.example.service.one.kafka.MessageEnvelopeSerializer;
+import com.example.service.one.kafka.MessageType;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.serialization.ByteBufferDeserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Пропускная способность кодеков значения service-messages: строковый формат
+ * (StringSerializer/StringDeserializer) против конверта (MessageEnvelopeSerializer
+ * в service-one, ByteBufferDeserializer и MessageEnvelope.wrap в service-two).
+ * Десериализация вызывается так же, как её вызывает KafkaConsumer, — по ByteBuffer записи.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KafkaCodecBenchmark {
+
+    private static final String TOPIC = "service-messages";
+
+    @Param({"64", "1024", "16384"})
+    public int bodySize;
+
+    private final StringSerializer stringSerializer = new StringSerializer();
+    private final StringDeserializer stringDeserializer = new StringDeserializer();
+    private final MessageEnvelopeSerializer envelopeSerializer = new MessageEnvelopeSerializer();
+    private final ByteBufferDeserializer byteBufferDeserializer = new ByteBufferDeserializer();
+    private final Headers headers = new RecordHeaders();
+
+    private String text;
+    private MessageEnvelope envelope;
+    private ByteBuffer stringRecord;
+    private ByteBuffer envelopeRecord;
+
+    @Setup
+    public void setUp() {
+        text = Messages.body(bodySize);
+        envelope = MessageEnvelope.of(MessageType.SIMPLE, text);
+        stringRecord = ByteBuffer.wrap(stringSerializer.serialize(TOPIC, text));
+        envelopeRecord = ByteBuffer.wrap(envelopeSerializer.serialize(TOPIC, envelope));
+    }
+
+    @Benchmark
+    public byte[] serializeString() {
+        return stringSerializer.serialize(TOPIC, text);
+    }
+
+    @Benchmark
+    public byte[] serializeEnvelope() {
+        return envelopeSerializer.serialize(TOPIC, envelope);
+    }
+
+    @Benchmark
+    public String deserializeString() {
+        return stringDeserializer.deserialize(TOPIC, headers, stringRecord.duplicate());
+    }
+
+    // Тело не декодируется: MessageListener читает тип из заголовка конверта
+    @Benchmark
+    public com.example.service.two.kafka.MessageType deserializeEnvelope() {
+        ByteBuffer value = byteBufferDeserializer.deserialize(TOPIC, headers, envelopeRecord.duplicate());
+        return com.example.service.two.kafka.MessageEnvelope.wrap(value).type();
+    }
+}
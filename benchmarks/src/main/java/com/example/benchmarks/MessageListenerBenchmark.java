@@ -0,0 +1,79 @@
+package com.example.benchmarks;
+
+import com.example.service.one.kafka.MessageEnvelopeSerializer;
+import com.example.service.two.kafka.MessageEnvelope;
+import com.example.service.two.kafka.MessageType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Горячий путь MessageListener (service-two) без Kafka и Spring: определение типа
+ * и обрезка тела для лога — строка старого формата против конверта
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MessageListenerBenchmark {
+
+    private static final String TOPIC = "service-messages";
+
+    @Param({"64", "1024", "16384"})
+    public int bodySize;
+
+    private String text;
+    private ByteBuffer envelope;
+
+    @Setup
+    public void setUp() {
+        text = Messages.body(bodySize);
+        byte[] bytes = new MessageEnvelopeSerializer().serialize(TOPIC,
+                com.example.service.one.kafka.MessageEnvelope.of(
+                        com.example.service.one.kafka.MessageType.SIMPLE, text));
+        envelope = ByteBuffer.wrap(bytes);
+    }
+
+    // Прежний determineMessageType: тип по содержимому строки
+    @Benchmark
+    public MessageType typeFromString() {
+        return MessageType.classify(text);
+    }
+
+    // Тип из заголовка конверта, тело не читается
+    @Benchmark
+    public MessageType typeFromEnvelope() {
+        return MessageEnvelope.wrap(envelope).type();
+    }
+
+    // Прежний truncateMessage для лога
+    @Benchmark
+    public String truncateString() {
+        return truncate(text, 100);
+    }
+
+    // Декодируется только начало тела
+    @Benchmark
+    public String previewEnvelope() {
+        return MessageEnvelope.wrap(envelope).preview(100);
+    }
+
+    private static String truncate(String message, int maxLength) {
+        if (message == null) return "null";
+        if (message.length() <= maxLength) return message;
+        return message.substring(0, maxLength) + "...";
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.benchmarks;
+
+import com.example.service.one.kafka.MessageEnvelopeSerializer;
+import com.example.service.two.kafka.MessageEnvelope;
+import com.example.service.two.logging.MessageEvent;
+import com.example.service.two.logging.MessageEventLogger;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Логирование успешной обработки одного сообщения в service-two: прежние построчные
+ * записи с полями в MDC против одного структурного события MessageEvent.
+ * События кодируются LogstashEncoder'ом и отбрасываются (см. logback.xml модуля),
+ * поэтому в замер входит работа потока обработки без сетевой отправки.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MessageLoggingBenchmark {
+
+    private static final String TOPIC = "service-messages";
+
+    // verbose — записи с MDC; structured-all — событие на каждое сообщение;
+    // structured-sampled — настройка по умолчанию, пишется 1% успешных
+    @Param({"verbose", "structured-all", "structured-sampled"})
+    public String mode;
+
+    private ByteBuffer envelope;
+    private MessageEventLogger eventLogger;
+
+    @Setup
+    public void setUp() {
+        byte[] bytes = new MessageEnvelopeSerializer().serialize(TOPIC,
+                com.example.service.one.kafka.MessageEnvelope.of(
+                        com.example.service.one.kafka.MessageType.SIMPLE, Messages.body(1024)));
+        envelope = ByteBuffer.wrap(bytes);
+
+        String loggerMode = mode.equals("verbose") ? "verbose" : "structured";
+        double sampleRate = mode.equals("structured-sampled") ? 0.01 : 1.0;
+        eventLogger = new MessageEventLogger(new SimpleMeterRegistry(), loggerMode, sampleRate);
+    }
+
+    // Те же вызовы, что делает MessageListener.handle для успешного сообщения
+    @Benchmark
+    public MessageEvent logProcessed() {
+        MessageEvent event = new MessageEvent("bench-id", TOPIC, 0, 42L, System.currentTimeMillis());
+        try {
+            event.message(MessageEnvelope.wrap(envelope));
+            eventLogger.received(event);
+            event.step("validation");
+            event.step("analysis");
+            event.type(event.message().type());
+            eventLogger.typeDetermined(event);
+            event.step("completed");
+            event.finish();
+            eventLogger.processed(event);
+            return event;
+        } finally {
+            eventLogger.clear();
+        }
+    }
+}
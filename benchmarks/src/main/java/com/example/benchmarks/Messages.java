@@ -0,0 +1,25 @@
+package com.example.benchmarks;
+
+/**
+ * Тела сообщений для бенчмарков
+ */
+final class Messages {
+
+    private static final String CHUNK = "payload-0123456789 ";
+
+    private Messages() {
+    }
+
+    /**
+     * Текст заданной длины без ключевых слов типов (json, error, test):
+     * определение типа по содержимому просматривает его целиком
+     */
+    static String body(int length) {
+        StringBuilder body = new StringBuilder(length + CHUNK.length());
+        while (body.length() < length) {
+            body.append(CHUNK);
+        }
+        body.setLength(length);
+        return body.toString();
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.benchmarks;
+
+import ch.qos.logback.core.OutputStreamAppender;
+
+import java.io.OutputStream;
+
+/**
+ * Appender, который кодирует события как настоящий, но никуда их не пишет:
+ * в замер попадает стоимость подготовки и сериализации записи без ввода-вывода
+ */
+public class NullOutputStreamAppender<E> extends OutputStreamAppender<E> {
+
+    @Override
+    public void start() {
+        setOutputStream(OutputStream.nullOutputStream());
+        super.start();
+    }
+}
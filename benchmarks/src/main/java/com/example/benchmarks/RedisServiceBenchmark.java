@@ -0,0 +1,132 @@
+package com.example.benchmarks;
+
+import com.example.service.one.cache.NearCache;
+import com.example.service.one.counter.CounterAggregator;
+import com.example.service.one.service.RedisService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RedisService (service-one): пакет операций по одной команде на ключ против
+ * одной команды (MGET) или одного pipeline (SET EX, INCRBY) на весь пакет.
+ *
+ * Нужен Redis или совместимый сервер (Valkey, KeyDB): по умолчанию localhost:6379,
+ * адрес задаётся -Dredis.host и -Dredis.port. Бенчмарк пишет и удаляет ключи bench:*.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RedisServiceBenchmark {
+
+    private static final Duration TTL = Duration.ofMinutes(10);
+
+    // Ключей в одном пакете
+    @Param({"10", "100", "1000"})
+    public int batchSize;
+
+    private LettuceConnectionFactory connectionFactory;
+    private RedisService redisService;
+    private List<String> keys;
+    private Map<String, String> values;
+    private Map<String, Long> ttlSeconds;
+    private Map<String, Long> deltas;
+
+    @Setup
+    public void setUp() {
+        RedisStandaloneConfiguration configuration = new RedisStandaloneConfiguration(
+                System.getProperty("redis.host", "localhost"),
+                Integer.getInteger("redis.port", 6379));
+        connectionFactory = new LettuceConnectionFactory(configuration);
+        connectionFactory.afterPropertiesSet();
+        connectionFactory.start();
+
+        // Near-cache и агрегация счётчиков выключены: меряются обращения к Redis
+        StringRedisTemplate redisTemplate = new StringRedisTemplate(connectionFactory);
+        NearCache nearCache = new NearCache(connectionFactory, new SimpleMeterRegistry(), false, 0, TTL);
+        CounterAggregator counterAggregator = new CounterAggregator(redisTemplate, nearCache,
+                new SimpleMeterRegistry(), false, List.of(), 0, 1);
+        redisService = new RedisService(redisTemplate, nearCache, counterAggregator);
+
+        keys = new ArrayList<>(batchSize);
+        values = new LinkedHashMap<>();
+        ttlSeconds = new LinkedHashMap<>();
+        deltas = new LinkedHashMap<>();
+        String value = Messages.body(64);
+        for (int i = 0; i < batchSize; i++) {
+            String key = "bench:redis:" + i;
+            keys.add(key);
+            values.put(key, value);
+            ttlSeconds.put(key, TTL.toSeconds());
+            deltas.put("bench:counter:" + i, 1L);
+        }
+        redisService.multiSet(values, ttlSeconds);
+    }
+
+    @TearDown
+    public void tearDown() {
+        redisService.multiDelete(keys);
+        redisService.multiDelete(deltas.keySet());
+        connectionFactory.destroy();
+    }
+
+    @Benchmark
+    public void setSingle() {
+        for (String key : keys) {
+            redisService.setValue(key, values.get(key), TTL);
+        }
+    }
+
+    @Benchmark
+    public void setPipelined() {
+        redisService.multiSet(values, ttlSeconds);
+    }
+
+    @Benchmark
+    public void getSingle(Blackhole blackhole) {
+        for (String key : keys) {
+            blackhole.consume(redisService.getValue(key));
+        }
+    }
+
+    @Benchmark
+    public Map<String, String> getMulti() {
+        return redisService.multiGet(keys);
+    }
+
+    @Benchmark
+    public void incrementSingle(Blackhole blackhole) {
+        for (String key : deltas.keySet()) {
+            blackhole.consume(redisService.increment(key, 1L));
+        }
+    }
+
+    @Benchmark
+    public Map<String, Long> incrementPipelined() {
+        return redisService.multiIncrement(deltas);
+    }
+}
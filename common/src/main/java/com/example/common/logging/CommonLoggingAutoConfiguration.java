@@ -0,0 +1,14 @@
+package com.example.common.logging;
+
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.context.annotation.Bean;
+
+// Метрики потерь LogEventDropListener; сам слушатель подключается в logback-spring.xml сервисов
+@AutoConfiguration
+public class CommonLoggingAutoConfiguration {
+
+    @Bean
+    public LoggingMetrics loggingMetrics() {
+        return new LoggingMetrics();
+    }
+}
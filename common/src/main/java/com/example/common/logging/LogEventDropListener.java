@@ -0,0 +1,29 @@
+package com.example.common.logging;
+
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import net.logstash.logback.appender.listener.TcpAppenderListener;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Считает события, потерянные Logstash-аппендером: не поместившиеся в кольцевой
+ * буфер (запись в лог при этом не блокируется) и не отправленные по TCP.
+ * Подключается в logback-spring.xml, до старта Spring, поэтому счётчики статические;
+ * в Micrometer их публикует LoggingMetrics.
+ */
+public class LogEventDropListener implements TcpAppenderListener<ILoggingEvent> {
+
+    static final LongAdder BUFFER_FULL = new LongAdder();
+    static final LongAdder SEND_FAILED = new LongAdder();
+
+    @Override
+    public void eventAppendFailed(Appender<ILoggingEvent> appender, ILoggingEvent event, Throwable reason) {
+        BUFFER_FULL.increment();
+    }
+
+    @Override
+    public void eventSendFailure(Appender<ILoggingEvent> appender, ILoggingEvent event, Throwable reason) {
+        SEND_FAILED.increment();
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.common.logging;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Потерянные события лога: log.events.dropped{reason=buffer_full|send_failed}.
+// Регистрируется CommonLoggingAutoConfiguration
+public class LoggingMetrics implements MeterBinder {
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        register(registry, "buffer_full", LogEventDropListener.BUFFER_FULL);
+        register(registry, "send_failed", LogEventDropListener.SEND_FAILED);
+    }
+
+    private static void register(MeterRegistry registry, String reason, LongAdder counter) {
+        FunctionCounter.builder("log.events.dropped", counter, LongAdder::sum)
+                .description("События лога, не доставленные в Logstash")
+                .tag("reason", reason)
+                .register(registry);
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.common.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+
+import java.time.Duration;
+
+/**
+ * Метрики, общие для service-one и service-two. Сервисы сканируют только свои пакеты,
+ * поэтому бины подключаются автоконфигурацией (META-INF/spring/...AutoConfiguration.imports)
+ */
+@AutoConfiguration
+public class CommonMetricsAutoConfiguration {
+
+    @Bean
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public VirtualThreadPinningMonitor virtualThreadPinningMonitor(MeterRegistry meterRegistry,
+                                                                   @Value("${app.threads.pinned-threshold:20ms}") Duration threshold) {
+        return new VirtualThreadPinningMonitor(meterRegistry, threshold);
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.common.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Обнаружение закреплённых (pinned) виртуальных потоков в режиме spring.threads.virtual.enabled.
+ *
+ * Виртуальный поток, заблокировавшийся внутри synchronized (до JDK 24) или нативного кадра,
+ * не отпускает поток-носитель. JVM сообщает об этом событием JFR jdk.VirtualThreadPinned;
+ * здесь события читаются потоком JFR внутри приложения: длительность идёт в таймер
+ * jvm.threads.virtual.pinned, а каждое новое место закрепления один раз пишется в лог со стеком.
+ * Регистрируется CommonMetricsAutoConfiguration.
+ */
+public class VirtualThreadPinningMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int LOGGED_FRAMES = 12;
+
+    private final Duration threshold;
+    private final Timer pinned;
+    // Места закрепления, уже попавшие в лог
+    private final Set<String> reportedSites = ConcurrentHashMap.newKeySet();
+    private RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(MeterRegistry meterRegistry, Duration threshold) {
+        this.threshold = threshold;
+        this.pinned = Timer.builder("jvm.threads.virtual.pinned")
+                .description("Время, которое виртуальный поток блокировался, не отпуская поток-носитель")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::onPinned);
+        stream.startAsync();
+        logger.info("Virtual thread pinning monitor started, threshold {}", threshold);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    private void onPinned(RecordedEvent event) {
+        pinned.record(event.getDuration());
+
+        List<RecordedFrame> frames = stackOf(event);
+        String site = frames.stream()
+                .filter(frame -> !isVirtualThreadMachinery(frame))
+                .limit(LOGGED_FRAMES)
+                .map(VirtualThreadPinningMonitor::frame)
+                .collect(Collectors.joining("\n\tat "));
+        if (reportedSites.add(site)) {
+            logger.warn("Virtual thread pinned for {} ms (reported once per site):\n\tat {}",
+                    event.getDuration().toMillis(), site);
+        }
+    }
+
+    private static List<RecordedFrame> stackOf(RecordedEvent event) {
+        RecordedStackTrace stackTrace = event.getStackTrace();
+        return stackTrace != null ? stackTrace.getFrames() : List.of();
+    }
+
+    // Кадры парковки и продолжения самого виртуального потока одинаковы во всех стеках
+    private static boolean isVirtualThreadMachinery(RecordedFrame frame) {
+        String type = frame.getMethod().getType().getName();
+        return type.startsWith("java.lang.VirtualThread") || type.startsWith("jdk.internal.vm.");
+    }
+
+    private static String frame(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                + "(line " + frame.getLineNumber() + ")";
+    }
+}
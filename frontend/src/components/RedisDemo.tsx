@@ -29,7 +29,7 @@ const RedisDemo: React.FC = () => {
         try {
             setLoading(true);
             const response = await redisApi.getAllKeys();
-            setKeys(response.data || []);
+            setKeys(response.data?.keys || []);
         } catch (error) {
             showMessage(handleApiError(error), 'error');
         } finally {
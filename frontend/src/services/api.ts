@@ -87,8 +87,9 @@ export const redisApi = {
     deleteKey: (key: string) =>
         api.delete(`/service-one/redis/delete/${key}`),
 
-    getAllKeys: () =>
-        api.get('/service-one/redis/keys'),
+    // Первая страница ключей (SCAN); следующая — с cursor из ответа
+    getAllKeys: (cursor: string = '0') =>
+        api.get('/service-one/redis/keys', { params: { cursor } }),
 
     hasKey: (key: string) =>
         api.get(`/service-one/redis/exists/${key}`),
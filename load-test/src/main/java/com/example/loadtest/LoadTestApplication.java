@@ -0,0 +1,142 @@
+package com.example.loadtest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+import java.io.PrintStream;
+import java.net.http.HttpClient;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+
+/**
+ * Сквозной нагрузочный прогон gateway → service-one → Kafka → service-two на одной машине.
+ *
+ * Поднимает встроенный брокер Kafka (KRaft) и Redis-заглушку в своей JVM, запускает
+ * три приложения из их jar на локальных портах и ступенями повышает частоту запросов
+ * POST /service-one/api/messages через gateway. Для каждой ступени печатает пропускную
+ * способность и задержки, а в конце — максимальную частоту, которую система выдержала.
+ * PostgreSQL для service-one берётся из обычных переменных DB_HOST, DB_PORT, DB_NAME, ...
+ */
+public class LoadTestApplication {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoadTestApplication.class);
+
+    private static final String TOPIC = "service-messages";
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        Files.createDirectories(options.outputDir());
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(2))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        OpenLoopDriver driver = new OpenLoopDriver(client, options.gatewayPort(), options.payloadSize(), options.keys());
+
+        EmbeddedKafkaKraftBroker kafka = new EmbeddedKafkaKraftBroker(1, options.partitions(), TOPIC);
+        kafka.kafkaPorts(options.kafkaPort());
+        kafka.brokerProperties(Map.of(
+                "offsets.topic.replication.factor", "1",
+                "transaction.state.log.replication.factor", "1",
+                "transaction.state.log.min.isr", "1"));
+        kafka.afterPropertiesSet();
+
+        List<ServiceProcess> services = new ArrayList<>();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> stopAll(services)));
+        try (RedisStandIn redis = new RedisStandIn(options.redisPort(), driver::onRedisWrite)) {
+            redis.start();
+            List<String> common = List.of(
+                    "--spring.kafka.bootstrap-servers=" + kafka.getBrokersAsString(),
+                    "--spring.data.redis.host=localhost",
+                    "--spring.data.redis.port=" + redis.port());
+
+            for (String app : LoadTestOptions.APPS) {
+                List<String> appArgs = new ArrayList<>(common);
+                appArgs.addAll(defaultArgs(app, options));
+                appArgs.addAll(options.appArgs().get(app));
+                services.add(ServiceProcess.start(app, port(app, options), appArgs, options));
+            }
+            for (ServiceProcess service : services) {
+                service.awaitReady(client);
+            }
+
+            logger.info("Warmup: {} msg/s for {}", options.startRate(), options.warmup());
+            driver.run(options.startRate(), options.warmup(), options.drainTimeout());
+
+            List<StepResult> results = new ArrayList<>();
+            System.out.println(StepResult.HEADER);
+            for (int rate : options.rates()) {
+                StepResult result = driver.run(rate, options.stepDuration(), options.drainTimeout());
+                result.writeHistograms(options.outputDir());
+                results.add(result);
+                System.out.println(result.summary(options));
+                if (!result.sustainable(options)) {
+                    break;
+                }
+            }
+            report(results, options, System.out);
+            try (PrintStream summary = new PrintStream(Files.newOutputStream(options.outputDir().resolve("summary.txt")))) {
+                report(results, options, summary);
+            }
+        } finally {
+            stopAll(services);
+            kafka.destroy();
+        }
+    }
+
+    // Настройки под стенд: адреса из заглушек и без ограничения частоты на gateway
+    private static List<String> defaultArgs(String app, LoadTestOptions options) {
+        return switch (app) {
+            // Без дедупликации service-two не пишет в Redis, и стенд не увидит конец обработки
+            case "service-two" -> List.of("--app.kafka.consumer.dedup.enabled=true");
+            case "api-gateway" -> List.of(
+                    "--gateway.routes.service-one.rate-limit.enabled=false",
+                    "--gateway.routes.service-two.rate-limit.enabled=false",
+                    "--gateway.discovery.services.service-one.source=static",
+                    "--gateway.discovery.services.service-one.instances[0]=localhost:" + options.serviceOnePort(),
+                    "--gateway.discovery.services.service-two.source=static",
+                    "--gateway.discovery.services.service-two.instances[0]=localhost:" + options.serviceTwoPort());
+            default -> List.of();
+        };
+    }
+
+    private static int port(String app, LoadTestOptions options) {
+        return switch (app) {
+            case "service-one" -> options.serviceOnePort();
+            case "service-two" -> options.serviceTwoPort();
+            default -> options.gatewayPort();
+        };
+    }
+
+    private static void report(List<StepResult> results, LoadTestOptions options, PrintStream out) {
+        out.println();
+        out.println(StepResult.HEADER);
+        results.forEach(result -> out.println(result.summary(options)));
+        results.stream()
+                .filter(result -> result.sustainable(options))
+                .mapToDouble(StepResult::throughput)
+                .max()
+                .ifPresentOrElse(
+                        max -> out.printf("Max sustainable throughput: %.1f msg/s (p99 e2e <= %s, completed >= %.1f%%)%n",
+                                max, options.sloP99(), options.minCompletedRatio() * 100),
+                        () -> out.println("No sustainable step: lower --start-rate"));
+        out.println("Histograms: " + options.outputDir());
+    }
+
+    private static synchronized void stopAll(List<ServiceProcess> services) {
+        for (ServiceProcess service : services.reversed()) {
+            try {
+                service.close();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        services.clear();
+    }
+}
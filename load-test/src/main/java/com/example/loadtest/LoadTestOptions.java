@@ -0,0 +1,116 @@
+package com.example.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Параметры прогона из аргументов вида --name=value.
+ * Аргументы --service-one.*, --service-two.*, --api-gateway.* передаются
+ * соответствующему приложению без префикса, например
+ * --service-two.app.kafka.consumer.batch.enabled=true.
+ */
+record LoadTestOptions(int startRate,
+                       int rateStep,
+                       int maxRate,
+                       Duration warmup,
+                       Duration stepDuration,
+                       Duration drainTimeout,
+                       Duration sloP99,
+                       double minCompletedRatio,
+                       int payloadSize,
+                       int keys,
+                       int partitions,
+                       int kafkaPort,
+                       int redisPort,
+                       int gatewayPort,
+                       int serviceOnePort,
+                       int serviceTwoPort,
+                       String jvmArgs,
+                       Path projectDir,
+                       Path outputDir,
+                       Map<String, List<String>> appArgs) {
+
+    static final List<String> APPS = List.of("service-two", "service-one", "api-gateway");
+
+    static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        Map<String, List<String>> appArgs = new LinkedHashMap<>();
+        APPS.forEach(app -> appArgs.put(app, new ArrayList<>()));
+
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got: " + arg);
+            }
+            String name = arg.substring(2, arg.indexOf('='));
+            String value = arg.substring(arg.indexOf('=') + 1);
+            String app = APPS.stream().filter(a -> name.startsWith(a + ".")).findFirst().orElse(null);
+            if (app != null) {
+                appArgs.get(app).add("--" + name.substring(app.length() + 1) + "=" + value);
+            } else {
+                values.put(name, value);
+            }
+        }
+
+        Path projectDir = Path.of(values.getOrDefault("project-dir", ".")).toAbsolutePath().normalize();
+        return new LoadTestOptions(
+                integer(values, "start-rate", 50),
+                integer(values, "rate-step", 50),
+                integer(values, "max-rate", 1000),
+                duration(values, "warmup", "30s"),
+                duration(values, "step-duration", "60s"),
+                duration(values, "drain-timeout", "30s"),
+                duration(values, "slo-p99", "2s"),
+                Double.parseDouble(values.getOrDefault("min-completed-ratio", "0.999")),
+                integer(values, "payload-size", 256),
+                integer(values, "keys", 1024),
+                integer(values, "partitions", 3),
+                integer(values, "kafka-port", 19092),
+                integer(values, "redis-port", 16379),
+                integer(values, "gateway-port", 18000),
+                integer(values, "service-one-port", 18080),
+                integer(values, "service-two-port", 18081),
+                values.getOrDefault("jvm-args", "-Xmx1g"),
+                projectDir,
+                Path.of(values.getOrDefault("output-dir", projectDir.resolve("load-test/target/results").toString())),
+                appArgs);
+    }
+
+    private static int integer(Map<String, String> values, String name, int defaultValue) {
+        String value = values.get(name);
+        return value != null ? Integer.parseInt(value) : defaultValue;
+    }
+
+    private static Duration duration(Map<String, String> values, String name, String defaultValue) {
+        return parseDuration(values.getOrDefault(name, defaultValue));
+    }
+
+    // 500ms, 30s, 5m
+    static Duration parseDuration(String value) {
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        long amount = Long.parseLong(value.substring(0, value.length() - 1));
+        return switch (value.charAt(value.length() - 1)) {
+            case 's' -> Duration.ofSeconds(amount);
+            case 'm' -> Duration.ofMinutes(amount);
+            case 'h' -> Duration.ofHours(amount);
+            default -> throw new IllegalArgumentException("Unsupported duration: " + value);
+        };
+    }
+
+    List<Integer> rates() {
+        List<Integer> rates = new ArrayList<>();
+        if (rateStep <= 0) {
+            return List.of(startRate);
+        }
+        for (int rate = startRate; rate <= maxRate; rate += rateStep) {
+            rates.add(rate);
+        }
+        return rates;
+    }
+}
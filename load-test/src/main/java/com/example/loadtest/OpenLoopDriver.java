@@ -0,0 +1,135 @@
+package com.example.loadtest;
+
+import org.HdrHistogram.Recorder;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Открытая модель нагрузки: запросы отправляются по расписанию с заданной частотой
+ * независимо от того, ответила ли система на предыдущие. Задержка считается от
+ * запланированного момента отправки, а не от фактического, поэтому отставание
+ * генератора и очереди в системе попадают в замер (поправка на coordinated omission).
+ *
+ * Две задержки на сообщение: до ответа на HTTP-запрос через gateway (service-one
+ * принял сообщение и получил подтверждение Kafka) и до конца обработки в service-two
+ * (DedupStore записал message-id в Redis).
+ */
+class OpenLoopDriver {
+
+    // Ключ, который service-two пишет после обработки сообщения (DedupStore)
+    static final String COMPLETION_KEY_PREFIX = "dedup:service-two:";
+
+    private static final String MESSAGE_ID_HEADER = "X-Message-Id";
+    private static final String CLIENT_ID_HEADER = "X-Client-Id";
+
+    private final HttpClient client;
+    private final URI uri;
+    private final String payload;
+    private final int keys;
+    private final AtomicLong sequence = new AtomicLong();
+    // message-id -> запланированное время отправки (nanoTime)
+    private final Map<String, Long> pending = new ConcurrentHashMap<>();
+    private volatile Step current;
+
+    OpenLoopDriver(HttpClient client, int gatewayPort, int payloadSize, int keys) {
+        this.client = client;
+        this.uri = URI.create("http://localhost:" + gatewayPort + "/service-one/api/messages");
+        this.payload = "load-test ".repeat(payloadSize / 10 + 1).substring(0, payloadSize);
+        this.keys = keys;
+    }
+
+    /**
+     * Вызывается Redis-заглушкой на каждую запись ключа
+     */
+    void onRedisWrite(String key) {
+        if (!key.startsWith(COMPLETION_KEY_PREFIX)) {
+            return;
+        }
+        long now = System.nanoTime();
+        Long intended = pending.remove(key.substring(COMPLETION_KEY_PREFIX.length()));
+        Step step = current;
+        if (intended != null && step != null) {
+            step.endToEnd.recordValue(micros(now - intended));
+            step.completed.increment();
+            step.lastCompletion = now;
+        }
+    }
+
+    /**
+     * Одна ступень: rate сообщений в секунду в течение duration, затем ожидание
+     * обработки отправленного не дольше drainTimeout
+     */
+    StepResult run(int rate, Duration duration, Duration drainTimeout) {
+        Step step = new Step();
+        current = step;
+        long period = TimeUnit.SECONDS.toNanos(1) / rate;
+        long count = duration.toNanos() / period;
+        long start = System.nanoTime();
+
+        for (long i = 0; i < count; i++) {
+            long intended = start + i * period;
+            long delay;
+            while ((delay = intended - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(delay);
+            }
+            send(intended, step);
+        }
+
+        long deadline = System.nanoTime() + drainTimeout.toNanos();
+        while (!pending.isEmpty() && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        long lost = pending.size();
+        pending.clear();
+        current = null;
+
+        long completionSpan = Math.max(step.lastCompletion - start, 1);
+        return new StepResult(rate, count, step.accepted.sum(), step.errors.sum(), step.completed.sum(), lost,
+                step.completed.sum() * (double) TimeUnit.SECONDS.toNanos(1) / completionSpan,
+                step.accept.getIntervalHistogram(), step.endToEnd.getIntervalHistogram());
+    }
+
+    private void send(long intended, Step step) {
+        long n = sequence.incrementAndGet();
+        String messageId = "lt-" + n;
+        pending.put(messageId, intended);
+        HttpRequest request = HttpRequest.newBuilder(URI.create(uri + "?key=k" + (n % keys)))
+                .header(MESSAGE_ID_HEADER, messageId)
+                .header(CLIENT_ID_HEADER, "load-test")
+                .timeout(Duration.ofSeconds(30))
+                .POST(HttpRequest.BodyPublishers.ofString(payload))
+                .build();
+        client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+            if (error != null || response.statusCode() >= 300) {
+                pending.remove(messageId);
+                step.errors.increment();
+                return;
+            }
+            step.accept.recordValue(micros(System.nanoTime() - intended));
+            step.accepted.increment();
+        });
+    }
+
+    private static long micros(long nanos) {
+        return Math.max(TimeUnit.NANOSECONDS.toMicros(nanos), 1);
+    }
+
+    private static final class Step {
+        final Recorder accept = new Recorder(3);
+        final Recorder endToEnd = new Recorder(3);
+        final LongAdder accepted = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final LongAdder completed = new LongAdder();
+        volatile long lastCompletion;
+    }
+}
@@ -0,0 +1,321 @@
+package com.example.loadtest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Redis для нагрузочного прогона: строки в памяти и команды, которые сервисы
+ * выполняют на пути сообщения (дедупликация service-two, ключи service-one).
+ * Протокол RESP2; HELLO отклоняется, и Lettuce переходит на RESP2 сам.
+ *
+ * Каждая успешная запись ключа передаётся слушателю — так стенд узнаёт,
+ * что service-two закончил обработку сообщения (DedupStore.markProcessed).
+ */
+class RedisStandIn implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(RedisStandIn.class);
+
+    private final ServerSocket serverSocket;
+    private final Consumer<String> onWrite;
+    private final Map<String, Entry> data = new ConcurrentHashMap<>();
+    private final ExecutorService connections = Executors.newVirtualThreadPerTaskExecutor();
+
+    RedisStandIn(int port, Consumer<String> onWrite) throws IOException {
+        this.serverSocket = new ServerSocket(port, 128, InetAddress.getLoopbackAddress());
+        this.onWrite = onWrite;
+    }
+
+    void start() {
+        Thread.ofPlatform().daemon().name("redis-stand-in").start(this::acceptLoop);
+        logger.info("Redis stand-in listening on localhost:{}", serverSocket.getLocalPort());
+    }
+
+    int port() {
+        return serverSocket.getLocalPort();
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        connections.shutdownNow();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                connections.execute(() -> serve(socket));
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    logger.warn("Redis stand-in accept failed: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket;
+             InputStream in = new BufferedInputStream(socket.getInputStream());
+             OutputStream out = new BufferedOutputStream(socket.getOutputStream())) {
+            List<String> command;
+            while ((command = readCommand(in)) != null) {
+                if (!command.isEmpty()) {
+                    try {
+                        execute(command, out);
+                    } catch (RuntimeException e) {
+                        error(out, "ERR wrong arguments for '" + command.getFirst() + "' command");
+                    }
+                }
+                // Ответы на pipeline отправляются одной пачкой
+                if (in.available() == 0) {
+                    out.flush();
+                }
+            }
+        } catch (IOException e) {
+            // Клиент закрыл соединение
+        }
+    }
+
+    private void execute(List<String> command, OutputStream out) throws IOException {
+        String name = command.getFirst().toUpperCase(Locale.ROOT);
+        long now = System.currentTimeMillis();
+        switch (name) {
+            case "PING" -> simple(out, command.size() > 1 ? command.get(1) : "PONG");
+            case "ECHO" -> bulk(out, command.get(1));
+            case "AUTH", "SELECT", "CLIENT", "READONLY", "RESET" -> simple(out, "OK");
+            case "QUIT" -> {
+                simple(out, "OK");
+                out.flush();
+                throw new IOException("QUIT");
+            }
+            case "INFO" -> bulk(out, "# Server\r\nredis_version:7.2.0\r\nredis_mode:standalone\r\n");
+            case "GET" -> {
+                Entry entry = live(command.get(1), now);
+                bulk(out, entry != null ? entry.value() : null);
+            }
+            case "MGET" -> {
+                array(out, command.size() - 1);
+                for (int i = 1; i < command.size(); i++) {
+                    Entry entry = live(command.get(i), now);
+                    bulk(out, entry != null ? entry.value() : null);
+                }
+            }
+            case "SET" -> set(command, now, out);
+            case "SETEX" -> {
+                write(command.get(1), command.get(3), now + Long.parseLong(command.get(2)) * 1000);
+                simple(out, "OK");
+            }
+            case "PSETEX" -> {
+                write(command.get(1), command.get(3), now + Long.parseLong(command.get(2)));
+                simple(out, "OK");
+            }
+            case "MSET" -> {
+                for (int i = 1; i + 1 < command.size(); i += 2) {
+                    write(command.get(i), command.get(i + 1), 0);
+                }
+                simple(out, "OK");
+            }
+            case "EXISTS" -> {
+                long count = 0;
+                for (int i = 1; i < command.size(); i++) {
+                    if (live(command.get(i), now) != null) {
+                        count++;
+                    }
+                }
+                integer(out, count);
+            }
+            case "DEL", "UNLINK" -> {
+                long count = 0;
+                for (int i = 1; i < command.size(); i++) {
+                    if (data.remove(command.get(i)) != null) {
+                        count++;
+                    }
+                }
+                integer(out, count);
+            }
+            case "INCR", "INCRBY", "DECR", "DECRBY" -> increment(command, name, now, out);
+            case "EXPIRE", "PEXPIRE" -> {
+                long ttl = Long.parseLong(command.get(2)) * (name.equals("EXPIRE") ? 1000 : 1);
+                Entry entry = live(command.get(1), now);
+                if (entry != null) {
+                    data.put(command.get(1), new Entry(entry.value(), now + ttl));
+                }
+                integer(out, entry != null ? 1 : 0);
+            }
+            case "TTL", "PTTL" -> {
+                Entry entry = live(command.get(1), now);
+                long ttl = entry == null ? -2 : entry.expiresAt() == 0 ? -1 : entry.expiresAt() - now;
+                integer(out, ttl > 0 && name.equals("TTL") ? (ttl + 999) / 1000 : ttl);
+            }
+            case "DBSIZE" -> integer(out, data.size());
+            case "FLUSHDB", "FLUSHALL" -> {
+                data.clear();
+                simple(out, "OK");
+            }
+            default -> error(out, "ERR unknown command '" + command.getFirst() + "'");
+        }
+    }
+
+    // SET key value [NX|XX] [EX seconds|PX milliseconds|KEEPTTL]
+    private void set(List<String> command, long now, OutputStream out) throws IOException {
+        String key = command.get(1);
+        long expiresAt = 0;
+        boolean nx = false;
+        boolean xx = false;
+        boolean keepTtl = false;
+        for (int i = 3; i < command.size(); i++) {
+            switch (command.get(i).toUpperCase(Locale.ROOT)) {
+                case "EX" -> expiresAt = now + Long.parseLong(command.get(++i)) * 1000;
+                case "PX" -> expiresAt = now + Long.parseLong(command.get(++i));
+                case "NX" -> nx = true;
+                case "XX" -> xx = true;
+                case "KEEPTTL" -> keepTtl = true;
+                default -> {
+                    error(out, "ERR syntax error");
+                    return;
+                }
+            }
+        }
+        Entry current = live(key, now);
+        if ((nx && current != null) || (xx && current == null)) {
+            bulk(out, null);
+            return;
+        }
+        if (keepTtl && current != null) {
+            expiresAt = current.expiresAt();
+        }
+        write(key, command.get(2), expiresAt);
+        simple(out, "OK");
+    }
+
+    private void increment(List<String> command, String name, long now, OutputStream out) throws IOException {
+        long delta = switch (name) {
+            case "INCR" -> 1;
+            case "DECR" -> -1;
+            case "INCRBY" -> Long.parseLong(command.get(2));
+            default -> -Long.parseLong(command.get(2));
+        };
+        String key = command.get(1);
+        long[] result = new long[1];
+        try {
+            data.compute(key, (k, entry) -> {
+                boolean alive = entry != null && (entry.expiresAt() == 0 || entry.expiresAt() > now);
+                result[0] = (alive ? Long.parseLong(entry.value()) : 0) + delta;
+                return new Entry(Long.toString(result[0]), alive ? entry.expiresAt() : 0);
+            });
+        } catch (NumberFormatException e) {
+            error(out, "ERR value is not an integer or out of range");
+            return;
+        }
+        onWrite.accept(key);
+        integer(out, result[0]);
+    }
+
+    private void write(String key, String value, long expiresAt) {
+        data.put(key, new Entry(value, expiresAt));
+        onWrite.accept(key);
+    }
+
+    private Entry live(String key, long now) {
+        Entry entry = data.get(key);
+        if (entry != null && entry.expiresAt() != 0 && entry.expiresAt() <= now) {
+            data.remove(key, entry);
+            return null;
+        }
+        return entry;
+    }
+
+    // =========================================================================
+    // RESP2
+    // =========================================================================
+
+    /**
+     * Команда в виде массива bulk-строк или inline-строки (redis-cli, telnet);
+     * null — соединение закрыто
+     */
+    private static List<String> readCommand(InputStream in) throws IOException {
+        int first = in.read();
+        if (first == -1) {
+            return null;
+        }
+        if (first != '*') {
+            String inline = (char) first + readLine(in);
+            return inline.isBlank() ? List.of() : List.of(inline.trim().split("\\s+"));
+        }
+        int count = Integer.parseInt(readLine(in));
+        List<String> args = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            if (in.read() != '$') {
+                throw new IOException("Protocol error: expected bulk string");
+            }
+            int length = Integer.parseInt(readLine(in));
+            byte[] bytes = in.readNBytes(length);
+            in.skipNBytes(2);
+            args.add(new String(bytes, StandardCharsets.UTF_8));
+        }
+        return args;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int b;
+        while ((b = in.read()) != '\r') {
+            if (b == -1) {
+                throw new IOException("Connection closed");
+            }
+            line.append((char) b);
+        }
+        in.read();
+        return line.toString();
+    }
+
+    private static void simple(OutputStream out, String value) throws IOException {
+        out.write(('+' + value + "\r\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void error(OutputStream out, String message) throws IOException {
+        out.write(('-' + message + "\r\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void integer(OutputStream out, long value) throws IOException {
+        out.write((":" + value + "\r\n").getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static void array(OutputStream out, int size) throws IOException {
+        out.write(("*" + size + "\r\n").getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static void bulk(OutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.write("$-1\r\n".getBytes(StandardCharsets.US_ASCII));
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.write(("$" + bytes.length + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.write(bytes);
+        out.write("\r\n".getBytes(StandardCharsets.US_ASCII));
+    }
+
+    // expiresAt — epoch ms, 0 — без TTL
+    private record Entry(String value, long expiresAt) {
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.loadtest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Приложение, запущенное из своего Spring Boot jar отдельной JVM на локальном порту.
+ * Вывод пишется в &lt;output-dir&gt;/&lt;имя&gt;.log.
+ */
+class ServiceProcess implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ServiceProcess.class);
+
+    private static final Duration STARTUP_TIMEOUT = Duration.ofMinutes(3);
+
+    private final String name;
+    private final int port;
+    private final Path log;
+    private final Process process;
+
+    private ServiceProcess(String name, int port, Path log, Process process) {
+        this.name = name;
+        this.port = port;
+        this.log = log;
+        this.process = process;
+    }
+
+    static ServiceProcess start(String name, int port, List<String> appArgs, LoadTestOptions options) throws IOException {
+        Path jar = findJar(options.projectDir().resolve(name).resolve("target"), name);
+        Path log = options.outputDir().resolve(name + ".log");
+
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        command.addAll(List.of(options.jvmArgs().trim().split("\\s+")));
+        command.addAll(List.of("-jar", jar.toString(), "--server.port=" + port));
+        command.addAll(appArgs);
+
+        logger.info("Starting {} on port {}: {}", name, port, jar);
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        return new ServiceProcess(name, port, log, process);
+    }
+
+    /**
+     * Ждёт, пока приложение начнёт отвечать на /actuator/health. Статус
+     * не проверяется: health может быть DOWN из-за компонентов вне пути сообщения
+     */
+    void awaitReady(HttpClient client) throws InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/actuator/health"))
+                .timeout(Duration.ofSeconds(2))
+                .build();
+        long deadline = System.nanoTime() + STARTUP_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException(name + " exited with code " + process.exitValue() + ", see " + log);
+            }
+            try {
+                HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                logger.info("{} is up, health status {}", name, response.statusCode());
+                return;
+            } catch (IOException e) {
+                Thread.sleep(500);
+            }
+        }
+        throw new IllegalStateException(name + " did not start within " + STARTUP_TIMEOUT + ", see " + log);
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        process.destroy();
+        if (!process.waitFor(30, TimeUnit.SECONDS)) {
+            process.destroyForcibly();
+        }
+    }
+
+    // Исполняемый jar модуля: с классификатором exec (сборка с -Pbenchmarks) или основной
+    private static Path findJar(Path targetDir, String name) throws IOException {
+        if (!Files.isDirectory(targetDir)) {
+            throw new IllegalStateException("No " + targetDir + ": build the services first (mvn package)");
+        }
+        try (Stream<Path> files = Files.list(targetDir)) {
+            return files
+                    .filter(path -> {
+                        String file = path.getFileName().toString();
+                        return file.startsWith(name + "-") && file.endsWith(".jar")
+                                && !file.endsWith("-sources.jar") && !file.endsWith("-javadoc.jar");
+                    })
+                    .max(Comparator.comparing((Path path) -> path.getFileName().toString().endsWith("-exec.jar")))
+                    .orElseThrow(() -> new IllegalStateException("No " + name + " jar in " + targetDir));
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Итог одной ступени нагрузки. Гистограммы — в микросекундах от запланированного
+ * момента отправки: accept — до ответа gateway, endToEnd — до конца обработки в service-two.
+ */
+record StepResult(int rate,
+                  long sent,
+                  long accepted,
+                  long errors,
+                  long completed,
+                  long lost,
+                  double throughput,
+                  Histogram accept,
+                  Histogram endToEnd) {
+
+    static final String HEADER = String.format(Locale.ROOT, "%8s %8s %8s %7s %7s %10s %10s %10s %10s %10s  %s",
+            "rate", "sent", "done", "errors", "lost", "msg/s", "accept p99", "e2e p50", "e2e p99", "e2e max", "verdict");
+
+    /**
+     * Ступень выдержана: нет ошибок HTTP, обработана нужная доля отправленного
+     * и p99 сквозной задержки в пределах SLO
+     */
+    boolean sustainable(LoadTestOptions options) {
+        return errors == 0
+                && completed >= sent * options.minCompletedRatio()
+                && endToEnd.getTotalCount() > 0
+                && endToEnd.getValueAtPercentile(99.0) <= options.sloP99().toNanos() / 1000;
+    }
+
+    String summary(LoadTestOptions options) {
+        return String.format(Locale.ROOT, "%8d %8d %8d %7d %7d %10.1f %10s %10s %10s %10s  %s",
+                rate, sent, completed, errors, lost, throughput,
+                millis(accept, 99.0), millis(endToEnd, 50.0), millis(endToEnd, 99.0), millis(endToEnd, 100.0),
+                sustainable(options) ? "OK" : "FAIL");
+    }
+
+    /**
+     * Полные распределения в формате HdrHistogram (.hgrm, значения в миллисекундах)
+     */
+    void writeHistograms(Path directory) throws IOException {
+        write(accept, directory.resolve("rate-" + rate + "-accept.hgrm"));
+        write(endToEnd, directory.resolve("rate-" + rate + "-e2e.hgrm"));
+    }
+
+    private static void write(Histogram histogram, Path file) throws IOException {
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+            histogram.outputPercentileDistribution(out, 1000.0);
+        }
+    }
+
+    private static String millis(Histogram histogram, double percentile) {
+        if (histogram.getTotalCount() == 0) {
+            return "-";
+        }
+        return String.format(Locale.ROOT, "%.1fms", histogram.getValueAtPercentile(percentile) / 1000.0);
+    }
+}
@@ -0,0 +1,137 @@
+#!/usr/bin/env bash
+# =============================================================================
+# ВРЕМЯ СТАРТА И ПАМЯТЬ (RSS) СЕРВИСОВ В РАЗНЫХ ВАРИАНТАХ СБОРКИ
+# =============================================================================
+# Варианты:
+#   jar      - обычный исполняемый jar: java -jar target/<модуль>-*.jar
+#   aot-cds  - распакованный jar из target/cds с AOT-кодом Spring и архивом AppCDS
+#              (сборка: mvn -Paot package)
+#   native   - native image api-gateway (сборка: mvn -Pnative -pl api-gateway native:compile)
+#
+# Время старта - от запуска процесса до первого HTTP-ответа /actuator/health
+# (статус не важен: health может быть DOWN без Kafka или Redis).
+# RSS - VmRSS процесса из /proc в момент готовности и после простоя -s секунд.
+# Варианты без собранного артефакта пропускаются.
+#
+# Использование:
+#   scripts/measure-startup.sh [-n повторов] [-v варианты] [-s секунд] [модуль ...] [-- аргументы приложения]
+#
+# Примеры:
+#   scripts/measure-startup.sh api-gateway
+#   scripts/measure-startup.sh -n 10 -v jar,aot-cds service-two -- --spring.kafka.bootstrap-servers=localhost:9092
+#
+# Переменные окружения: JAVA (по умолчанию java), JAVA_OPTS - опции JVM для jar и aot-cds.
+# Архив AppCDS подходит только той JVM, которой он создан: запускайте тем же JDK, что и сборку.
+set -euo pipefail
+
+ROOT=$(cd "$(dirname "$0")/.." && pwd)
+JAVA=${JAVA:-java}
+read -r -a JVM_OPTS <<< "${JAVA_OPTS:-}"
+
+RUNS=5
+VARIANTS=jar,aot-cds,native
+SETTLE=5
+OUT=${TMPDIR:-/tmp}/measure-startup
+MODULES=()
+APP_ARGS=()
+
+while [[ $# -gt 0 ]]; do
+  case "$1" in
+    -n) RUNS=$2; shift 2 ;;
+    -v) VARIANTS=$2; shift 2 ;;
+    -s) SETTLE=$2; shift 2 ;;
+    -o) OUT=$2; shift 2 ;;
+    -h|--help) sed -n '2,26p' "$0"; exit 0 ;;
+    --) shift; APP_ARGS=("$@"); break ;;
+    *) MODULES+=("$1"); shift ;;
+  esac
+done
+[[ ${#MODULES[@]} -gt 0 ]] || MODULES=(service-one service-two api-gateway)
+mkdir -p "$OUT"
+
+port_of() {
+  case "$1" in
+    service-one) echo 8080 ;;
+    service-two) echo 8081 ;;
+    api-gateway) echo 8000 ;;
+    *) echo "Неизвестный модуль: $1" >&2; exit 1 ;;
+  esac
+}
+
+# Заполняет CMD и WORKDIR для варианта; возвращает 1, если артефакт не собран
+prepare() {
+  local module=$1 variant=$2 target=$ROOT/$1/target jar
+  CMD=()
+  WORKDIR=$target
+  case "$variant" in
+    jar)
+      jar=$(ls "$target/$module"-*.jar 2>/dev/null | grep -v -e '-sources.jar$' -e '-javadoc.jar$' | head -n 1 || true)
+      [[ -n $jar ]] || return 1
+      CMD=("$JAVA" "${JVM_OPTS[@]}" -jar "$jar")
+      ;;
+    aot-cds)
+      # Пути в архиве AppCDS записаны относительно target/cds - запуск из этого каталога
+      WORKDIR=$target/cds
+      jar=$(ls "$WORKDIR"/*.jar 2>/dev/null | head -n 1 || true)
+      [[ -n $jar && -f $WORKDIR/application.jsa ]] || return 1
+      CMD=("$JAVA" "${JVM_OPTS[@]}" -XX:SharedArchiveFile=application.jsa -Dspring.aot.enabled=true
+           -jar "$(basename "$jar")")
+      ;;
+    native)
+      [[ -x $target/$module ]] || return 1
+      CMD=("$target/$module")
+      ;;
+    *) echo "Неизвестный вариант: $variant" >&2; exit 1 ;;
+  esac
+}
+
+# Один запуск: печатает "<мс до готовности> <RSS готовности, КБ> <RSS после простоя, КБ>"
+measure() {
+  local port=$1 log=$2 pid start ready rss_ready rss_settled
+  start=$(date +%s%N)
+  (cd "$WORKDIR" && exec "${CMD[@]}" --server.port="$port" "${APP_ARGS[@]}") > "$log" 2>&1 &
+  pid=$!
+  until curl -s -o /dev/null --max-time 1 "http://localhost:$port/actuator/health"; do
+    if ! kill -0 "$pid" 2>/dev/null; then
+      echo "Процесс завершился до готовности, см. $log" >&2
+      return 1
+    fi
+    sleep 0.02
+  done
+  ready=$(( ($(date +%s%N) - start) / 1000000 ))
+  rss_ready=$(awk '/^VmRSS/ {print $2}' "/proc/$pid/status")
+  sleep "$SETTLE"
+  rss_settled=$(awk '/^VmRSS/ {print $2}' "/proc/$pid/status")
+  kill "$pid"
+  wait "$pid" 2>/dev/null || true
+  echo "$ready $rss_ready $rss_settled"
+}
+
+median() {
+  sort -n | awk '{ v[NR] = $1 } END { print (NR % 2) ? v[(NR + 1) / 2] : int((v[NR / 2] + v[NR / 2 + 1]) / 2) }'
+}
+
+printf '%-12s %-8s %5s %10s %10s %10s %12s %12s\n' \
+  module variant runs "start p50" "start min" "start max" "RSS ready" "RSS settled"
+for module in "${MODULES[@]}"; do
+  port=$(port_of "$module")
+  IFS=',' read -r -a variants <<< "$VARIANTS"
+  for variant in "${variants[@]}"; do
+    if ! prepare "$module" "$variant"; then
+      printf '%-12s %-8s  нет артефакта, пропуск\n' "$module" "$variant"
+      continue
+    fi
+    results=$OUT/$module-$variant.txt
+    : > "$results"
+    for ((i = 1; i <= RUNS; i++)); do
+      measure "$port" "$OUT/$module-$variant-$i.log" >> "$results"
+    done
+    printf '%-12s %-8s %5d %8sms %8sms %8sms %10sMB %10sMB\n' "$module" "$variant" "$RUNS" \
+      "$(cut -d' ' -f1 "$results" | median)" \
+      "$(cut -d' ' -f1 "$results" | sort -n | head -n 1)" \
+      "$(cut -d' ' -f1 "$results" | sort -n | tail -n 1)" \
+      "$(( $(cut -d' ' -f2 "$results" | median) / 1024 ))" \
+      "$(( $(cut -d' ' -f3 "$results" | median) / 1024 ))"
+  done
+done
+echo "Логи запусков: $OUT"
@@ -0,0 +1,218 @@
+package com.example.service.one.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.lettuce.core.RedisChannelHandler;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisConnectionStateListener;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.TrackingArgs;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.async.RedisAsyncCommands;
+import io.lettuce.core.api.push.PushMessage;
+import io.lettuce.core.codec.StringCodec;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.stereotype.Component;
+
+import java.net.SocketAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Локальный (L1) кеш значений Redis для горячих ключей.
+ *
+ * Вытеснение по размеру — W-TinyLFU из Caffeine, время жизни записи не больше
+ * TTL ключа в Redis и не больше max-ttl. Значения читаются через отдельное
+ * соединение с включённым CLIENT TRACKING (RESP3): Redis сам присылает
+ * invalidate, когда прочитанный ключ меняет любая реплика service-one или
+ * любой другой клиент. Tracking живёт в рамках TCP-соединения, поэтому после
+ * переподключения Lettuce он включается заново, а L1 очищается целиком:
+ * invalidate, пришедшие на время разрыва, потеряны.
+ */
+@Component
+public class NearCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(NearCache.class);
+    private static final Logger redisLogger = LoggerFactory.getLogger("REDIS_OPERATIONS");
+
+    private final boolean enabled;
+    private final Duration maxTtl;
+    private final LoadingCache<String, CachedValue> cache;
+    // Сообщения invalidate приходят в потоке event loop Lettuce. Caffeine блокирует
+    // invalidate ключа, пока его загружают, а загрузка ждёт ответ PTTL в том же
+    // event loop — поэтому сброс выполняется в своём потоке, по порядку прихода
+    private final ExecutorService invalidationExecutor =
+            Executors.newSingleThreadExecutor(Thread.ofPlatform().name("near-cache-invalidation").daemon().factory());
+    private RedisClient client;
+    private volatile StatefulRedisConnection<String, String> trackingConnection;
+    private final RedisConnectionStateListener reconnectListener = new RedisConnectionStateListener() {
+        @Override
+        public void onRedisConnected(RedisChannelHandler<?, ?> connection, SocketAddress socketAddress) {
+            // Вызывается в event loop для всех соединений клиента; sync-команду отсюда слать нельзя
+            if (connection == trackingConnection) {
+                invalidationExecutor.execute(NearCache.this::onReconnect);
+            }
+        }
+    };
+
+    public NearCache(LettuceConnectionFactory connectionFactory,
+                     MeterRegistry meterRegistry,
+                     @Value("${app.redis.near-cache.enabled:false}") boolean enabled,
+                     @Value("${app.redis.near-cache.maximum-size:100000}") long maximumSize,
+                     @Value("${app.redis.near-cache.max-ttl:60s}") Duration maxTtl) {
+        this.enabled = enabled;
+        this.maxTtl = maxTtl;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new RedisTtlExpiry())
+                .recordStats()
+                .build(this::load);
+
+        if (enabled) {
+            CaffeineCacheMetrics.monitor(meterRegistry, cache, "redis.near-cache");
+            this.trackingConnection = connectTracking(connectionFactory);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Значение ключа из L1, при промахе — из Redis
+     */
+    public CachedValue get(String key) {
+        return cache.get(key);
+    }
+
+    /**
+     * Сбросить ключ после записи через RedisService: ответ tracking придёт
+     * асинхронно, а читать свои записи нужно сразу
+     */
+    public void invalidate(String key) {
+        if (enabled) {
+            cache.invalidate(key);
+        }
+    }
+
+    public void invalidateAll(Iterable<String> keys) {
+        if (enabled) {
+            cache.invalidateAll(keys);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (client != null) {
+            client.removeListener(reconnectListener);
+        }
+        if (trackingConnection != null) {
+            trackingConnection.close();
+        }
+        invalidationExecutor.shutdownNow();
+    }
+
+    // GET и PTTL уходят по tracking-соединению вместе, одним сетевым обменом
+    private CachedValue load(String key) {
+        RedisAsyncCommands<String, String> commands = trackingConnection.async();
+        RedisFuture<String> value = commands.get(key);
+        RedisFuture<Long> ttl = commands.pttl(key);
+        try {
+            return new CachedValue(value.get(), ttl.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Near-cache load interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Near-cache load failed: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    private StatefulRedisConnection<String, String> connectTracking(LettuceConnectionFactory connectionFactory) {
+        client = (RedisClient) connectionFactory.getRequiredNativeClient();
+        StatefulRedisConnection<String, String> connection = client.connect(StringCodec.UTF8);
+        connection.addListener(this::onPush);
+        // После connect: первое подключение tracking включает сам, слушатель ловит только переподключения
+        client.addListener(reconnectListener);
+        if (enableTracking(connection)) {
+            redisLogger.info("Near-cache enabled with RESP3 client tracking");
+        }
+        return connection;
+    }
+
+    private boolean enableTracking(StatefulRedisConnection<String, String> connection) {
+        try {
+            connection.sync().clientTracking(TrackingArgs.Builder.enabled());
+            return true;
+        } catch (RuntimeException e) {
+            // Без tracking чужие записи увидим не позже чем через max-ttl
+            logger.warn("⚠️ CLIENT TRACKING недоступен, near-cache опирается только на max-ttl {}: {}",
+                    maxTtl, e.getMessage());
+            return false;
+        }
+    }
+
+    // Сначала tracking, потом очистка: значения, загруженные до неё, могли не отслеживаться
+    private void onReconnect() {
+        if (enableTracking(trackingConnection)) {
+            redisLogger.info("Near-cache client tracking restored after reconnect");
+        }
+        cache.invalidateAll();
+    }
+
+    private void onPush(PushMessage message) {
+        if (!"invalidate".equals(message.getType())) {
+            return;
+        }
+        List<Object> content = message.getContent(StringCodec.UTF8::decodeKey);
+        Object keys = content.size() > 1 ? content.get(1) : null;
+        if (keys instanceof List<?> invalidated) {
+            List<String> invalidatedKeys = invalidated.stream().map(String.class::cast).toList();
+            invalidationExecutor.execute(() -> cache.invalidateAll(invalidatedKeys));
+        } else {
+            // null вместо списка — Redis сбросил таблицу отслеживания (FLUSHALL и т.п.)
+            invalidationExecutor.execute(cache::invalidateAll);
+        }
+    }
+
+    /**
+     * Значение из Redis и его оставшийся TTL в миллисекундах (-1 — без TTL, -2 — ключа нет)
+     */
+    public record CachedValue(String value, long ttlMillis) {
+
+        public boolean exists() {
+            return value != null;
+        }
+    }
+
+    private class RedisTtlExpiry implements Expiry<String, CachedValue> {
+
+        @Override
+        public long expireAfterCreate(String key, CachedValue cached, long currentTime) {
+            long maxNanos = maxTtl.toNanos();
+            if (cached.ttlMillis() > 0) {
+                return Math.min(Duration.ofMillis(cached.ttlMillis()).toNanos(), maxNanos);
+            }
+            return maxNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, CachedValue cached, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, cached, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, CachedValue cached, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
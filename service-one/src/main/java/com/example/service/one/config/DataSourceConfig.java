@@ -0,0 +1,69 @@
+package com.example.service.one.config;
+
+import com.example.service.one.datasource.ReadWriteDataSource;
+import com.example.service.one.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Пулы соединений: основной (spring.datasource, spring.datasource.hikari) и
+ * по пулу на каждую реплику: настройки spring.datasource.hikari, поверх них —
+ * app.datasource.replicas[i].hikari.*.
+ * Метрики пулов hikaricp.connections.* публикуются с тегом pool.
+ */
+@Configuration
+public class DataSourceConfig {
+
+    @Bean
+    public ReadWriteDataSource dataSource(DataSourceProperties properties,
+                                          Environment environment,
+                                          MeterRegistry meterRegistry,
+                                          @Value("${app.datasource.max-replica-lag:5s}") Duration maxReplicaLag,
+                                          @Value("${app.datasource.lag-check-interval:2s}") Duration lagCheckInterval) {
+        Binder binder = Binder.get(environment);
+        MetricsTrackerFactory metrics = new MicrometerMetricsTrackerFactory(meterRegistry);
+
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName("primary");
+        binder.bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        primary.setMetricsTrackerFactory(metrics);
+
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (int i = 0; binder.bind(replicaKey(i, "url"), String.class).isBound(); i++) {
+            // Сначала настройки пула основного сервера, поверх них — переопределения реплики
+            HikariDataSource replica = new HikariDataSource();
+            binder.bind("spring.datasource.hikari", Bindable.ofInstance(replica));
+            replica.setDriverClassName(properties.determineDriverClassName());
+            replica.setJdbcUrl(binder.bind(replicaKey(i, "url"), String.class).get());
+            replica.setUsername(binder.bind(replicaKey(i, "username"), String.class).orElse(properties.determineUsername()));
+            replica.setPassword(binder.bind(replicaKey(i, "password"), String.class).orElse(properties.determinePassword()));
+            replica.setPoolName("replica-" + (i + 1));
+            replica.setReadOnly(true);
+            // Недоступная при старте реплика не мешает запуску: её исключит проверка отставания
+            replica.setInitializationFailTimeout(-1);
+            binder.bind(replicaKey(i, "hikari"), Bindable.ofInstance(replica));
+            replica.setMetricsTrackerFactory(metrics);
+            replicas.add(replica);
+        }
+
+        return new ReadWriteDataSource(primary,
+                new ReplicaRoutingDataSource(primary, replicas, maxReplicaLag, lagCheckInterval, meterRegistry));
+    }
+
+    private static String replicaKey(int index, String property) {
+        return "app.datasource.replicas[" + index + "]." + property;
+    }
+}
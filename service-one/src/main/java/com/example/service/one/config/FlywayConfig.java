@@ -0,0 +1,58 @@
+package com.example.service.one.config;
+
+import org.flywaydb.core.api.migration.JavaMigration;
+import org.flywaydb.core.internal.scanner.LocationScannerCache;
+import org.flywaydb.core.internal.scanner.ResourceNameCache;
+import org.flywaydb.core.internal.scanner.Scanner;
+import org.springframework.aot.AotDetector;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.flyway.FlywayConfigurationCustomizer;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Arrays;
+
+/**
+ * Flyway 8 (версия закреплена в pom.xml) при запуске AOT-сборки (-Dspring.aot.enabled=true).
+ *
+ * В режиме AOT Spring Boot подставляет свой поиск миграций, рассчитанный на конструктор
+ * Scanner из Flyway 9+, и создание бина flyway падает с NoSuchMethodError. Если сканер
+ * уже задан в конфигурации, Boot его не трогает, поэтому здесь он создаётся заранее
+ * с теми же параметрами, с которыми Flyway создаёт его сам.
+ *
+ * Условие spring.flyway.enabled в AOT-сборке вычислено при сборке, поэтому миграции
+ * при старте отключаются отдельным свойством (нужно обучающему запуску AppCDS без БД).
+ */
+@Configuration
+public class FlywayConfig {
+
+    @Bean
+    public FlywayConfigurationCustomizer aotMigrationScannerCustomizer() {
+        return configuration -> {
+            if (!AotDetector.useGeneratedArtifacts()) {
+                return;
+            }
+            Scanner<JavaMigration> scanner = new Scanner<>(JavaMigration.class,
+                    Arrays.asList(configuration.getLocations()),
+                    configuration.getClassLoader(),
+                    configuration.getEncoding(),
+                    configuration.isDetectEncoding(),
+                    false,
+                    new ResourceNameCache(),
+                    new LocationScannerCache(),
+                    configuration.isFailOnMissingLocations());
+            configuration.resourceProvider(scanner).javaMigrationClassProvider(scanner);
+        };
+    }
+
+    @Bean
+    public FlywayMigrationStrategy flywayMigrationStrategy(
+            @Value("${app.flyway.migrate-on-start:true}") boolean migrateOnStart) {
+        return flyway -> {
+            if (migrateOnStart) {
+                flyway.migrate();
+            }
+        };
+    }
+}
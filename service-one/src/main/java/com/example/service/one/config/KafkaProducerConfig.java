@@ -1,5 +1,7 @@
 package com.example.service.one.config;
 
+import com.example.service.one.kafka.MessageEnvelope;
+import com.example.service.one.kafka.MessageEnvelopeSerializer;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
@@ -9,6 +11,7 @@ import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.core.ProducerFactory;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -18,12 +21,43 @@ public class KafkaProducerConfig {
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
+    // Профиль продюсера: сколько ждать накопления пачки и какого она размера
+    @Value("${app.kafka.producer.linger:10ms}")
+    private Duration linger;
+
+    @Value("${app.kafka.producer.batch-size:65536}")
+    private int batchSize;
+
+    @Value("${app.kafka.producer.compression-type:lz4}")
+    private String compressionType;
+
+    @Value("${app.kafka.producer.acks:all}")
+    private String acks;
+
+    // Память под неотправленные пачки; когда она занята, send ждёт не дольше max-block
+    @Value("${app.kafka.producer.buffer-memory:67108864}")
+    private long bufferMemory;
+
+    @Value("${app.kafka.producer.max-block:100ms}")
+    private Duration maxBlock;
+
+    @Value("${app.kafka.producer.delivery-timeout:120s}")
+    private Duration deliveryTimeout;
+
     @Bean
     public Map<String, Object> producerConfigs() {
         Map<String, Object> props = new HashMap<>();
         props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
         props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        props.put(ProducerConfig.LINGER_MS_CONFIG, (int) linger.toMillis());
+        props.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+        props.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+        props.put(ProducerConfig.ACKS_CONFIG, acks);
+        props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, "all".equals(acks));
+        props.put(ProducerConfig.BUFFER_MEMORY_CONFIG, bufferMemory);
+        props.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, maxBlock.toMillis());
+        props.put(ProducerConfig.DELIVERY_TIMEOUT_MS_CONFIG, (int) deliveryTimeout.toMillis());
         return props;
     }
 
@@ -36,4 +70,17 @@ public class KafkaProducerConfig {
     public KafkaTemplate<String, String> kafkaTemplate() {
         return new KafkaTemplate<>(producerFactory());
     }
-}
\ No newline at end of file
+
+    // Те же настройки, но значение — типизированный конверт (MessageEnvelope)
+    @Bean
+    public ProducerFactory<String, MessageEnvelope> envelopeProducerFactory() {
+        Map<String, Object> props = new HashMap<>(producerConfigs());
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, MessageEnvelopeSerializer.class);
+        return new DefaultKafkaProducerFactory<>(props);
+    }
+
+    @Bean
+    public KafkaTemplate<String, MessageEnvelope> envelopeKafkaTemplate() {
+        return new KafkaTemplate<>(envelopeProducerFactory());
+    }
+}
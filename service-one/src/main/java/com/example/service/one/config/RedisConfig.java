@@ -0,0 +1,136 @@
+package com.example.service.one.config;
+
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.SocketOptions;
+import io.lettuce.core.TimeoutOptions;
+import io.lettuce.core.resource.ClientResources;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.data.redis.RedisProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettucePoolingClientConfiguration;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+
+/**
+ * Подключение к Redis через Lettuce.
+ *
+ * Простые команды (GET/SET/INCR...) идут по одному общему мультиплексированному
+ * соединению — Lettuce сам конвейеризует запросы разных потоков. Блокирующие
+ * команды (BLPOP и т.п.) и транзакции MULTI/EXEC получают соединение из пула
+ * commons-pool2 с ограниченным временем ожидания.
+ */
+@Configuration
+public class RedisConfig {
+
+    private static final String POOL_JMX_PREFIX = "redis-pool";
+
+    @Value("${app.redis.connect-timeout:2s}")
+    private Duration connectTimeout;
+
+    @Bean
+    public LettuceConnectionFactory redisConnectionFactory(RedisProperties properties,
+                                                           ClientResources clientResources) {
+        RedisStandaloneConfiguration server = new RedisStandaloneConfiguration(properties.getHost(), properties.getPort());
+        server.setDatabase(properties.getDatabase());
+        if (properties.getPassword() != null && !properties.getPassword().isEmpty()) {
+            server.setPassword(properties.getPassword());
+        }
+
+        Duration commandTimeout = properties.getTimeout() != null ? properties.getTimeout() : Duration.ofSeconds(2);
+        ClientOptions clientOptions = ClientOptions.builder()
+                .autoReconnect(true)
+                // Пока соединение восстанавливается, команды не копятся бесконечно
+                .disconnectedBehavior(ClientOptions.DisconnectedBehavior.REJECT_COMMANDS)
+                .socketOptions(SocketOptions.builder()
+                        .connectTimeout(connectTimeout)
+                        .keepAlive(true)
+                        .build())
+                .timeoutOptions(TimeoutOptions.enabled(commandTimeout))
+                .build();
+
+        LettucePoolingClientConfiguration clientConfiguration = LettucePoolingClientConfiguration.builder()
+                .clientResources(clientResources)
+                .clientOptions(clientOptions)
+                .commandTimeout(commandTimeout)
+                .shutdownTimeout(properties.getLettuce().getShutdownTimeout())
+                .poolConfig(poolConfig(properties.getLettuce().getPool()))
+                .build();
+
+        LettuceConnectionFactory factory = new LettuceConnectionFactory(server, clientConfiguration);
+        // Общее соединение для неблокирующих команд, пул — только для блокирующих и транзакций
+        factory.setShareNativeConnection(true);
+        return factory;
+    }
+
+    // Показатели пула: активные, простаивающие и ожидающие соединения, время ожидания выдачи
+    @Bean
+    public RedisPoolMetrics redisPoolMetrics(MeterRegistry meterRegistry) {
+        RedisPoolMetrics metrics = new RedisPoolMetrics();
+        Gauge.builder("redis.pool.active", metrics, m -> m.attribute("NumActive"))
+                .description("Соединения пула Redis, выданные потокам")
+                .register(meterRegistry);
+        Gauge.builder("redis.pool.idle", metrics, m -> m.attribute("NumIdle"))
+                .description("Свободные соединения пула Redis")
+                .register(meterRegistry);
+        Gauge.builder("redis.pool.pending", metrics, m -> m.attribute("NumWaiters"))
+                .description("Потоки, ожидающие соединение из пула Redis")
+                .register(meterRegistry);
+        Gauge.builder("redis.pool.borrow.wait.mean", metrics, m -> m.attribute("MeanBorrowWaitTimeMillis"))
+                .description("Среднее время ожидания соединения из пула Redis")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        Gauge.builder("redis.pool.borrow.wait.max", metrics, m -> m.attribute("MaxBorrowWaitTimeMillis"))
+                .description("Максимальное время ожидания соединения из пула Redis")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        return metrics;
+    }
+
+    private static GenericObjectPoolConfig<?> poolConfig(RedisProperties.Pool pool) {
+        GenericObjectPoolConfig<?> config = new GenericObjectPoolConfig<>();
+        if (pool != null) {
+            config.setMaxTotal(pool.getMaxActive());
+            config.setMaxIdle(pool.getMaxIdle());
+            config.setMinIdle(pool.getMinIdle());
+            config.setMaxWait(pool.getMaxWait());
+            if (pool.getTimeBetweenEvictionRuns() != null) {
+                config.setTimeBetweenEvictionRuns(pool.getTimeBetweenEvictionRuns());
+            }
+        }
+        // Пул создаётся лениво внутри Spring Data Redis; его показатели читаем через JMX
+        config.setJmxEnabled(true);
+        config.setJmxNamePrefix(POOL_JMX_PREFIX);
+        return config;
+    }
+
+    /**
+     * Суммирует атрибуты всех пулов соединений Redis, зарегистрированных в JMX
+     */
+    public static class RedisPoolMetrics {
+
+        private final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+
+        double attribute(String name) {
+            try {
+                ObjectName query = new ObjectName("org.apache.commons.pool2:type=GenericObjectPool,name="
+                        + POOL_JMX_PREFIX + "*");
+                double total = 0;
+                for (ObjectName pool : mBeanServer.queryNames(query, null)) {
+                    total += ((Number) mBeanServer.getAttribute(pool, name)).doubleValue();
+                }
+                return total;
+            } catch (Exception e) {
+                return Double.NaN;
+            }
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.service.one.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Фоновые задачи по расписанию (публикация журнала изменений отчётов)
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,34 @@
+package com.example.service.one.controller;
+
+import com.example.service.one.dto.EmployeeView;
+import com.example.service.one.dto.SeekPage;
+import com.example.service.one.service.ReadApiService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/employees")
+@RequiredArgsConstructor
+public class EmployeeController {
+
+    private final ReadApiService readApiService;
+
+    // Сотрудники по возрастанию id, при необходимости только одного отдела
+    @GetMapping
+    public ResponseEntity<SeekPage<EmployeeView>> getEmployees(@RequestParam(required = false) Integer departmentId,
+                                                               @RequestParam(required = false) String cursor,
+                                                               @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(readApiService.employees(departmentId, cursor, limit));
+    }
+
+    @GetMapping("/{employeeId}")
+    public ResponseEntity<EmployeeView> getEmployee(@PathVariable Integer employeeId) {
+        return ResponseEntity.of(readApiService.employee(employeeId));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> badCursor(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+}
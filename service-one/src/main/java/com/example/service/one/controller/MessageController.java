@@ -1,25 +1,113 @@
 package com.example.service.one.controller;
 
+import com.example.service.one.dto.BulkSendResult;
+import com.example.service.one.kafka.MessageType;
+import com.example.service.one.service.MessagePublisher;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+
 @RestController
 @RequestMapping("/api/messages")
 @RequiredArgsConstructor
 public class MessageController {
 
-    private static final String TOPIC = "service-messages";
+    private static final String NDJSON = "application/x-ndjson";
+    // Идентификатор сообщения от клиента: повторный запрос с тем же id не будет обработан дважды
+    private static final String MESSAGE_ID_HEADER = "X-Message-Id";
 
-    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final MessagePublisher messagePublisher;
+    private final ObjectMapper objectMapper;
 
+    // type — явный тип сообщения; без него тип определяется по содержимому
     @PostMapping
-    public String sendMessage(@RequestBody String message) {
-        kafkaTemplate.send(TOPIC, message);
-        return "Сообщение отправлено: " + message;
+    public CompletableFuture<ResponseEntity<String>> sendMessage(@RequestBody String message,
+                                                                 @RequestParam(required = false) String key,
+                                                                 @RequestParam(required = false) MessageType type,
+                                                                 @RequestHeader(value = MESSAGE_ID_HEADER, required = false) String messageId) {
+        String id = messageId != null ? messageId : MessagePublisher.newMessageId();
+        if (!messagePublisher.tryReserve()) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .body("Буфер отправки заполнен, повторите позже"));
+        }
+        // Поток Tomcat освобождается сразу, ответ уйдёт после подтверждения брокера
+        return messagePublisher.sendReserved(id, key, type, message)
+                .thenApply(result -> ResponseEntity.ok()
+                        .header(MESSAGE_ID_HEADER, id)
+                        .body("Сообщение отправлено: " + message))
+                .exceptionally(ex -> {
+                    // TimeoutException — буфер продюсера не освободился за max.block.ms
+                    Throwable cause = NestedExceptionUtils.getMostSpecificCause(ex);
+                    HttpStatus status = cause instanceof TimeoutException
+                            ? HttpStatus.TOO_MANY_REQUESTS : HttpStatus.INTERNAL_SERVER_ERROR;
+                    return ResponseEntity.status(status).body("Сообщение не отправлено: " + cause.getMessage());
+                });
+    }
+
+    // Пакетная отправка: JSON-массив строк или объектов {"id": ..., "key": ..., "message": ...}.
+    // Тело читается потоково, сообщения уходят продюсеру по мере разбора
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public CompletableFuture<ResponseEntity<BulkSendResult>> sendBulkJson(InputStream body) throws IOException {
+        MessagePublisher.BulkSender sender = messagePublisher.bulk();
+        try (JsonParser parser = objectMapper.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                return CompletableFuture.completedFuture(ResponseEntity.badRequest().build());
+            }
+            JsonToken token;
+            while ((token = parser.nextToken()) != null && token != JsonToken.END_ARRAY) {
+                if (token == JsonToken.VALUE_STRING) {
+                    if (!sender.add(null, null, parser.getText())) {
+                        break;
+                    }
+                } else {
+                    JsonNode item = parser.readValueAsTree();
+                    if (!sender.add(item.path("id").asText(null), item.path("key").asText(null),
+                            item.path("message").asText())) {
+                        break;
+                    }
+                }
+            }
+        }
+        return respond(sender);
+    }
+
+    // Пакетная отправка NDJSON: одна строка — одно сообщение
+    @PostMapping(value = "/bulk", consumes = NDJSON)
+    public CompletableFuture<ResponseEntity<BulkSendResult>> sendBulkNdjson(InputStream body) throws IOException {
+        MessagePublisher.BulkSender sender = messagePublisher.bulk();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank() && !sender.add(null, null, line)) {
+                    break;
+                }
+            }
+        }
+        return respond(sender);
+    }
+
+    private CompletableFuture<ResponseEntity<BulkSendResult>> respond(MessagePublisher.BulkSender sender) {
+        HttpStatus status = sender.isBackpressure() ? HttpStatus.TOO_MANY_REQUESTS : HttpStatus.OK;
+        return sender.result().thenApply(result -> ResponseEntity.status(status).body(result));
     }
-}
\ No newline at end of file
+}
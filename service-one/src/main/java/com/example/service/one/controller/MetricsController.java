@@ -1,56 +1,37 @@
 package com.example.service.one.controller;
 
-import io.micrometer.core.annotation.Counted;
-import io.micrometer.core.annotation.Timed;
-import io.micrometer.core.instrument.Counter;
-import io.micrometer.core.instrument.Gauge;
-import io.micrometer.core.instrument.MeterRegistry;
+import com.example.service.one.metrics.ApiMetrics;
 import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Random;
-import java.util.concurrent.atomic.AtomicInteger;
 
 @RestController
 @RequestMapping("/metrics")
+@RequiredArgsConstructor
 public class MetricsController {
 
-    private final MeterRegistry meterRegistry;
-    private final Counter customCounter;
-    private final AtomicInteger gaugeValue = new AtomicInteger(0);
+    private final ApiMetrics metrics;
     private final Random random = new Random();
 
-    public MetricsController(MeterRegistry meterRegistry) {
-        this.meterRegistry = meterRegistry;
-
-        // Создаем кастомный счетчик
-        this.customCounter = Counter.builder("custom.api.calls")
-                .description("Количество вызовов кастомного API")
-                .tag("service", "service-one")
-                .register(meterRegistry);
-
-        // Создаем gauge для отслеживания активных подключений - ПРАВИЛЬНЫЙ СИНТАКСИС
-        Gauge.builder("custom.active.connections", gaugeValue, AtomicInteger::get)
-                .description("Количество активных подключений")
-                .tag("service", "service-one")
-                .register(meterRegistry);
-    }
-
     @GetMapping("/test")
-    @Timed(value = "custom.api.test.time", description = "Время выполнения тестового API")
-    @Counted(value = "custom.api.test.count", description = "Количество вызовов тестового API")
     public String testEndpoint() {
+        Timer.Sample sample = Timer.start();
+
         // Увеличиваем кастомный счетчик
-        customCounter.increment();
+        metrics.apiCalls().increment();
 
         // Изменяем значение gauge
-        gaugeValue.set(random.nextInt(100));
+        metrics.setActiveConnections(random.nextInt(100));
 
         // Симулируем различное время выполнения
         try {
             Thread.sleep(random.nextInt(1000));
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
+        } finally {
+            sample.stop(metrics.testTime());
         }
 
         return "Test endpoint executed successfully!";
@@ -58,26 +39,19 @@ public class MetricsController {
 
     @PostMapping("/increment-counter")
     public String incrementCounter() {
-        customCounter.increment();
-        return "Counter incremented. Current value: " + customCounter.count();
+        metrics.apiCalls().increment();
+        return "Counter incremented. Current value: " + metrics.apiCalls().count();
     }
 
     @PostMapping("/set-gauge/{value}")
     public String setGaugeValue(@PathVariable int value) {
-        gaugeValue.set(value);
+        metrics.setActiveConnections(value);
         return "Gauge value set to: " + value;
     }
 
     @GetMapping("/simulate-error")
     public String simulateError() {
-        // Создаем счетчик для ошибок
-        Counter errorCounter = Counter.builder("custom.api.errors")
-                .description("Количество ошибок API")
-                .tag("service", "service-one")
-                .tag("error.type", "simulated")
-                .register(meterRegistry);
-
-        errorCounter.increment();
+        metrics.simulatedErrors().increment();
 
         if (random.nextBoolean()) {
             throw new RuntimeException("Simulated error for metrics testing");
@@ -87,9 +61,8 @@ public class MetricsController {
     }
 
     @GetMapping("/long-operation")
-    @Timed(value = "custom.long.operation.time", description = "Время выполнения длительной операции")
     public String longOperation() {
-        Timer.Sample sample = Timer.start(meterRegistry);
+        Timer.Sample sample = Timer.start();
 
         try {
             // Симулируем длительную операцию
@@ -99,22 +72,14 @@ public class MetricsController {
             Thread.currentThread().interrupt();
             return "Operation interrupted";
         } finally {
-            sample.stop(Timer.builder("custom.operation.duration")
-                    .description("Длительность выполнения операции")
-                    .tag("operation", "long")
-                    .register(meterRegistry));
+            sample.stop(metrics.longOperation());
         }
     }
 
     @GetMapping("/database-simulation")
     public String databaseSimulation() {
-        Timer dbTimer = Timer.builder("custom.database.query.time")
-                .description("Время выполнения запроса к БД")
-                .tag("query.type", "select")
-                .register(meterRegistry);
-
         try {
-            return dbTimer.recordCallable(() -> {
+            return metrics.selectQuery().recordCallable(() -> {
                 // Симулируем запрос к БД
                 Thread.sleep(50 + random.nextInt(200));
                 return "Database query executed";
@@ -134,4 +99,4 @@ public class MetricsController {
         return String.format("Memory usage: %d bytes (%.2f MB)",
                 usedMemory, usedMemory / (1024.0 * 1024.0));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,51 @@
+package com.example.service.one.controller;
+
+import com.example.service.one.dto.OrderDetails;
+import com.example.service.one.dto.OrderSummary;
+import com.example.service.one.dto.SeekPage;
+import com.example.service.one.service.ReadApiService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/orders")
+@RequiredArgsConstructor
+public class OrderController {
+
+    private final ReadApiService readApiService;
+
+    // Заказы от новых к старым, keyset-пагинация по курсору из предыдущей страницы.
+    // Период [from, to) необязателен
+    @GetMapping
+    public ResponseEntity<SeekPage<OrderSummary>> getOrders(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(readApiService.orders(from, to, cursor, limit));
+    }
+
+    // То же, но вместе с позициями заказов
+    @GetMapping("/with-items")
+    public ResponseEntity<SeekPage<OrderDetails>> getOrdersWithItems(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(readApiService.ordersWithItems(from, to, cursor, limit));
+    }
+
+    @GetMapping("/{orderId}")
+    public ResponseEntity<OrderDetails> getOrder(@PathVariable Integer orderId) {
+        return ResponseEntity.of(readApiService.order(orderId));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> badCursor(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+}
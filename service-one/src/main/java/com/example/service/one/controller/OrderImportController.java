@@ -0,0 +1,55 @@
+package com.example.service.one.controller;
+
+import com.example.service.one.dto.OrderImportStatus;
+import com.example.service.one.service.OrderImportService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.InputStream;
+
+@RestController
+@RequestMapping("/orders/import")
+@RequiredArgsConstructor
+public class OrderImportController {
+
+    private static final String CSV = "text/csv";
+    private static final String NDJSON = "application/x-ndjson";
+
+    private final OrderImportService orderImportService;
+
+    // Импорт из тела запроса: тело читается потоково, ответ — после записи последней порции
+    @PostMapping(consumes = CSV)
+    public ResponseEntity<OrderImportStatus> importCsv(InputStream body) {
+        return respond(orderImportService.importStream(body, OrderImportService.Format.CSV));
+    }
+
+    @PostMapping(consumes = NDJSON)
+    public ResponseEntity<OrderImportStatus> importNdjson(InputStream body) {
+        return respond(orderImportService.importStream(body, OrderImportService.Format.NDJSON));
+    }
+
+    // Фоновый импорт файла из каталога app.order-import.directory; ход — через GET /orders/import/{jobId}
+    @PostMapping("/jobs")
+    public ResponseEntity<OrderImportStatus> importFile(@RequestParam String file,
+                                                        @RequestParam(defaultValue = "CSV") OrderImportService.Format format) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(orderImportService.importFile(file, format));
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<OrderImportStatus> getStatus(@PathVariable String jobId) {
+        return ResponseEntity.of(orderImportService.status(jobId));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+
+    private static ResponseEntity<OrderImportStatus> respond(OrderImportStatus status) {
+        return "FAILED".equals(status.state())
+                ? ResponseEntity.unprocessableEntity().body(status)
+                : ResponseEntity.ok(status);
+    }
+}
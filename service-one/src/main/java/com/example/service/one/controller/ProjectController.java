@@ -0,0 +1,34 @@
+package com.example.service.one.controller;
+
+import com.example.service.one.dto.ProjectView;
+import com.example.service.one.dto.SeekPage;
+import com.example.service.one.service.ReadApiService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/projects")
+@RequiredArgsConstructor
+public class ProjectController {
+
+    private final ReadApiService readApiService;
+
+    // Проекты по возрастанию id, при необходимости только с указанным статусом
+    @GetMapping
+    public ResponseEntity<SeekPage<ProjectView>> getProjects(@RequestParam(required = false) String status,
+                                                             @RequestParam(required = false) String cursor,
+                                                             @RequestParam(defaultValue = "50") int limit) {
+        return ResponseEntity.ok(readApiService.projects(status, cursor, limit));
+    }
+
+    @GetMapping("/{projectId}")
+    public ResponseEntity<ProjectView> getProject(@PathVariable Integer projectId) {
+        return ResponseEntity.of(readApiService.project(projectId));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> badCursor(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.service.one.controller;
+
+import com.example.service.one.service.ReactiveRedisService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+// Реактивные варианты эндпоинтов /redis: Spring MVC обрабатывает Mono/Flux асинхронно,
+// поэтому медленный Redis не занимает пул потоков Tomcat
+@RestController
+@RequestMapping("/redis/reactive")
+public class ReactiveRedisController {
+
+    private static final String NDJSON = "application/x-ndjson";
+
+    private final ReactiveRedisService reactiveRedisService;
+    private final int maxScanCount;
+
+    public ReactiveRedisController(ReactiveRedisService reactiveRedisService,
+                                   @Value("${app.redis.scan.max-count:10000}") int maxScanCount) {
+        this.reactiveRedisService = reactiveRedisService;
+        this.maxScanCount = maxScanCount;
+    }
+
+    // Добавить значение
+    @PostMapping("/set/{key}")
+    public Mono<ResponseEntity<String>> setValue(@PathVariable String key, @RequestBody String value) {
+        return reactiveRedisService.setValue(key, value)
+                .map(result -> ResponseEntity.ok("Значение установлено для ключа: " + key));
+    }
+
+    // Добавить значение с TTL (в секундах)
+    @PostMapping("/set/{key}/ttl/{seconds}")
+    public Mono<ResponseEntity<String>> setValueWithTtl(@PathVariable String key,
+                                                        @PathVariable long seconds,
+                                                        @RequestBody String value) {
+        return reactiveRedisService.setValue(key, value, Duration.ofSeconds(seconds))
+                .map(result -> ResponseEntity.ok("Значение установлено для ключа: " + key + " с TTL: " + seconds + " секунд"));
+    }
+
+    // Получить значение
+    @GetMapping("/get/{key}")
+    public Mono<ResponseEntity<String>> getValue(@PathVariable String key) {
+        return reactiveRedisService.getValue(key)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    // Удалить ключ
+    @DeleteMapping("/delete/{key}")
+    public Mono<ResponseEntity<String>> deleteKey(@PathVariable String key) {
+        return reactiveRedisService.deleteKey(key)
+                .map(deleted -> deleted
+                        ? ResponseEntity.ok("Ключ удален: " + key)
+                        : ResponseEntity.<String>notFound().build());
+    }
+
+    // Проверить существование ключа
+    @GetMapping("/exists/{key}")
+    public Mono<ResponseEntity<Boolean>> hasKey(@PathVariable String key) {
+        return reactiveRedisService.hasKey(key).map(ResponseEntity::ok);
+    }
+
+    // Все ключи по паттерну потоком NDJSON
+    @GetMapping(value = "/keys", produces = NDJSON)
+    public Flux<String> getKeys(@RequestParam(defaultValue = "*") String pattern,
+                                @RequestParam(defaultValue = "1000") int count) {
+        // COUNT — только подсказка SCAN: вне 1..max-count берём ближайшую границу
+        return reactiveRedisService.scanKeys(pattern, Math.clamp(count, 1, maxScanCount));
+    }
+
+    // Установить время жизни для ключа (в секундах)
+    @PutMapping("/expire/{key}/{seconds}")
+    public Mono<ResponseEntity<String>> setExpire(@PathVariable String key, @PathVariable long seconds) {
+        return reactiveRedisService.expire(key, Duration.ofSeconds(seconds))
+                .map(result -> result
+                        ? ResponseEntity.ok("TTL установлен для ключа: " + key)
+                        : ResponseEntity.<String>notFound().build());
+    }
+
+    // Получить время жизни ключа (в секундах)
+    @GetMapping("/ttl/{key}")
+    public Mono<ResponseEntity<Long>> getExpire(@PathVariable String key) {
+        return reactiveRedisService.getExpire(key)
+                .map(ttl -> ResponseEntity.ok(ttl.getSeconds()));
+    }
+
+    // Инкремент значения
+    @PostMapping("/increment/{key}")
+    public Mono<ResponseEntity<Long>> increment(@PathVariable String key) {
+        return reactiveRedisService.increment(key, 1).map(ResponseEntity::ok);
+    }
+
+    // Инкремент на определенное значение
+    @PostMapping("/increment/{key}/{delta}")
+    public Mono<ResponseEntity<Long>> increment(@PathVariable String key, @PathVariable long delta) {
+        return reactiveRedisService.increment(key, delta).map(ResponseEntity::ok);
+    }
+
+    // Декремент значения
+    @PostMapping("/decrement/{key}")
+    public Mono<ResponseEntity<Long>> decrement(@PathVariable String key) {
+        return reactiveRedisService.decrement(key, 1).map(ResponseEntity::ok);
+    }
+
+    // Декремент на определенное значение
+    @PostMapping("/decrement/{key}/{delta}")
+    public Mono<ResponseEntity<Long>> decrement(@PathVariable String key, @PathVariable long delta) {
+        return reactiveRedisService.decrement(key, delta).map(ResponseEntity::ok);
+    }
+
+    // Запись агрегируемого счётчика в обход CounterAggregator
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+}
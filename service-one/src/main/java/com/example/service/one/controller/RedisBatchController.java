@@ -0,0 +1,115 @@
+package com.example.service.one.controller;
+
+import com.example.service.one.dto.BatchSetRequest;
+import com.example.service.one.dto.ThroughputComparison;
+import com.example.service.one.service.RedisService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+// Пакетные операции: сотни ключей за один HTTP-запрос и один запрос к Redis
+@RestController
+@RequestMapping("/redis/batch")
+public class RedisBatchController {
+
+    private final RedisService redisService;
+    private final int maxBatchSize;
+
+    public RedisBatchController(RedisService redisService,
+                                @Value("${app.redis.batch.max-size:1000}") int maxBatchSize) {
+        this.redisService = redisService;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    // Получить значения списка ключей (отсутствующие ключи — null)
+    @PostMapping("/get")
+    public ResponseEntity<Map<String, String>> multiGet(@RequestBody List<String> keys) {
+        checkSize(keys.size());
+        return ResponseEntity.ok(redisService.multiGet(keys));
+    }
+
+    // Установить значения, при необходимости с TTL для отдельных ключей
+    @PostMapping("/set")
+    public ResponseEntity<String> multiSet(@RequestBody BatchSetRequest request) {
+        if (request.values() == null || request.values().isEmpty()) {
+            return ResponseEntity.badRequest().body("Не переданы значения");
+        }
+        checkSize(request.values().size());
+        redisService.multiSet(request.values(), request.ttlSeconds());
+        return ResponseEntity.ok("Значения установлены для ключей: " + request.values().size());
+    }
+
+    // Инкремент нескольких ключей: ключ -> delta
+    @PostMapping("/increment")
+    public ResponseEntity<Map<String, Long>> multiIncrement(@RequestBody Map<String, Long> deltas) {
+        checkSize(deltas.size());
+        return ResponseEntity.ok(redisService.multiIncrement(deltas));
+    }
+
+    // Удалить список ключей
+    @PostMapping("/delete")
+    public ResponseEntity<Long> multiDelete(@RequestBody List<String> keys) {
+        checkSize(keys.size());
+        return ResponseEntity.ok(redisService.multiDelete(keys));
+    }
+
+    // Сравнить пропускную способность поштучных и пакетных операций на count временных ключах
+    @PostMapping("/compare/{count}")
+    public ResponseEntity<ThroughputComparison> compare(@PathVariable int count) {
+        checkSize(count);
+        List<String> singleKeys = benchmarkKeys("single", count);
+        List<String> batchKeys = benchmarkKeys("batch", count);
+        Map<String, String> batchValues = batchKeys.stream()
+                .collect(Collectors.toMap(key -> key, key -> "value", (a, b) -> a, LinkedHashMap::new));
+        Map<String, Long> batchDeltas = batchKeys.stream()
+                .collect(Collectors.toMap(key -> key + ":counter", key -> 1L, (a, b) -> a, LinkedHashMap::new));
+
+        try {
+            double singleSet = opsPerSecond(count, () -> singleKeys.forEach(key -> redisService.setValue(key, "value")));
+            double batchSet = opsPerSecond(count, () -> redisService.multiSet(batchValues, null));
+            double singleGet = opsPerSecond(count, () -> singleKeys.forEach(redisService::getValue));
+            double batchGet = opsPerSecond(count, () -> redisService.multiGet(batchKeys));
+            double singleIncr = opsPerSecond(count, () -> singleKeys.forEach(key -> redisService.increment(key + ":counter")));
+            double batchIncr = opsPerSecond(count, () -> redisService.multiIncrement(batchDeltas));
+            return ResponseEntity.ok(new ThroughputComparison(count,
+                    singleSet, batchSet, singleGet, batchGet, singleIncr, batchIncr));
+        } finally {
+            redisService.multiDelete(singleKeys);
+            redisService.multiDelete(batchKeys);
+            redisService.multiDelete(singleKeys.stream().map(key -> key + ":counter").toList());
+            redisService.multiDelete(batchDeltas.keySet());
+        }
+    }
+
+    private void checkSize(int size) {
+        if (size > maxBatchSize) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "Размер пакета " + size + " превышает лимит " + maxBatchSize);
+        }
+    }
+
+    private static List<String> benchmarkKeys(String prefix, int count) {
+        return IntStream.range(0, count).mapToObj(i -> "batch-compare:" + prefix + ":" + i).toList();
+    }
+
+    private static double opsPerSecond(int operations, Runnable action) {
+        long start = System.nanoTime();
+        action.run();
+        long elapsed = Math.max(System.nanoTime() - start, 1);
+        return operations * 1_000_000_000.0 / elapsed;
+    }
+
+    // Запись агрегируемого счётчика в обход CounterAggregator
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+}
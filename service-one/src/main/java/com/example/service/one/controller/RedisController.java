@@ -1,19 +1,40 @@
 package com.example.service.one.controller;
 
+import com.example.service.one.dto.KeyPage;
 import com.example.service.one.service.RedisService;
-import lombok.RequiredArgsConstructor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
-import java.util.Set;
 
 @RestController
 @RequestMapping("/redis")
-@RequiredArgsConstructor
 public class RedisController {
 
+    private static final String NDJSON = "application/x-ndjson";
+    private static final int DEFAULT_SCAN_COUNT = 1000;
+
     private final RedisService redisService;
+    private final ObjectMapper objectMapper;
+    private final int maxScanCount;
+
+    public RedisController(RedisService redisService,
+                           ObjectMapper objectMapper,
+                           @Value("${app.redis.scan.max-count:10000}") int maxScanCount) {
+        this.redisService = redisService;
+        this.objectMapper = objectMapper;
+        this.maxScanCount = maxScanCount;
+    }
 
     // Добавить значение
     @PostMapping("/set/{key}")
@@ -60,18 +81,44 @@ public class RedisController {
         return ResponseEntity.ok(exists);
     }
 
-    // Получить все ключи по паттерну
+    // Страница ключей по паттерну (курсорная пагинация поверх SCAN)
     @GetMapping("/keys/{pattern}")
-    public ResponseEntity<Set<String>> getKeys(@PathVariable String pattern) {
-        Set<String> keys = redisService.getKeys(pattern);
-        return ResponseEntity.ok(keys);
+    public ResponseEntity<KeyPage> getKeys(@PathVariable String pattern,
+                                           @RequestParam(defaultValue = "0") String cursor,
+                                           @RequestParam(defaultValue = "" + DEFAULT_SCAN_COUNT) int count) {
+        return ResponseEntity.ok(redisService.scanKeys(pattern, cursor, scanCount(count)));
     }
 
-    // Получить все ключи
+    // Страница всех ключей; следующую страницу запрашиваем с cursor из ответа, пока он не станет null
     @GetMapping("/keys")
-    public ResponseEntity<Set<String>> getAllKeys() {
-        Set<String> keys = redisService.getKeys("*");
-        return ResponseEntity.ok(keys);
+    public ResponseEntity<KeyPage> getAllKeys(@RequestParam(defaultValue = "*") String pattern,
+                                              @RequestParam(defaultValue = "0") String cursor,
+                                              @RequestParam(defaultValue = "" + DEFAULT_SCAN_COUNT) int count) {
+        return ResponseEntity.ok(redisService.scanKeys(pattern, cursor, scanCount(count)));
+    }
+
+    // Все ключи по паттерну потоком NDJSON (по строке на ключ), без сборки ответа в памяти
+    @GetMapping(value = "/keys/stream", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamKeys(@RequestParam(defaultValue = "*") String pattern,
+                                                            @RequestParam(name = "count", defaultValue = "" + DEFAULT_SCAN_COUNT) int requestedCount) {
+        int count = scanCount(requestedCount);
+        StreamingResponseBody body = outputStream -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+            int[] written = {0};
+            redisService.scanKeys(pattern, count, key -> {
+                try {
+                    writer.write(objectMapper.writeValueAsString(key));
+                    writer.write('\n');
+                    if (++written[0] % count == 0) {
+                        writer.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
     }
 
     // Установить время жизни для ключа (в секундах)
@@ -119,4 +166,23 @@ public class RedisController {
         Long result = redisService.decrement(key, delta);
         return ResponseEntity.ok(result);
     }
-}
\ No newline at end of file
+
+    // Значение счётчика; consistency=approximate для агрегируемых ключей отвечает без обращения к Redis
+    @GetMapping("/counter/{key}")
+    public ResponseEntity<Long> getCounter(@PathVariable String key,
+                                           @RequestParam(defaultValue = "strict") String consistency) {
+        boolean strict = !"approximate".equalsIgnoreCase(consistency);
+        return ResponseEntity.ok(redisService.getCounter(key, strict));
+    }
+
+    // COUNT — только подсказка SCAN, поэтому вне 1..max-count не ошибка, а ближайшая граница
+    private int scanCount(int count) {
+        return Math.clamp(count, 1, maxScanCount);
+    }
+
+    // Запись агрегируемого счётчика в обход CounterAggregator
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.service.one.controller;
+
+import com.example.service.one.service.ReportingService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+// Отчёты отдаются готовой JSON-строкой из Redis, без повторной сериализации
+@RestController
+@RequestMapping(value = "/reports", produces = MediaType.APPLICATION_JSON_VALUE)
+@RequiredArgsConstructor
+public class ReportController {
+
+    private final ReportingService reportingService;
+
+    @GetMapping("/top-clients")
+    public ResponseEntity<String> getTopClients() {
+        return ResponseEntity.ok(reportingService.topClients());
+    }
+
+    @GetMapping("/best-sellers")
+    public ResponseEntity<String> getBestSellers() {
+        return ResponseEntity.ok(reportingService.bestSellers());
+    }
+
+    @GetMapping("/headcount")
+    public ResponseEntity<String> getHeadcount() {
+        return ResponseEntity.ok(reportingService.headcount());
+    }
+}
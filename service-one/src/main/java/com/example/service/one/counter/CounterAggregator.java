@@ -0,0 +1,351 @@
+package com.example.service.one.counter;
+
+import com.example.service.one.cache.NearCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.IntStream;
+
+/**
+ * Локальная агрегация инкрементов горячих счётчиков перед записью в Redis.
+ *
+ * Для ключей с префиксами из key-prefixes инкременты и декременты (одиночные, пакетные и реактивные)
+ * копятся в LongAdder по ключу (ячейки по потокам, без общей точки конкуренции) и уходят
+ * в Redis одним pipeline INCRBY на все изменённые ключи раз в flush-interval; ключ,
+ * набравший flush-threshold инкрементов, сбрасывается сразу. С shards &gt; 1 значение
+ * хранится в ключах key:0..key:N-1 (в Redis Cluster — разные слоты), сброс пишет
+ * в случайный из них, а чтение суммирует все.
+ *
+ * Чтение strict сначала сбрасывает накопленное этим экземпляром; approximate отвечает
+ * без обращения к Redis: последнее прочитанное значение плюс несброшенные изменения.
+ * Изменения других экземпляров видны после их сброса, а при аварийной остановке
+ * теряется накопленное за последний интервал.
+ */
+@Component
+public class CounterAggregator {
+
+    private static final Logger logger = LoggerFactory.getLogger(CounterAggregator.class);
+
+    private final RedisTemplate<String, String> redisTemplate;
+    private final NearCache nearCache;
+    private final boolean enabled;
+    private final List<String> keyPrefixes;
+    private final long flushThreshold;
+    private final int shards;
+    // Ключи живут до удаления через /redis/delete: режим рассчитан на ограниченный набор горячих счётчиков
+    private final Map<String, PendingCounter> counters = new ConcurrentHashMap<>();
+    private final Counter increments;
+    private final Counter writes;
+
+    public CounterAggregator(RedisTemplate<String, String> redisTemplate,
+                             NearCache nearCache,
+                             MeterRegistry meterRegistry,
+                             @Value("${app.redis.counter-aggregation.enabled:false}") boolean enabled,
+                             @Value("${app.redis.counter-aggregation.key-prefixes:counter:}") List<String> keyPrefixes,
+                             @Value("${app.redis.counter-aggregation.flush-threshold:10000}") long flushThreshold,
+                             @Value("${app.redis.counter-aggregation.shards:1}") int shards) {
+        this.redisTemplate = redisTemplate;
+        this.nearCache = nearCache;
+        this.enabled = enabled;
+        this.keyPrefixes = List.copyOf(keyPrefixes);
+        this.flushThreshold = flushThreshold;
+        this.shards = shards;
+        this.increments = Counter.builder("redis.counters.increments")
+                .description("Инкременты горячих счётчиков, накопленные локально")
+                .register(meterRegistry);
+        this.writes = Counter.builder("redis.counters.writes")
+                .description("Команды INCRBY, отправленные в Redis при сбросе счётчиков")
+                .register(meterRegistry);
+        Gauge.builder("redis.counters.keys", counters, Map::size)
+                .description("Счётчики, агрегируемые локально")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Идут ли инкременты ключа через локальную агрегацию
+     */
+    public boolean isAggregated(String key) {
+        if (!enabled) {
+            return false;
+        }
+        for (String prefix : keyPrefixes) {
+            if (key.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Отклонить запись агрегируемого ключа в обход счётчика (SET, EXPIRE): его значение
+     * распределено между несброшенными изменениями и шардами, и такая запись их потеряет
+     */
+    public void requireNotAggregated(String key) {
+        if (isAggregated(key)) {
+            throw new IllegalArgumentException("Ключ " + key
+                    + " — агрегируемый счётчик: доступны только инкремент, декремент и удаление");
+        }
+    }
+
+    /**
+     * Добавить delta к счётчику; возвращает приблизительное значение (как при чтении approximate)
+     */
+    public long add(String key, long delta) {
+        PendingCounter counter;
+        while (true) {
+            counter = counters.get(key);
+            if (counter == null) {
+                counter = counters.computeIfAbsent(key, k -> new PendingCounter());
+            }
+            counter.pending.add(delta);
+            if (!counter.dead) {
+                break;
+            }
+            // Счётчик удаляется: ждём окончания DEL и повторяем на свежей записи
+            counter.lock.lock();
+            counter.lock.unlock();
+            counters.remove(key, counter);
+        }
+        counter.increments.increment();
+        increments.increment();
+
+        // Сбрасывает один поток, остальные не ждут
+        if (counter.increments.sum() >= flushThreshold && counter.lock.tryLock()) {
+            try {
+                flush(key, counter);
+            } catch (RuntimeException e) {
+                logger.warn("Счётчик {} не сброшен в Redis, повтор при следующем сбросе: {}", key, e.getMessage());
+            } finally {
+                counter.lock.unlock();
+            }
+        }
+        return counter.known ? counter.value() : get(key, true);
+    }
+
+    /**
+     * Значение счётчика: strict — после сброса накопленного этим экземпляром,
+     * иначе без обращения к Redis, если счётчик уже читался
+     */
+    public long get(String key, boolean strict) {
+        while (true) {
+            PendingCounter counter = counters.get(key);
+            if (counter == null) {
+                return read(key);
+            }
+            if (!strict && counter.known && !counter.dead) {
+                return counter.value();
+            }
+            counter.lock.lock();
+            try {
+                if (counter.dead) {
+                    continue;
+                }
+                flush(key, counter);
+                counter.lastRead = read(key);
+                counter.known = true;
+                return counter.value();
+            } finally {
+                counter.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Удалить счётчик вместе с несброшенными изменениями; возвращает, был ли он в Redis.
+     * DEL идёт под блокировкой счётчика: начатый сброс завершается до него, а помеченный
+     * dead счётчик больше не сбрасывается — add и чтение дожидаются DEL и берут свежую запись
+     */
+    public boolean delete(String key) {
+        while (true) {
+            PendingCounter counter = counters.get(key);
+            if (counter == null) {
+                return deleteFromRedis(key);
+            }
+            counter.lock.lock();
+            try {
+                // Уже удалён параллельным delete: в карте может быть свежая запись
+                if (counter.dead) {
+                    continue;
+                }
+                counter.dead = true;
+                counter.pending.reset();
+                try {
+                    return deleteFromRedis(key);
+                } finally {
+                    // Из карты только после DEL, иначе свежая запись успеет сбросить изменения до него
+                    counters.remove(key, counter);
+                }
+            } finally {
+                counter.lock.unlock();
+            }
+        }
+    }
+
+    private boolean deleteFromRedis(String key) {
+        Long deleted = redisTemplate.delete(redisKeys(key));
+        return deleted != null && deleted > 0;
+    }
+
+    /**
+     * Сбросить все накопленные изменения одним pipeline. Счётчики, которые
+     * сейчас сбрасывает другой поток, пропускаются
+     */
+    @Scheduled(fixedDelayString = "${app.redis.counter-aggregation.flush-interval:100ms}")
+    public void flushAll() {
+        if (counters.isEmpty()) {
+            return;
+        }
+        List<String> keys = new ArrayList<>();
+        List<PendingCounter> taken = new ArrayList<>();
+        List<Long> deltas = new ArrayList<>();
+        try {
+            counters.forEach((key, counter) -> {
+                if (!counter.lock.tryLock()) {
+                    return;
+                }
+                if (counter.dead) {
+                    counter.lock.unlock();
+                    return;
+                }
+                long delta = counter.pending.sumThenReset();
+                counter.increments.reset();
+                if (delta == 0) {
+                    counter.lock.unlock();
+                    return;
+                }
+                keys.add(key);
+                taken.add(counter);
+                deltas.add(delta);
+            });
+            if (keys.isEmpty()) {
+                return;
+            }
+            List<String> redisKeys = keys.stream().map(this::shardKey).toList();
+            List<Object> results;
+            try {
+                results = incrementPipelined(redisKeys, deltas);
+            } catch (RuntimeException e) {
+                for (int i = 0; i < keys.size(); i++) {
+                    taken.get(i).pending.add(deltas.get(i));
+                }
+                logger.warn("Счётчики ({}) не сброшены в Redis, повтор при следующем сбросе: {}",
+                        keys.size(), e.getMessage());
+                return;
+            }
+            writes.increment(keys.size());
+            nearCache.invalidateAll(redisKeys);
+            for (int i = 0; i < keys.size(); i++) {
+                taken.get(i).flushed(deltas.get(i), (Long) results.get(i));
+            }
+        } finally {
+            taken.forEach(counter -> counter.lock.unlock());
+        }
+    }
+
+    // При остановке накопленное не теряется: Redis ещё доступен, бины Redis удаляются позже
+    @PreDestroy
+    public void close() {
+        flushAll();
+    }
+
+    // Вызывается под блокировкой счётчика; при ошибке изменения возвращаются в счётчик
+    private void flush(String key, PendingCounter counter) {
+        if (counter.dead) {
+            return;
+        }
+        long delta = counter.pending.sumThenReset();
+        counter.increments.reset();
+        if (delta == 0) {
+            return;
+        }
+        String redisKey = shardKey(key);
+        Long value;
+        try {
+            value = redisTemplate.opsForValue().increment(redisKey, delta);
+        } catch (RuntimeException e) {
+            counter.pending.add(delta);
+            throw e;
+        }
+        writes.increment();
+        nearCache.invalidate(redisKey);
+        counter.flushed(delta, value);
+    }
+
+    private List<Object> incrementPipelined(List<String> redisKeys, List<Long> deltas) {
+        RedisSerializer<String> serializer = redisTemplate.getStringSerializer();
+        return redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (int i = 0; i < redisKeys.size(); i++) {
+                connection.stringCommands().incrBy(serializer.serialize(redisKeys.get(i)), deltas.get(i));
+            }
+            return null;
+        });
+    }
+
+    // Сумма по всем ключам счётчика; MGET, чтобы шарды читались одним запросом
+    private long read(String key) {
+        List<String> values = redisTemplate.opsForValue().multiGet(redisKeys(key));
+        long sum = 0;
+        if (values != null) {
+            for (String value : values) {
+                if (value != null) {
+                    sum += Long.parseLong(value);
+                }
+            }
+        }
+        return sum;
+    }
+
+    private String shardKey(String key) {
+        return shards > 1 ? key + ":" + ThreadLocalRandom.current().nextInt(shards) : key;
+    }
+
+    private List<String> redisKeys(String key) {
+        if (shards <= 1) {
+            return List.of(key);
+        }
+        return IntStream.range(0, shards).mapToObj(shard -> key + ":" + shard).toList();
+    }
+
+    private class PendingCounter {
+        final LongAdder pending = new LongAdder();
+        // Инкременты с последнего сброса, для порога flush-threshold
+        final LongAdder increments = new LongAdder();
+        // Блокировка, а не synchronized: сброс ждёт Redis и не должен закреплять виртуальный поток
+        final ReentrantLock lock = new ReentrantLock();
+        volatile long lastRead;
+        volatile boolean known;
+        // Удалён через delete; выставляется под lock
+        volatile boolean dead;
+
+        long value() {
+            return lastRead + pending.sum();
+        }
+
+        // Без шардов INCRBY возвращает полное значение, с шардами — только значение шарда
+        void flushed(long delta, Long result) {
+            if (shards <= 1 && result != null) {
+                lastRead = result;
+                known = true;
+            } else if (known) {
+                lastRead += delta;
+            }
+        }
+    }
+}
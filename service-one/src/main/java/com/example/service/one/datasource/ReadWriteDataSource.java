@@ -0,0 +1,33 @@
+package com.example.service.one.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import java.io.Closeable;
+
+/**
+ * DataSource приложения: записи и обычные транзакции — на основной сервер,
+ * транзакции @Transactional(readOnly = true) — на реплики.
+ *
+ * Физическое соединение берётся при первом запросе, когда менеджер
+ * транзакций уже пометил его read-only, поэтому выбор пула происходит
+ * по флагу транзакции, а не по тому, кто первым попросил соединение.
+ */
+public class ReadWriteDataSource extends LazyConnectionDataSourceProxy implements Closeable {
+
+    private final HikariDataSource primary;
+    private final ReplicaRoutingDataSource replicas;
+
+    public ReadWriteDataSource(HikariDataSource primary, ReplicaRoutingDataSource replicas) {
+        super(primary);
+        setReadOnlyDataSource(replicas);
+        this.primary = primary;
+        this.replicas = replicas;
+    }
+
+    @Override
+    public void close() {
+        replicas.close();
+        primary.close();
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.service.one.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Соединения для read-only транзакций: по кругу из здоровых реплик.
+ *
+ * Отставание каждой реплики периодически проверяется запросом к ней самой;
+ * реплика, которая отстала больше max-lag или не отвечает, выводится из
+ * ротации до следующей успешной проверки. Если здоровых реплик нет или
+ * соединение получить не удалось, чтение идёт на основной сервер.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    // Реплика, проигравшая весь полученный WAL, не отстаёт, даже если последняя
+    // транзакция была давно (pg_last_xact_replay_timestamp при простое растёт)
+    private static final String LAG_QUERY = """
+            SELECT CASE
+                WHEN NOT pg_is_in_recovery() THEN 0
+                WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0)
+            END
+            """;
+
+    private final HikariDataSource primary;
+    private final List<Replica> replicas;
+    private final Duration maxLag;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Counter fallbacks;
+    private final ScheduledExecutorService lagChecker = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("replica-lag-check").daemon().factory());
+
+    public ReplicaRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicaPools,
+                                    Duration maxLag, Duration checkInterval, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replicas = replicaPools.stream().map(Replica::new).toList();
+        this.maxLag = maxLag;
+        this.fallbacks = Counter.builder("db.replica.fallback")
+                .description("Read-only соединения, выданные основным сервером вместо реплики")
+                .register(meterRegistry);
+        for (Replica replica : replicas) {
+            Gauge.builder("db.replica.lag", replica, r -> r.lagMillis)
+                    .description("Отставание реплики по последней проверке, мс; -1 — реплика не ответила")
+                    .baseUnit("milliseconds")
+                    .tag("pool", replica.pool.getPoolName())
+                    .register(meterRegistry);
+            Gauge.builder("db.replica.healthy", replica, r -> r.healthy ? 1 : 0)
+                    .description("1 — реплика в ротации чтения")
+                    .tag("pool", replica.pool.getPoolName())
+                    .register(meterRegistry);
+        }
+        if (!replicas.isEmpty()) {
+            lagChecker.scheduleWithFixedDelay(this::checkLag, 0, checkInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        int size = replicas.size();
+        int start = Math.floorMod(next.getAndIncrement(), Math.max(size, 1));
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (!replica.healthy) {
+                continue;
+            }
+            try {
+                return replica.pool.getConnection();
+            } catch (SQLException e) {
+                // Пул не выдал соединение за connection-timeout: до следующей проверки не используем
+                replica.markDown(e.getMessage());
+            }
+        }
+        if (size > 0) {
+            fallbacks.increment();
+        }
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        // Как и HikariDataSource: учётные данные задаются в настройках пулов
+        throw new SQLFeatureNotSupportedException("Учётные данные задаются в настройках пулов");
+    }
+
+    @Override
+    public void close() {
+        lagChecker.shutdownNow();
+        replicas.forEach(replica -> replica.pool.close());
+    }
+
+    private void checkLag() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.pool.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery(LAG_QUERY)) {
+                rs.next();
+                long lag = rs.getLong(1);
+                replica.lagMillis = lag;
+                if (lag > maxLag.toMillis()) {
+                    replica.markDown("отставание " + lag + " мс");
+                } else {
+                    replica.markUp();
+                }
+            } catch (SQLException | RuntimeException e) {
+                replica.lagMillis = -1;
+                replica.markDown(e.getMessage());
+            }
+        }
+    }
+
+    private static final class Replica {
+
+        private final HikariDataSource pool;
+        // До первой проверки реплика не используется
+        private volatile boolean healthy;
+        private volatile long lagMillis = -1;
+
+        Replica(HikariDataSource pool) {
+            this.pool = pool;
+        }
+
+        void markDown(String reason) {
+            if (healthy) {
+                logger.warn("⛔ Реплика {} выведена из чтения: {}", pool.getPoolName(), reason);
+            }
+            healthy = false;
+        }
+
+        void markUp() {
+            if (!healthy) {
+                logger.info("Реплика {} возвращена в чтение", pool.getPoolName());
+            }
+            healthy = true;
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.service.one.dto;
+
+import java.util.Map;
+
+/**
+ * Тело запроса пакетной записи в Redis.
+ *
+ * @param values     ключ -> значение
+ * @param ttlSeconds необязательный TTL в секундах для отдельных ключей
+ */
+public record BatchSetRequest(Map<String, String> values, Map<String, Long> ttlSeconds) {
+}
@@ -0,0 +1,16 @@
+package com.example.service.one.dto;
+
+import java.util.List;
+
+/**
+ * Итог пакетной отправки в Kafka.
+ *
+ * @param accepted     сколько сообщений принято в буфер продюсера
+ * @param sent         сколько из них подтвердил брокер
+ * @param failed       сколько отправить не удалось
+ * @param backpressure true, если приём остановлен из-за переполнения буфера —
+ *                     сообщения начиная с индекса accepted нужно прислать повторно
+ * @param errors       первые ошибки отправки
+ */
+public record BulkSendResult(int accepted, int sent, int failed, boolean backpressure, List<String> errors) {
+}
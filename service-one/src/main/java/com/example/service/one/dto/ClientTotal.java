@@ -0,0 +1,10 @@
+package com.example.service.one.dto;
+
+import java.math.BigDecimal;
+
+// Строка отчёта «топ клиентов по сумме заказов»
+public record ClientTotal(Integer clientId,
+                          String companyName,
+                          BigDecimal totalAmount,
+                          int orderCount) {
+}
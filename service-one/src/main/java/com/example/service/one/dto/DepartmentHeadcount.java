@@ -0,0 +1,7 @@
+package com.example.service.one.dto;
+
+// Строка отчёта «численность по отделам»
+public record DepartmentHeadcount(Integer departmentId,
+                                  String name,
+                                  int employeeCount) {
+}
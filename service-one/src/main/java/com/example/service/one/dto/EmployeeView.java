@@ -0,0 +1,18 @@
+package com.example.service.one.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public record EmployeeView(Integer employeeId,
+                           String firstName,
+                           String lastName,
+                           String email,
+                           LocalDate hireDate,
+                           BigDecimal salary,
+                           Boolean active,
+                           Integer departmentId,
+                           String departmentName,
+                           Integer positionId,
+                           String positionTitle,
+                           Integer managerId) {
+}
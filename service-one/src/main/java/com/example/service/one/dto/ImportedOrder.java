@@ -0,0 +1,24 @@
+package com.example.service.one.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Заказ из файла импорта вместе с позициями.
+ *
+ * @param totalAmount сумма заказа; если не указана — сумма quantity * unit_price позиций
+ */
+public record ImportedOrder(Integer clientId,
+                            LocalDate orderDate,
+                            LocalDate deliveryDate,
+                            BigDecimal totalAmount,
+                            String status,
+                            Integer salesPersonId,
+                            BigDecimal discountPercent,
+                            List<Item> items) {
+
+    // total_price не передаётся: колонка вычисляется в БД
+    public record Item(Integer productId, int quantity, BigDecimal unitPrice) {
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.service.one.dto;
+
+import java.util.List;
+
+/**
+ * Страница ключей, полученная одной командой SCAN.
+ *
+ * @param keys   ключи страницы (может быть пустой, даже если сканирование не закончено)
+ * @param cursor курсор для следующей страницы; null — сканирование завершено
+ */
+public record KeyPage(List<String> keys, String cursor) {
+}
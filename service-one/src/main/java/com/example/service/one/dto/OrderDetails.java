@@ -0,0 +1,6 @@
+package com.example.service.one.dto;
+
+import java.util.List;
+
+public record OrderDetails(OrderSummary order, List<OrderItemView> items) {
+}
@@ -0,0 +1,22 @@
+package com.example.service.one.dto;
+
+/**
+ * Ход и итог импорта заказов.
+ *
+ * @param jobId          id задачи импорта
+ * @param state          RUNNING, COMPLETED или FAILED
+ * @param ordersImported сколько заказов зафиксировано в БД
+ * @param itemsImported  сколько позиций зафиксировано в БД
+ * @param elapsedMs      время с начала импорта
+ * @param rowsPerSecond  скорость записи: заказы и позиции вместе
+ * @param error          причина остановки; заказы начиная с ordersImported + 1-го
+ *                       не записаны и их нужно прислать повторно
+ */
+public record OrderImportStatus(String jobId,
+                                String state,
+                                long ordersImported,
+                                long itemsImported,
+                                long elapsedMs,
+                                long rowsPerSecond,
+                                String error) {
+}
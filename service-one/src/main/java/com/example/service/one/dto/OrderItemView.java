@@ -0,0 +1,12 @@
+package com.example.service.one.dto;
+
+import java.math.BigDecimal;
+
+public record OrderItemView(Integer orderId,
+                            Integer itemId,
+                            Integer productId,
+                            String productName,
+                            Integer quantity,
+                            BigDecimal unitPrice,
+                            BigDecimal totalPrice) {
+}
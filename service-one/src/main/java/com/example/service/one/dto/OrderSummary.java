@@ -0,0 +1,15 @@
+package com.example.service.one.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Заказ без позиций: строка списка заказов
+public record OrderSummary(Integer orderId,
+                           LocalDate orderDate,
+                           LocalDate deliveryDate,
+                           String status,
+                           BigDecimal totalAmount,
+                           BigDecimal discountPercent,
+                           Integer clientId,
+                           String clientName) {
+}
@@ -0,0 +1,10 @@
+package com.example.service.one.dto;
+
+import java.math.BigDecimal;
+
+// Строка отчёта «самые продаваемые товары»
+public record ProductSales(Integer productId,
+                           String productName,
+                           long totalSold,
+                           BigDecimal revenue) {
+}
@@ -0,0 +1,16 @@
+package com.example.service.one.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+public record ProjectView(Integer projectId,
+                          String name,
+                          String status,
+                          BigDecimal budget,
+                          LocalDate startDate,
+                          LocalDate endDate,
+                          Integer clientId,
+                          String clientName,
+                          Integer managerId,
+                          Long taskCount) {
+}
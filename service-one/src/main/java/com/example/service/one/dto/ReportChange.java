@@ -0,0 +1,12 @@
+package com.example.service.one.dto;
+
+import java.util.List;
+
+/**
+ * Событие об изменении данных отчёта: какие ключи агрегата нужно пересчитать.
+ *
+ * @param aggregate client, product или department
+ * @param keys      id клиентов, товаров или отделов
+ */
+public record ReportChange(String aggregate, List<Integer> keys) {
+}
@@ -0,0 +1,13 @@
+package com.example.service.one.dto;
+
+import java.util.List;
+
+/**
+ * Страница keyset-пагинации: следующая страница начинается строго после
+ * последней строки текущей, без OFFSET.
+ *
+ * @param items      строки страницы
+ * @param nextCursor курсор следующей страницы; null — строк больше нет
+ */
+public record SeekPage<T>(List<T> items, String nextCursor) {
+}
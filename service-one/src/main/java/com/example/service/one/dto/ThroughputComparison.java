@@ -0,0 +1,18 @@
+package com.example.service.one.dto;
+
+/**
+ * Сравнение пропускной способности поштучных и пакетных операций Redis, операций в секунду.
+ *
+ * @param operations      сколько ключей записано и прочитано каждым способом
+ * @param singleSetOps    поштучные SET
+ * @param batchSetOps     MSET
+ * @param singleGetOps    поштучные GET
+ * @param batchGetOps     MGET
+ * @param singleIncrOps   поштучные INCRBY
+ * @param batchIncrOps    INCRBY в одном pipeline
+ */
+public record ThroughputComparison(int operations,
+                                   double singleSetOps, double batchSetOps,
+                                   double singleGetOps, double batchGetOps,
+                                   double singleIncrOps, double batchIncrOps) {
+}
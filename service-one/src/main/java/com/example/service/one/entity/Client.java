@@ -0,0 +1,50 @@
+package com.example.service.one.entity;
+
+import jakarta.persistence.Cacheable;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import java.time.LocalDate;
+
+@Entity
+@Table(name = "clients")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class Client {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "client_id")
+    private Integer id;
+
+    @Column(name = "company_name")
+    private String companyName;
+
+    @Column(name = "contact_person")
+    private String contactPerson;
+
+    private String email;
+
+    private String phone;
+
+    private String city;
+
+    private String country;
+
+    @Column(name = "registration_date")
+    private LocalDate registrationDate;
+
+    @Column(name = "client_type")
+    private String clientType;
+}
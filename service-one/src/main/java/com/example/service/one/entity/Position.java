@@ -0,0 +1,38 @@
+package com.example.service.one.entity;
+
+import jakarta.persistence.Cacheable;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
+import java.math.BigDecimal;
+
+@Entity
+@Table(name = "positions")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class Position {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "position_id")
+    private Integer id;
+
+    private String title;
+
+    @Column(name = "min_salary")
+    private BigDecimal minSalary;
+
+    @Column(name = "max_salary")
+    private BigDecimal maxSalary;
+}
@@ -0,0 +1,24 @@
+package com.example.service.one.kafka;
+
+/**
+ * Сообщение с явным типом. Формат записи (MessageEnvelopeSerializer):
+ * <pre>
+ * 0      magic 0xFF — в UTF-8 тексте такого байта нет, поэтому конверт
+ *        не спутать со строкой старого формата
+ * 1      версия формата
+ * 2      код MessageType
+ * 3..10  время создания, epoch ms
+ * 11..   тело в UTF-8
+ * </pre>
+ * Сжатие — на уровне пачек продюсера (app.kafka.producer.compression-type).
+ */
+public record MessageEnvelope(MessageType type, long createdAt, String body) {
+
+    public static final byte MAGIC = (byte) 0xFF;
+    public static final byte VERSION = 1;
+    public static final int HEADER_SIZE = 11;
+
+    public static MessageEnvelope of(MessageType type, String body) {
+        return new MessageEnvelope(type, System.currentTimeMillis(), body);
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.service.one.kafka;
+
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+public class MessageEnvelopeSerializer implements Serializer<MessageEnvelope> {
+
+    @Override
+    public byte[] serialize(String topic, MessageEnvelope envelope) {
+        if (envelope == null) {
+            return null;
+        }
+        byte[] body = envelope.body().getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(MessageEnvelope.HEADER_SIZE + body.length)
+                .put(MessageEnvelope.MAGIC)
+                .put(MessageEnvelope.VERSION)
+                .put(envelope.type().code())
+                .putLong(envelope.createdAt())
+                .put(body)
+                .array();
+    }
+}
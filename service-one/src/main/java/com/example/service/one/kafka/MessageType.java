@@ -0,0 +1,44 @@
+package com.example.service.one.kafka;
+
+/**
+ * Тип сообщения топика service-messages. В конверте передаётся одним байтом;
+ * коды не меняются и не переиспользуются — по ним разбирает сообщения service-two.
+ */
+public enum MessageType {
+
+    SIMPLE(0),
+    JSON(1),
+    ERROR(2),
+    TEST(3),
+    LARGE(4);
+
+    private final byte code;
+
+    MessageType(int code) {
+        this.code = (byte) code;
+    }
+
+    public byte code() {
+        return code;
+    }
+
+    /**
+     * Тип по содержимому — для отправителей, которые не указали его явно.
+     * Выполняется один раз при отправке, а не у каждого потребителя.
+     */
+    public static MessageType classify(String message) {
+        String lowerMessage = message.toLowerCase();
+
+        if (lowerMessage.contains("json") || lowerMessage.startsWith("{")) {
+            return JSON;
+        } else if (lowerMessage.contains("error") || lowerMessage.contains("ошибка")) {
+            return ERROR;
+        } else if (lowerMessage.contains("test") || lowerMessage.contains("тест")) {
+            return TEST;
+        } else if (lowerMessage.length() > 100) {
+            return LARGE;
+        } else {
+            return SIMPLE;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.service.one.listener;
+
+import com.example.service.one.dto.ReportChange;
+import com.example.service.one.service.ReportingOutboxPublisher;
+import com.example.service.one.service.ReportingService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Инкрементальное обновление отчётов по событиям из reporting-changes.
+ * Пересчёт идемпотентен, поэтому повторная доставка безопасна.
+ */
+@Component
+@RequiredArgsConstructor
+public class ReportingChangeListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportingChangeListener.class);
+
+    private final ReportingService reportingService;
+    private final ObjectMapper objectMapper;
+
+    @KafkaListener(topics = ReportingOutboxPublisher.TOPIC, groupId = "service-one-reporting")
+    public void onChange(ConsumerRecord<String, String> record) {
+        ReportChange change;
+        try {
+            change = objectMapper.readValue(record.value(), ReportChange.class);
+        } catch (JsonProcessingException e) {
+            // Повтор не поможет: пропускаем запись
+            logger.error("Некорректное событие отчёта {}-{}@{}: {}",
+                    record.topic(), record.partition(), record.offset(), e.getMessage());
+            return;
+        }
+        long start = System.nanoTime();
+        reportingService.refresh(change);
+        logger.debug("Отчёт {} обновлён для {} ключей за {} мс",
+                change.aggregate(), change.keys().size(), (System.nanoTime() - start) / 1_000_000);
+    }
+}
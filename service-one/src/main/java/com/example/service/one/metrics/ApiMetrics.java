@@ -0,0 +1,78 @@
+package com.example.service.one.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Метрики демонстрационного API (/metrics/*). Все метры регистрируются один раз
+ * при старте с фиксированным набором тегов, поэтому обработчик запроса только
+ * увеличивает счётчик или записывает время, без поиска в реестре.
+ */
+@Component
+public class ApiMetrics {
+
+    private static final String SERVICE = "service-one";
+
+    private final AtomicInteger activeConnections = new AtomicInteger();
+    private final Counter apiCalls;
+    private final Counter simulatedErrors;
+    private final Timer testTime;
+    private final Timer longOperation;
+    private final Timer selectQuery;
+
+    public ApiMetrics(MeterRegistry meterRegistry) {
+        this.apiCalls = Counter.builder("custom.api.calls")
+                .description("Количество вызовов кастомного API")
+                .tag("service", SERVICE)
+                .register(meterRegistry);
+        Gauge.builder("custom.active.connections", activeConnections, AtomicInteger::get)
+                .description("Количество активных подключений")
+                .tag("service", SERVICE)
+                .register(meterRegistry);
+        this.simulatedErrors = Counter.builder("custom.api.errors")
+                .description("Количество ошибок API")
+                .tag("service", SERVICE)
+                .tag("error.type", "simulated")
+                .register(meterRegistry);
+        this.testTime = Timer.builder("custom.api.test.time")
+                .description("Время выполнения тестового API")
+                .register(meterRegistry);
+        this.longOperation = Timer.builder("custom.operation.duration")
+                .description("Длительность выполнения операции")
+                .tag("operation", "long")
+                .register(meterRegistry);
+        this.selectQuery = Timer.builder("custom.database.query.time")
+                .description("Время выполнения запроса к БД")
+                .tag("query.type", "select")
+                .register(meterRegistry);
+    }
+
+    public Counter apiCalls() {
+        return apiCalls;
+    }
+
+    public Counter simulatedErrors() {
+        return simulatedErrors;
+    }
+
+    public Timer testTime() {
+        return testTime;
+    }
+
+    public Timer longOperation() {
+        return longOperation;
+    }
+
+    public Timer selectQuery() {
+        return selectQuery;
+    }
+
+    public void setActiveConnections(int value) {
+        activeConnections.set(value);
+    }
+}
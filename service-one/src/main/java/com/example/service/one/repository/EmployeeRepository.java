@@ -0,0 +1,26 @@
+package com.example.service.one.repository;
+
+import com.example.service.one.dto.EmployeeView;
+import com.example.service.one.entity.Employee;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+public interface EmployeeRepository extends JpaRepository<Employee, Integer> {
+
+    String VIEW = """
+            select new com.example.service.one.dto.EmployeeView(
+                e.id, e.firstName, e.lastName, e.email, e.hireDate, e.salary, e.active,
+                d.id, d.name, p.id, p.title, m.id)
+            from Employee e left join e.department d left join e.position p left join e.manager m
+            """;
+
+    @Query(VIEW + "where e.id > :afterId order by e.id")
+    List<EmployeeView> findPage(Integer afterId, Limit limit);
+
+    // Индекс idx_employees_department_id покрывает и фильтр, и порядок
+    @Query(VIEW + "where d.id = :departmentId and e.id > :afterId order by e.id")
+    List<EmployeeView> findPageByDepartment(Integer departmentId, Integer afterId, Limit limit);
+}
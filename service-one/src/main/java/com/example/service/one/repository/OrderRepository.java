@@ -0,0 +1,48 @@
+package com.example.service.one.repository;
+
+import com.example.service.one.dto.OrderItemView;
+import com.example.service.one.dto.OrderSummary;
+import com.example.service.one.entity.SalesOrder;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface OrderRepository extends JpaRepository<SalesOrder, Integer> {
+
+    // Keyset по (order_date, order_id) убыванию: страница читается по индексу idx_orders_date_id
+    // с позиции курсора, сколько бы строк ни было перед ней.
+    // orders секционирована по order_date: границы периода и курсора заданы простыми
+    // сравнениями order_date с параметрами, чтобы PostgreSQL отсекал лишние секции
+    @Query("""
+            select new com.example.service.one.dto.OrderSummary(
+                o.id, o.orderDate, o.deliveryDate, o.status, o.totalAmount, o.discountPercent, c.id, c.companyName)
+            from SalesOrder o left join o.client c
+            where o.orderDate >= :from and o.orderDate < :to and o.orderDate <= :afterDate
+              and (o.orderDate < :afterDate or (o.orderDate = :afterDate and o.id < :afterId))
+            order by o.orderDate desc, o.id desc
+            """)
+    List<OrderSummary> findPage(LocalDate from, LocalDate to, LocalDate afterDate, Integer afterId, Limit limit);
+
+    @Query("""
+            select new com.example.service.one.dto.OrderSummary(
+                o.id, o.orderDate, o.deliveryDate, o.status, o.totalAmount, o.discountPercent, c.id, c.companyName)
+            from SalesOrder o left join o.client c
+            where o.id = :orderId
+            """)
+    Optional<OrderSummary> findSummary(Integer orderId);
+
+    // Позиции сразу для всех заказов страницы одним запросом вместо запроса на каждый заказ
+    @Query("""
+            select new com.example.service.one.dto.OrderItemView(
+                i.order.id, i.id, p.id, p.name, i.quantity, i.unitPrice, i.totalPrice)
+            from OrderItem i join i.product p
+            where i.order.id in :orderIds
+            order by i.order.id, i.id
+            """)
+    List<OrderItemView> findItems(Collection<Integer> orderIds);
+}
@@ -0,0 +1,29 @@
+package com.example.service.one.repository;
+
+import com.example.service.one.dto.ProjectView;
+import com.example.service.one.entity.Project;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+public interface ProjectRepository extends JpaRepository<Project, Integer> {
+
+    String VIEW = """
+            select new com.example.service.one.dto.ProjectView(
+                p.id, p.name, p.status, p.budget, p.startDate, p.endDate, c.id, c.companyName, m.id,
+                (select count(t) from Task t where t.project = p))
+            from Project p left join p.client c left join p.manager m
+            """;
+
+    @Query(VIEW + "where p.id > :afterId order by p.id")
+    List<ProjectView> findPage(Integer afterId, Limit limit);
+
+    @Query(VIEW + "where p.status = :status and p.id > :afterId order by p.id")
+    List<ProjectView> findPageByStatus(String status, Integer afterId, Limit limit);
+
+    // Число задач проекта для карточки проекта (по индексу idx_tasks_project)
+    @Query("select count(t) from Task t where t.project.id = :projectId")
+    long countTasks(Integer projectId);
+}
@@ -0,0 +1,151 @@
+package com.example.service.one.service;
+
+import com.example.service.one.dto.BulkSendResult;
+import com.example.service.one.kafka.MessageEnvelope;
+import com.example.service.one.kafka.MessageType;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Отправка сообщений в Kafka с ограничением числа неподтверждённых сообщений.
+ * Когда лимит исчерпан, новые сообщения не принимаются (контроллер отвечает 429),
+ * вместо того чтобы блокировать потоки Tomcat в ожидании места в буфере продюсера.
+ *
+ * По умолчанию сообщения уходят в конверте с явным типом (MessageEnvelope);
+ * app.kafka.producer.message-format=string возвращает прежний строковый формат.
+ * У каждого сообщения есть идентификатор (заголовок message-id): по нему
+ * потребитель отбрасывает повторные доставки.
+ */
+@Service
+public class MessagePublisher {
+
+    public static final String TOPIC = "service-messages";
+    public static final String MESSAGE_ID_HEADER = "message-id";
+
+    private static final Logger kafkaEventsLogger = LoggerFactory.getLogger("KAFKA_EVENTS");
+    private static final int MAX_REPORTED_ERRORS = 10;
+
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final KafkaTemplate<String, MessageEnvelope> envelopeKafkaTemplate;
+    private final boolean envelope;
+    private final Semaphore inFlight;
+
+    public MessagePublisher(KafkaTemplate<String, String> kafkaTemplate,
+                            KafkaTemplate<String, MessageEnvelope> envelopeKafkaTemplate,
+                            @Value("${app.kafka.producer.message-format:envelope}") String messageFormat,
+                            @Value("${app.kafka.producer.max-in-flight-messages:10000}") int maxInFlight) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.envelopeKafkaTemplate = envelopeKafkaTemplate;
+        this.envelope = !"string".equalsIgnoreCase(messageFormat);
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    /**
+     * Резервирует место под одно сообщение. false — буфер заполнен.
+     */
+    public boolean tryReserve() {
+        return inFlight.tryAcquire();
+    }
+
+    public static String newMessageId() {
+        return UUID.randomUUID().toString();
+    }
+
+    /**
+     * Отправляет сообщение, место под которое уже зарезервировано через tryReserve.
+     * messageId задаёт отправитель и сохраняет при повторной отправке того же сообщения;
+     * type == null — тип определяется по содержимому.
+     */
+    public CompletableFuture<RecordMetadata> sendReserved(String messageId, String key, MessageType type, String message) {
+        CompletableFuture<RecordMetadata> future;
+        try {
+            if (envelope) {
+                MessageType messageType = type != null ? type : MessageType.classify(message);
+                future = envelopeKafkaTemplate.send(record(messageId, key, MessageEnvelope.of(messageType, message)))
+                        .thenApply(SendResult::getRecordMetadata);
+            } else {
+                future = kafkaTemplate.send(record(messageId, key, message)).thenApply(SendResult::getRecordMetadata);
+            }
+        } catch (RuntimeException e) {
+            // Буфер продюсера так и не освободился за max.block.ms
+            inFlight.release();
+            return CompletableFuture.failedFuture(e);
+        }
+        return future.whenComplete((result, ex) -> inFlight.release());
+    }
+
+    private static <V> ProducerRecord<String, V> record(String messageId, String key, V value) {
+        ProducerRecord<String, V> record = new ProducerRecord<>(TOPIC, key, value);
+        record.headers().add(MESSAGE_ID_HEADER, messageId.getBytes(StandardCharsets.UTF_8));
+        return record;
+    }
+
+    /**
+     * Пакетная отправка: сообщения передаются продюсеру по мере чтения,
+     * итог собирается из результатов всех отправок
+     */
+    public BulkSender bulk() {
+        return new BulkSender();
+    }
+
+    public class BulkSender {
+
+        private final List<CompletableFuture<RecordMetadata>> futures = new ArrayList<>();
+        private boolean backpressure;
+
+        /**
+         * Передаёт сообщение продюсеру. false — буфер заполнен, приём нужно остановить.
+         * messageId == null — идентификатор назначается здесь.
+         */
+        public boolean add(String messageId, String key, String message) {
+            if (backpressure || !tryReserve()) {
+                backpressure = true;
+                return false;
+            }
+            futures.add(sendReserved(messageId != null ? messageId : newMessageId(), key, null, message));
+            return true;
+        }
+
+        public boolean isBackpressure() {
+            return backpressure;
+        }
+
+        public CompletableFuture<BulkSendResult> result() {
+            AtomicInteger sent = new AtomicInteger();
+            List<String> errors = Collections.synchronizedList(new ArrayList<>());
+            CompletableFuture<?>[] tracked = futures.stream()
+                    .map(future -> future.handle((result, ex) -> {
+                        if (ex == null) {
+                            sent.incrementAndGet();
+                        } else if (errors.size() < MAX_REPORTED_ERRORS) {
+                            errors.add(ex.getMessage());
+                        }
+                        return null;
+                    }))
+                    .toArray(CompletableFuture[]::new);
+
+            return CompletableFuture.allOf(tracked).thenApply(done -> {
+                BulkSendResult result = new BulkSendResult(futures.size(), sent.get(),
+                        futures.size() - sent.get(), backpressure, List.copyOf(errors));
+                kafkaEventsLogger.info("Bulk send completed - Accepted: {}, Sent: {}, Failed: {}, Backpressure: {}",
+                        result.accepted(), result.sent(), result.failed(), result.backpressure());
+                return result;
+            });
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.example.service.one.service;
+
+import com.example.service.one.dto.ImportedOrder;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Потоковое чтение заказов для импорта: в памяти только текущий заказ.
+ *
+ * CSV — одна строка на позицию, первая строка — заголовок с именами колонок
+ * order_ref, client_id, order_date, delivery_date, total_amount, status,
+ * sales_person_id, discount_percent, product_id, quantity, unit_price.
+ * Подряд идущие строки с одним order_ref — позиции одного заказа.
+ *
+ * NDJSON — одна строка на заказ:
+ * {"clientId":1,"orderDate":"2024-01-10",...,"items":[{"productId":1,"quantity":1,"unitPrice":150000}]}
+ */
+public abstract class OrderImportReader implements Closeable {
+
+    protected final BufferedReader reader;
+    protected long lineNumber;
+
+    protected OrderImportReader(BufferedReader reader) {
+        this.reader = reader;
+    }
+
+    public static OrderImportReader csv(BufferedReader reader) throws IOException {
+        return new Csv(reader);
+    }
+
+    public static OrderImportReader ndjson(BufferedReader reader, ObjectMapper objectMapper) {
+        return new Ndjson(reader, objectMapper);
+    }
+
+    /**
+     * Следующий заказ или null, если данные закончились.
+     *
+     * @throws IllegalArgumentException строка не разбирается; в сообщении номер строки
+     */
+    public abstract ImportedOrder next() throws IOException;
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    protected IllegalArgumentException invalid(String message) {
+        return new IllegalArgumentException("Строка " + lineNumber + ": " + message);
+    }
+
+    // Сумма заказа по позициям, если в файле её нет
+    protected static BigDecimal totalOf(List<ImportedOrder.Item> items) {
+        return items.stream()
+                .map(item -> item.unitPrice().multiply(BigDecimal.valueOf(item.quantity())))
+                .reduce(BigDecimal.ZERO, BigDecimal::add);
+    }
+
+    private static final class Csv extends OrderImportReader {
+
+        private static final List<String> REQUIRED = List.of("order_ref", "product_id", "quantity", "unit_price");
+
+        private final Map<String, Integer> columns = new HashMap<>();
+        private String[] pending;
+
+        Csv(BufferedReader reader) throws IOException {
+            super(reader);
+            String header = readLine();
+            if (header == null) {
+                return;
+            }
+            String[] names = header.split(",", -1);
+            for (int i = 0; i < names.length; i++) {
+                columns.put(names[i].trim().toLowerCase(), i);
+            }
+            for (String name : REQUIRED) {
+                if (!columns.containsKey(name)) {
+                    throw invalid("в заголовке нет колонки " + name);
+                }
+            }
+            pending = nextFields();
+        }
+
+        @Override
+        public ImportedOrder next() throws IOException {
+            if (pending == null) {
+                return null;
+            }
+            // Поля заказа берутся из первой строки и разбираются до чтения следующих,
+            // чтобы номер строки в ошибке был точным
+            String[] fields = pending;
+            String ref = required(field(fields, "order_ref"), "order_ref");
+            Integer clientId = intField(fields, "client_id");
+            LocalDate orderDate = dateField(fields, "order_date");
+            LocalDate deliveryDate = dateField(fields, "delivery_date");
+            BigDecimal total = decimalField(fields, "total_amount");
+            String status = field(fields, "status");
+            Integer salesPersonId = intField(fields, "sales_person_id");
+            BigDecimal discount = decimalField(fields, "discount_percent");
+
+            List<ImportedOrder.Item> items = new ArrayList<>();
+            do {
+                items.add(new ImportedOrder.Item(intField(fields, "product_id"),
+                        required(intField(fields, "quantity"), "quantity"),
+                        required(decimalField(fields, "unit_price"), "unit_price")));
+                fields = nextFields();
+            } while (fields != null && ref.equals(field(fields, "order_ref")));
+            pending = fields;
+
+            return new ImportedOrder(clientId, orderDate, deliveryDate, total != null ? total : totalOf(items),
+                    status, salesPersonId, discount != null ? discount : BigDecimal.ZERO, List.copyOf(items));
+        }
+
+        private String readLine() throws IOException {
+            String line = reader.readLine();
+            lineNumber++;
+            return line;
+        }
+
+        private String[] nextFields() throws IOException {
+            String line;
+            do {
+                line = readLine();
+            } while (line != null && line.isBlank());
+            return line != null ? line.split(",", -1) : null;
+        }
+
+        private String field(String[] fields, String name) {
+            Integer index = columns.get(name);
+            if (index == null || index >= fields.length) {
+                return null;
+            }
+            String value = fields[index].trim();
+            return value.isEmpty() ? null : value;
+        }
+
+        private Integer intField(String[] fields, String name) {
+            String value = field(fields, name);
+            try {
+                return value != null ? Integer.valueOf(value) : null;
+            } catch (NumberFormatException e) {
+                throw invalid(name + " — не целое число: " + value);
+            }
+        }
+
+        private BigDecimal decimalField(String[] fields, String name) {
+            String value = field(fields, name);
+            try {
+                return value != null ? new BigDecimal(value) : null;
+            } catch (NumberFormatException e) {
+                throw invalid(name + " — не число: " + value);
+            }
+        }
+
+        private LocalDate dateField(String[] fields, String name) {
+            String value = field(fields, name);
+            try {
+                return value != null ? LocalDate.parse(value) : null;
+            } catch (RuntimeException e) {
+                throw invalid(name + " — не дата: " + value);
+            }
+        }
+
+        private <T> T required(T value, String name) {
+            if (value == null) {
+                throw invalid("не заполнено " + name);
+            }
+            return value;
+        }
+    }
+
+    private static final class Ndjson extends OrderImportReader {
+
+        private final ObjectMapper objectMapper;
+
+        Ndjson(BufferedReader reader, ObjectMapper objectMapper) {
+            super(reader);
+            this.objectMapper = objectMapper;
+        }
+
+        @Override
+        public ImportedOrder next() throws IOException {
+            String line;
+            do {
+                line = reader.readLine();
+                lineNumber++;
+            } while (line != null && line.isBlank());
+            if (line == null) {
+                return null;
+            }
+            ImportedOrder order;
+            try {
+                order = objectMapper.readValue(line, ImportedOrder.class);
+            } catch (JsonProcessingException e) {
+                throw invalid(e.getOriginalMessage());
+            }
+            if (order.items() == null || order.items().isEmpty()) {
+                throw invalid("у заказа нет позиций");
+            }
+            for (ImportedOrder.Item item : order.items()) {
+                if (item.unitPrice() == null) {
+                    throw invalid("не заполнено unitPrice");
+                }
+            }
+            return new ImportedOrder(order.clientId(), order.orderDate(), order.deliveryDate(),
+                    order.totalAmount() != null ? order.totalAmount() : totalOf(order.items()),
+                    order.status(), order.salesPersonId(),
+                    order.discountPercent() != null ? order.discountPercent() : BigDecimal.ZERO,
+                    order.items());
+        }
+    }
+}
@@ -0,0 +1,336 @@
+package com.example.service.one.service;
+
+import com.example.service.one.dto.ImportedOrder;
+import com.example.service.one.dto.OrderImportStatus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Массовый импорт заказов с позициями через COPY FROM STDIN.
+ *
+ * Вход читается потоково, в памяти — не больше одной порции (chunk-rows строк).
+ * Каждая порция пишется в своей транзакции: id заказов и позиций заранее
+ * берутся из последовательностей одним запросом, затем два COPY — orders и
+ * order_items. total_price не передаётся (вычисляемая колонка), внешние
+ * ключи и CHECK проверяет сама БД. При ошибке импорт останавливается,
+ * зафиксированные порции остаются, в статусе — сколько заказов записано.
+ */
+@Service
+public class OrderImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderImportService.class);
+
+    private static final String COPY_ORDERS = "COPY orders (order_id, client_id, order_date, delivery_date, "
+            + "total_amount, status, sales_person_id, discount_percent) FROM STDIN";
+    private static final String COPY_ITEMS = "COPY order_items (item_id, order_id, product_id, quantity, unit_price) "
+            + "FROM STDIN";
+    private static final String ENSURE_PARTITION = "SELECT partition_ensure_months('orders', ?, ?)";
+    private static final String NEXT_IDS = "SELECT nextval(pg_get_serial_sequence(?, ?)) FROM generate_series(1, ?)";
+
+    private final DataSource dataSource;
+    private final ObjectMapper objectMapper;
+    private final int chunkRows;
+    private final Path directory;
+    // Статусы завершённых импортов хранятся сутки
+    private final Cache<String, Job> jobs = Caffeine.newBuilder()
+            .expireAfterWrite(Duration.ofDays(1))
+            .maximumSize(1000)
+            .build();
+    // Ночные импорты из файлов выполняются по одному
+    private final ExecutorService fileImports = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("order-import").daemon().factory());
+
+    public OrderImportService(DataSource dataSource,
+                              ObjectMapper objectMapper,
+                              @Value("${app.order-import.chunk-rows:20000}") int chunkRows,
+                              @Value("${app.order-import.directory:import}") Path directory) {
+        this.dataSource = dataSource;
+        this.objectMapper = objectMapper;
+        this.chunkRows = chunkRows;
+        this.directory = directory.toAbsolutePath().normalize();
+    }
+
+    public enum Format {
+        CSV, NDJSON
+    }
+
+    /**
+     * Импорт из тела запроса в текущем потоке; ход виден через status(jobId)
+     */
+    public OrderImportStatus importStream(InputStream body, Format format) {
+        Job job = register();
+        run(job, () -> new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8)), format);
+        return job.status();
+    }
+
+    /**
+     * Импорт файла из app.order-import.directory в фоне
+     */
+    public OrderImportStatus importFile(String fileName, Format format) {
+        Path file = directory.resolve(fileName).normalize();
+        if (!file.startsWith(directory) || !Files.isRegularFile(file)) {
+            throw new IllegalArgumentException("Файл не найден в каталоге импорта: " + fileName);
+        }
+        Job job = register();
+        fileImports.execute(() -> run(job, () -> Files.newBufferedReader(file, StandardCharsets.UTF_8), format));
+        return job.status();
+    }
+
+    public Optional<OrderImportStatus> status(String jobId) {
+        return Optional.ofNullable(jobs.getIfPresent(jobId)).map(Job::status);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fileImports.shutdownNow();
+    }
+
+    private Job register() {
+        Job job = new Job(UUID.randomUUID().toString());
+        jobs.put(job.id, job);
+        return job;
+    }
+
+    private void run(Job job, ReaderSource source, Format format) {
+        try (BufferedReader in = source.open();
+             OrderImportReader reader = format == Format.CSV
+                     ? OrderImportReader.csv(in) : OrderImportReader.ndjson(in, objectMapper)) {
+            List<ImportedOrder> chunk = new ArrayList<>();
+            int rows = 0;
+            ImportedOrder order;
+            while ((order = reader.next()) != null) {
+                chunk.add(order);
+                rows += 1 + order.items().size();
+                if (rows >= chunkRows) {
+                    write(job, chunk);
+                    chunk.clear();
+                    rows = 0;
+                }
+            }
+            if (!chunk.isEmpty()) {
+                write(job, chunk);
+            }
+            job.finish(null);
+            logger.info("📦 Импорт {} завершён: {}", job.id, job.status());
+        } catch (IOException | SQLException | RuntimeException e) {
+            job.finish(e.getMessage());
+            logger.error("Импорт {} остановлен: {}", job.id, job.status());
+        }
+    }
+
+    // Одна порция — одна транзакция
+    private void write(Job job, List<ImportedOrder> chunk) throws SQLException {
+        int itemCount = chunk.stream().mapToInt(order -> order.items().size()).sum();
+        try (Connection connection = dataSource.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                ensurePartitions(connection, chunk);
+                long[] orderIds = nextIds(connection, "orders", "order_id", chunk.size());
+                long[] itemIds = nextIds(connection, "order_items", "item_id", itemCount);
+                CopyManager copy = connection.unwrap(PGConnection.class).getCopyAPI();
+
+                CopyRows orders = new CopyRows(copy.copyIn(COPY_ORDERS));
+                for (int i = 0; i < chunk.size(); i++) {
+                    ImportedOrder order = chunk.get(i);
+                    orders.row(orderIds[i], order.clientId(), orderDate(order),
+                            order.deliveryDate(), order.totalAmount(), order.status(),
+                            order.salesPersonId(), order.discountPercent());
+                }
+                orders.end();
+
+                CopyRows items = new CopyRows(copy.copyIn(COPY_ITEMS));
+                int next = 0;
+                for (int i = 0; i < chunk.size(); i++) {
+                    for (ImportedOrder.Item item : chunk.get(i).items()) {
+                        items.row(itemIds[next++], orderIds[i], item.productId(), item.quantity(), item.unitPrice());
+                    }
+                }
+                items.end();
+
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+        job.add(chunk.size(), itemCount);
+        logger.info("Импорт {}: {}", job.id, job.status());
+    }
+
+    // Колонка в COPY получает NULL, а не DEFAULT — дату по умолчанию ставим сами
+    private static LocalDate orderDate(ImportedOrder order) {
+        return order.orderDate() != null ? order.orderDate() : LocalDate.now();
+    }
+
+    // orders секционирована по месяцам order_date: секции для дат порции создаются
+    // заранее, иначе COPY упадёт на строке без подходящей секции
+    private static void ensurePartitions(Connection connection, List<ImportedOrder> chunk) throws SQLException {
+        Set<YearMonth> months = new TreeSet<>();
+        for (ImportedOrder order : chunk) {
+            months.add(YearMonth.from(orderDate(order)));
+        }
+        try (PreparedStatement statement = connection.prepareStatement(ENSURE_PARTITION)) {
+            for (YearMonth month : months) {
+                statement.setObject(1, month.atDay(1));
+                statement.setObject(2, month.atDay(1));
+                statement.executeQuery().close();
+            }
+        }
+    }
+
+    // Предвыделение ключей SERIAL: n значений последовательности за один запрос
+    private static long[] nextIds(Connection connection, String table, String column, int count) throws SQLException {
+        long[] ids = new long[count];
+        try (PreparedStatement statement = connection.prepareStatement(NEXT_IDS)) {
+            statement.setString(1, table);
+            statement.setString(2, column);
+            statement.setInt(3, count);
+            try (ResultSet rs = statement.executeQuery()) {
+                for (int i = 0; rs.next(); i++) {
+                    ids[i] = rs.getLong(1);
+                }
+            }
+        }
+        return ids;
+    }
+
+    @FunctionalInterface
+    private interface ReaderSource {
+        BufferedReader open() throws IOException;
+    }
+
+    // Строки в текстовом формате COPY: табуляция между полями, \N — NULL
+    private static final class CopyRows {
+
+        private static final int BUFFER_SIZE = 64 * 1024;
+
+        private final CopyIn copyIn;
+        private final StringBuilder buffer = new StringBuilder(BUFFER_SIZE);
+
+        CopyRows(CopyIn copyIn) {
+            this.copyIn = copyIn;
+        }
+
+        void row(Object... values) throws SQLException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    buffer.append('\t');
+                }
+                appendValue(values[i]);
+            }
+            buffer.append('\n');
+            if (buffer.length() >= BUFFER_SIZE) {
+                flush();
+            }
+        }
+
+        void end() throws SQLException {
+            try {
+                flush();
+                copyIn.endCopy();
+            } finally {
+                if (copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+            }
+        }
+
+        private void appendValue(Object value) {
+            if (value == null) {
+                buffer.append("\\N");
+                return;
+            }
+            String text = value instanceof BigDecimal decimal ? decimal.toPlainString() : value.toString();
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                switch (c) {
+                    case '\\' -> buffer.append("\\\\");
+                    case '\t' -> buffer.append("\\t");
+                    case '\n' -> buffer.append("\\n");
+                    case '\r' -> buffer.append("\\r");
+                    default -> buffer.append(c);
+                }
+            }
+        }
+
+        private void flush() throws SQLException {
+            if (buffer.isEmpty()) {
+                return;
+            }
+            byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+            copyIn.writeToCopy(bytes, 0, bytes.length);
+            buffer.setLength(0);
+        }
+    }
+
+    private static final class Job {
+
+        private final String id;
+        private final long startNanos = System.nanoTime();
+        private volatile long orders;
+        private volatile long items;
+        private volatile String state = "RUNNING";
+        private volatile String error;
+        private volatile long finishedNanos;
+
+        Job(String id) {
+            this.id = id;
+        }
+
+        // Пишет только поток импорта
+        void add(int chunkOrders, int chunkItems) {
+            orders += chunkOrders;
+            items += chunkItems;
+        }
+
+        void finish(String failure) {
+            finishedNanos = System.nanoTime();
+            error = failure;
+            state = failure == null ? "COMPLETED" : "FAILED";
+        }
+
+        OrderImportStatus status() {
+            long end = finishedNanos != 0 ? finishedNanos : System.nanoTime();
+            long elapsedMs = Math.max(1, (end - startNanos) / 1_000_000);
+            long rowsPerSecond = (orders + items) * 1000 / elapsedMs;
+            return new OrderImportStatus(id, state, orders, items, elapsedMs, rowsPerSecond, error);
+        }
+    }
+}
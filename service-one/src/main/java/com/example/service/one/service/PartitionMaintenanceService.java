@@ -0,0 +1,108 @@
+package com.example.service.one.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Обслуживание месячных секций orders и salary_history.
+ *
+ * Заранее создаёт секции на premake-months вперёд, чтобы вставка никогда не
+ * упиралась в отсутствующую секцию, и отсоединяет секции старше
+ * retention-months, перенося их в схему archive. DETACH ... CONCURRENTLY
+ * не блокирует чтение и запись в таблицу, поэтому выполняется вне транзакции.
+ */
+@Service
+public class PartitionMaintenanceService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PartitionMaintenanceService.class);
+
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private final JdbcClient jdbcClient;
+    private final int premakeMonths;
+    // 0 — секции не отсоединяются
+    private final Map<String, Integer> retentionMonths;
+
+    public PartitionMaintenanceService(JdbcClient jdbcClient,
+                                       @Value("${app.partitions.premake-months:3}") int premakeMonths,
+                                       @Value("${app.partitions.retention-months.orders:0}") int ordersRetention,
+                                       @Value("${app.partitions.retention-months.salary-history:0}") int salaryHistoryRetention) {
+        this.jdbcClient = jdbcClient;
+        this.premakeMonths = premakeMonths;
+        this.retentionMonths = Map.of("orders", ordersRetention, "salary_history", salaryHistoryRetention);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        maintain();
+    }
+
+    @Scheduled(cron = "${app.partitions.maintenance-cron:0 15 3 * * *}")
+    public void maintain() {
+        retentionMonths.forEach((table, retention) -> {
+            try {
+                premake(table);
+                if (retention > 0) {
+                    archive(table, YearMonth.now().minusMonths(retention));
+                }
+            } catch (RuntimeException e) {
+                logger.error("Обслуживание секций {} не выполнено: {}", table, e.getMessage());
+            }
+        });
+    }
+
+    private void premake(String table) {
+        LocalDate today = LocalDate.now();
+        Integer created = jdbcClient.sql("SELECT partition_ensure_months(:table, :from, :to)")
+                .param("table", table)
+                .param("from", today.withDayOfMonth(1))
+                .param("to", today.plusMonths(premakeMonths))
+                .query(Integer.class)
+                .single();
+        if (created != null && created > 0) {
+            logger.info("Созданы секции {}: {}", table, created);
+        }
+    }
+
+    // Отсоединяются только секции самой таблицы: до переключения (V4) её строки
+    // ещё не в секциях, и архивировать нечего
+    private void archive(String table, YearMonth keepFrom) {
+        List<String> partitions = jdbcClient.sql("""
+                        SELECT c.relname
+                        FROM pg_inherits i
+                        JOIN pg_class c ON c.oid = i.inhrelid
+                        JOIN pg_class p ON p.oid = i.inhparent
+                        JOIN pg_namespace n ON n.oid = p.relnamespace
+                        WHERE p.relname = :table AND n.nspname = current_schema() AND p.relkind = 'p'
+                        ORDER BY c.relname
+                        """)
+                .param("table", table)
+                .query(String.class)
+                .list();
+        String oldest = table + "_" + keepFrom.format(SUFFIX);
+        for (String partition : partitions) {
+            if (!partition.matches(table + "_\\d{4}_\\d{2}")) {
+                continue;
+            }
+            // Имя base_ГГГГ_ММ: лексикографический порядок совпадает с хронологическим
+            if (partition.compareTo(oldest) >= 0) {
+                break;
+            }
+            jdbcClient.sql("ALTER TABLE " + table + " DETACH PARTITION " + partition + " CONCURRENTLY").update();
+            jdbcClient.sql("ALTER TABLE " + partition + " SET SCHEMA archive").update();
+            logger.info("📦 Секция {} отсоединена и перенесена в archive", partition);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.service.one.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Перенос существующих строк orders и salary_history в секционированные
+ * таблицы (миграция V4) и переключение на них.
+ *
+ * Каждый запуск копирует одну порцию ключей на таблицу в своей транзакции,
+ * поэтому перенос идёт параллельно с обычной работой и переживает перезапуск.
+ * Новые и изменённые строки в это время зеркалируют триггеры.
+ */
+@Service
+public class PartitionMigrationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PartitionMigrationService.class);
+
+    private static final List<String> TABLES = List.of("orders", "salary_history");
+
+    private final JdbcClient jdbcClient;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final boolean autoCutover;
+    private final Duration cutoverLockTimeout;
+    // Таблицы, перенос которых завершён: больше в БД за ними не ходим
+    private final Set<String> finished = ConcurrentHashMap.newKeySet();
+
+    public PartitionMigrationService(JdbcClient jdbcClient,
+                                     PlatformTransactionManager transactionManager,
+                                     @Value("${app.partitions.migration.chunk-size:10000}") int chunkSize,
+                                     @Value("${app.partitions.migration.auto-cutover:true}") boolean autoCutover,
+                                     @Value("${app.partitions.migration.cutover-lock-timeout:5s}") Duration cutoverLockTimeout) {
+        this.jdbcClient = jdbcClient;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.autoCutover = autoCutover;
+        this.cutoverLockTimeout = cutoverLockTimeout;
+    }
+
+    @Scheduled(fixedDelayString = "${app.partitions.migration.interval:200ms}")
+    public void migrate() {
+        for (String table : TABLES) {
+            if (finished.contains(table)) {
+                continue;
+            }
+            try {
+                migrate(table);
+            } catch (RuntimeException e) {
+                logger.warn("Перенос {} в секции не выполнен: {}", table, e.getMessage());
+            }
+        }
+    }
+
+    private void migrate(String table) {
+        Integer copied = transactionTemplate.execute(status -> jdbcClient
+                .sql("SELECT partition_migrate_chunk(:table, :chunkSize)")
+                .param("table", table)
+                .param("chunkSize", chunkSize)
+                .query(Integer.class)
+                .single());
+        if (copied != null && copied >= 0) {
+            logger.debug("Перенос {}: скопировано {} строк", table, copied);
+            return;
+        }
+        String state = jdbcClient.sql("SELECT state FROM partition_migration WHERE table_name = :table")
+                .param("table", table)
+                .query(String.class)
+                .optional()
+                .orElse("done");
+        if ("done".equals(state)) {
+            finished.add(table);
+        } else if (autoCutover) {
+            cutover(table);
+        }
+    }
+
+    // Ждём эксклюзивную блокировку не дольше lock-timeout, чтобы не задерживать
+    // за собой все запросы к таблице; при неудаче повторим на следующем запуске
+    private void cutover(String table) {
+        Boolean switched = transactionTemplate.execute(status -> {
+            jdbcClient.sql("SET LOCAL lock_timeout = '" + cutoverLockTimeout.toMillis() + "ms'").update();
+            return jdbcClient.sql("SELECT partition_cutover(:table)")
+                    .param("table", table)
+                    .query(Boolean.class)
+                    .single();
+        });
+        if (Boolean.TRUE.equals(switched)) {
+            finished.add(table);
+            logger.info("✅ Таблица {} переключена на секционированную, старая — {}_legacy", table, table);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.service.one.service;
+
+import com.example.service.one.cache.NearCache;
+import com.example.service.one.counter.CounterAggregator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+
+// Неблокирующие аналоги операций RedisService: поток Tomcat не ждёт ответа Redis
+@Service
+@RequiredArgsConstructor
+public class ReactiveRedisService {
+
+    private final ReactiveStringRedisTemplate reactiveRedisTemplate;
+    private final NearCache nearCache;
+    private final CounterAggregator counterAggregator;
+
+    // Добавить значение
+    public Mono<Boolean> setValue(String key, String value) {
+        return Mono.fromRunnable(() -> counterAggregator.requireNotAggregated(key))
+                .then(reactiveRedisTemplate.opsForValue().set(key, value))
+                .doOnSuccess(result -> nearCache.invalidate(key));
+    }
+
+    // Добавить значение с TTL
+    public Mono<Boolean> setValue(String key, String value, Duration timeout) {
+        return Mono.fromRunnable(() -> counterAggregator.requireNotAggregated(key))
+                .then(reactiveRedisTemplate.opsForValue().set(key, value, timeout))
+                .doOnSuccess(result -> nearCache.invalidate(key));
+    }
+
+    // Получить значение
+    public Mono<String> getValue(String key) {
+        return reactiveRedisTemplate.opsForValue().get(key);
+    }
+
+    // Удалить ключ (агрегируемый счётчик — вместе с несброшенными изменениями и шардами)
+    public Mono<Boolean> deleteKey(String key) {
+        if (counterAggregator.isAggregated(key)) {
+            return blocking(() -> counterAggregator.delete(key))
+                    .doOnSuccess(result -> nearCache.invalidate(key));
+        }
+        return reactiveRedisTemplate.delete(key)
+                .map(deleted -> deleted > 0)
+                .doOnSuccess(result -> nearCache.invalidate(key));
+    }
+
+    // Проверить существование ключа
+    public Mono<Boolean> hasKey(String key) {
+        return reactiveRedisTemplate.hasKey(key);
+    }
+
+    // Все ключи по паттерну через SCAN
+    public Flux<String> scanKeys(String pattern, int count) {
+        return reactiveRedisTemplate.scan(ScanOptions.scanOptions().match(pattern).count(count).build());
+    }
+
+    // Установить время жизни для ключа
+    public Mono<Boolean> expire(String key, Duration timeout) {
+        return Mono.fromRunnable(() -> counterAggregator.requireNotAggregated(key))
+                .then(reactiveRedisTemplate.expire(key, timeout))
+                .doOnSuccess(result -> nearCache.invalidate(key));
+    }
+
+    // Получить время жизни ключа
+    public Mono<Duration> getExpire(String key) {
+        return reactiveRedisTemplate.getExpire(key);
+    }
+
+    // Инкремент на определенное значение; агрегируемые счётчики — через CounterAggregator
+    public Mono<Long> increment(String key, long delta) {
+        if (counterAggregator.isAggregated(key)) {
+            return blocking(() -> counterAggregator.add(key, delta));
+        }
+        return reactiveRedisTemplate.opsForValue().increment(key, delta)
+                .doOnSuccess(result -> nearCache.invalidate(key));
+    }
+
+    // Декремент на определенное значение
+    public Mono<Long> decrement(String key, long delta) {
+        if (counterAggregator.isAggregated(key)) {
+            return blocking(() -> counterAggregator.add(key, -delta));
+        }
+        return reactiveRedisTemplate.opsForValue().decrement(key, delta)
+                .doOnSuccess(result -> nearCache.invalidate(key));
+    }
+
+    // CounterAggregator обращается к Redis синхронно (сброс по порогу, первое чтение),
+    // поэтому вызывается на boundedElastic, а не в потоке Lettuce или запроса
+    private static <T> Mono<T> blocking(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(Schedulers.boundedElastic());
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.service.one.service;
+
+import com.example.service.one.dto.EmployeeView;
+import com.example.service.one.dto.OrderDetails;
+import com.example.service.one.dto.OrderItemView;
+import com.example.service.one.dto.OrderSummary;
+import com.example.service.one.dto.ProjectView;
+import com.example.service.one.dto.SeekPage;
+import com.example.service.one.entity.Employee;
+import com.example.service.one.entity.Project;
+import com.example.service.one.repository.EmployeeRepository;
+import com.example.service.one.repository.OrderRepository;
+import com.example.service.one.repository.ProjectRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Чтение заказов, сотрудников и проектов.
+ *
+ * Списки — keyset-пагинация и DTO-проекции одним запросом на страницу,
+ * позиции заказов догружаются одним запросом на всю страницу. Карточки по id
+ * читаются через сущности из кеша второго уровня Hibernate.
+ */
+@Service
+@Transactional(readOnly = true)
+public class ReadApiService {
+
+    private static final LocalDate MIN_DATE = LocalDate.EPOCH;
+    private static final LocalDate MAX_DATE = LocalDate.of(9999, 12, 31);
+
+    private final OrderRepository orderRepository;
+    private final EmployeeRepository employeeRepository;
+    private final ProjectRepository projectRepository;
+    private final int maxPageSize;
+
+    public ReadApiService(OrderRepository orderRepository,
+                          EmployeeRepository employeeRepository,
+                          ProjectRepository projectRepository,
+                          @Value("${app.read-api.max-page-size:500}") int maxPageSize) {
+        this.orderRepository = orderRepository;
+        this.employeeRepository = employeeRepository;
+        this.projectRepository = projectRepository;
+        this.maxPageSize = maxPageSize;
+    }
+
+    // Курсор заказов — "дата_id" последней строки предыдущей страницы
+    public SeekPage<OrderSummary> orders(LocalDate from, LocalDate to, String cursor, int limit) {
+        LocalDate upper = to != null ? to : MAX_DATE;
+        LocalDate afterDate = upper;
+        int afterId = Integer.MAX_VALUE;
+        if (cursor != null && !cursor.isBlank()) {
+            int separator = cursor.indexOf('_');
+            try {
+                afterDate = LocalDate.parse(cursor.substring(0, separator));
+                afterId = Integer.parseInt(cursor.substring(separator + 1));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Некорректный курсор: " + cursor);
+            }
+        }
+        int size = pageSize(limit);
+        List<OrderSummary> rows = orderRepository.findPage(from != null ? from : MIN_DATE, upper,
+                afterDate, afterId, Limit.of(size + 1));
+        return page(rows, size, last -> last.orderDate() + "_" + last.orderId());
+    }
+
+    // Страница заказов с позициями: позиции всех заказов страницы — одним запросом
+    public SeekPage<OrderDetails> ordersWithItems(LocalDate from, LocalDate to, String cursor, int limit) {
+        SeekPage<OrderSummary> orders = orders(from, to, cursor, limit);
+        if (orders.items().isEmpty()) {
+            return new SeekPage<>(List.of(), null);
+        }
+        Map<Integer, List<OrderItemView>> items = orderRepository
+                .findItems(orders.items().stream().map(OrderSummary::orderId).toList()).stream()
+                .collect(Collectors.groupingBy(OrderItemView::orderId, LinkedHashMap::new, Collectors.toList()));
+        List<OrderDetails> details = orders.items().stream()
+                .map(order -> new OrderDetails(order, items.getOrDefault(order.orderId(), List.of())))
+                .toList();
+        return new SeekPage<>(details, orders.nextCursor());
+    }
+
+    public Optional<OrderDetails> order(Integer orderId) {
+        return orderRepository.findSummary(orderId)
+                .map(summary -> new OrderDetails(summary, orderRepository.findItems(List.of(orderId))));
+    }
+
+    public SeekPage<EmployeeView> employees(Integer departmentId, String cursor, int limit) {
+        int size = pageSize(limit);
+        int afterId = intCursor(cursor);
+        List<EmployeeView> rows = departmentId != null
+                ? employeeRepository.findPageByDepartment(departmentId, afterId, Limit.of(size + 1))
+                : employeeRepository.findPage(afterId, Limit.of(size + 1));
+        return page(rows, size, last -> String.valueOf(last.employeeId()));
+    }
+
+    // Сотрудник, отдел и должность берутся из кеша второго уровня
+    public Optional<EmployeeView> employee(Integer employeeId) {
+        return employeeRepository.findById(employeeId).map(ReadApiService::toView);
+    }
+
+    public SeekPage<ProjectView> projects(String status, String cursor, int limit) {
+        int size = pageSize(limit);
+        int afterId = intCursor(cursor);
+        List<ProjectView> rows = status != null
+                ? projectRepository.findPageByStatus(status, afterId, Limit.of(size + 1))
+                : projectRepository.findPage(afterId, Limit.of(size + 1));
+        return page(rows, size, last -> String.valueOf(last.projectId()));
+    }
+
+    public Optional<ProjectView> project(Integer projectId) {
+        return projectRepository.findById(projectId)
+                .map(project -> toView(project, projectRepository.countTasks(projectId)));
+    }
+
+    private int pageSize(int limit) {
+        return Math.max(1, Math.min(limit, maxPageSize));
+    }
+
+    private static int intCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0;
+        }
+        try {
+            return Integer.parseInt(cursor);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Некорректный курсор: " + cursor);
+        }
+    }
+
+    // Запрашиваем на одну строку больше: по ней видно, есть ли следующая страница
+    private static <T> SeekPage<T> page(List<T> rows, int size, Function<T, String> cursorOf) {
+        if (rows.size() <= size) {
+            return new SeekPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, size);
+        return new SeekPage<>(List.copyOf(items), cursorOf.apply(items.get(size - 1)));
+    }
+
+    private static EmployeeView toView(Employee employee) {
+        // id у lazy-ссылки берётся из самой ссылки, без загрузки руководителя
+        Integer managerId = employee.getManager() != null ? employee.getManager().getId() : null;
+        return new EmployeeView(employee.getId(), employee.getFirstName(), employee.getLastName(),
+                employee.getEmail(), employee.getHireDate(), employee.getSalary(), employee.getActive(),
+                employee.getDepartment() != null ? employee.getDepartment().getId() : null,
+                employee.getDepartment() != null ? employee.getDepartment().getName() : null,
+                employee.getPosition() != null ? employee.getPosition().getId() : null,
+                employee.getPosition() != null ? employee.getPosition().getTitle() : null,
+                managerId);
+    }
+
+    private static ProjectView toView(Project project, long taskCount) {
+        return new ProjectView(project.getId(), project.getName(), project.getStatus(), project.getBudget(),
+                project.getStartDate(), project.getEndDate(),
+                project.getClient() != null ? project.getClient().getId() : null,
+                project.getClient() != null ? project.getClient().getCompanyName() : null,
+                project.getManager() != null ? project.getManager().getId() : null,
+                taskCount);
+    }
+}
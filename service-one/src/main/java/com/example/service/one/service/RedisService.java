@@ -1,51 +1,112 @@
 package com.example.service.one.service;
 
+import com.example.service.one.cache.NearCache;
+import com.example.service.one.counter.CounterAggregator;
+import com.example.service.one.dto.KeyPage;
+import io.lettuce.core.KeyScanCursor;
+import io.lettuce.core.ScanArgs;
+import io.lettuce.core.ScanCursor;
+import io.lettuce.core.api.async.RedisKeyAsyncCommands;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisCallback;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.stereotype.Service;
 
 import java.time.Duration;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
 
 @Service
 @RequiredArgsConstructor
 public class RedisService {
 
     private final RedisTemplate<String, String> redisTemplate;
+    private final NearCache nearCache;
+    private final CounterAggregator counterAggregator;
 
     // Добавить значение
     public void setValue(String key, String value) {
+        counterAggregator.requireNotAggregated(key);
         redisTemplate.opsForValue().set(key, value);
+        nearCache.invalidate(key);
     }
 
     // Добавить значение с TTL (время жизни)
     public void setValue(String key, String value, Duration timeout) {
+        counterAggregator.requireNotAggregated(key);
         redisTemplate.opsForValue().set(key, value, timeout);
+        nearCache.invalidate(key);
     }
 
-    // Получить значение
+    // Получить значение (через near-cache, если он включён)
     public String getValue(String key) {
+        if (nearCache.isEnabled()) {
+            return nearCache.get(key).value();
+        }
         return redisTemplate.opsForValue().get(key);
     }
 
-    // Удалить ключ
+    // Удалить ключ (агрегируемый счётчик — вместе с несброшенными изменениями и шардами)
     public boolean deleteKey(String key) {
-        return redisTemplate.delete(key);
+        boolean deleted = counterAggregator.isAggregated(key)
+                ? counterAggregator.delete(key)
+                : redisTemplate.delete(key);
+        nearCache.invalidate(key);
+        return deleted;
     }
 
-    // Проверить существование ключа
+    // Проверить существование ключа. Всегда EXISTS, а не near-cache: тот читает GET,
+    // который для хешей, списков и множеств отвечает WRONGTYPE
     public boolean hasKey(String key) {
         return redisTemplate.hasKey(key);
     }
 
-    // Получить все ключи по паттерну
-    public Set<String> getKeys(String pattern) {
-        return redisTemplate.keys(pattern);
+    // Одна страница ключей по паттерну: одна команда SCAN с подсказкой COUNT.
+    // В отличие от KEYS не блокирует Redis и не собирает всё пространство ключей в памяти
+    public KeyPage scanKeys(String pattern, String cursor, int count) {
+        return redisTemplate.execute((RedisCallback<KeyPage>) connection -> {
+            @SuppressWarnings("unchecked")
+            RedisKeyAsyncCommands<byte[], byte[]> commands =
+                    (RedisKeyAsyncCommands<byte[], byte[]>) connection.getNativeConnection();
+            RedisSerializer<String> serializer = redisTemplate.getStringSerializer();
+            ScanArgs args = ScanArgs.Builder.matches(pattern).limit(count);
+            try {
+                KeyScanCursor<byte[]> page = commands.scan(ScanCursor.of(cursor), args).get();
+                List<String> keys = page.getKeys().stream().map(serializer::deserialize).toList();
+                return new KeyPage(keys, page.isFinished() ? null : page.getCursor());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("SCAN interrupted", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("SCAN failed: " + e.getCause().getMessage(), e.getCause());
+            }
+        });
+    }
+
+    // Обойти все ключи по паттерну, передавая их по одному: в памяти только текущая порция SCAN
+    public void scanKeys(String pattern, int count, Consumer<String> action) {
+        ScanOptions options = ScanOptions.scanOptions().match(pattern).count(count).build();
+        try (Cursor<String> cursor = redisTemplate.scan(options)) {
+            cursor.forEachRemaining(action);
+        }
     }
 
     // Установить время жизни для ключа
     public boolean expire(String key, Duration timeout) {
-        return Boolean.TRUE.equals(redisTemplate.expire(key, timeout));
+        counterAggregator.requireNotAggregated(key);
+        boolean result = Boolean.TRUE.equals(redisTemplate.expire(key, timeout));
+        nearCache.invalidate(key);
+        return result;
     }
 
     // Получить время жизни ключа
@@ -53,23 +114,139 @@ public class RedisService {
         return redisTemplate.getExpire(key);
     }
 
-    // Инкремент значения (для числовых значений)
+    // Инкремент значения (для числовых значений).
+    // Агрегируемые счётчики копятся локально и возвращают приблизительное значение (см. CounterAggregator)
     public Long increment(String key) {
-        return redisTemplate.opsForValue().increment(key);
+        if (counterAggregator.isAggregated(key)) {
+            return counterAggregator.add(key, 1);
+        }
+        Long result = redisTemplate.opsForValue().increment(key);
+        nearCache.invalidate(key);
+        return result;
     }
 
     // Инкремент на определенное значение
     public Long increment(String key, long delta) {
-        return redisTemplate.opsForValue().increment(key, delta);
+        if (counterAggregator.isAggregated(key)) {
+            return counterAggregator.add(key, delta);
+        }
+        Long result = redisTemplate.opsForValue().increment(key, delta);
+        nearCache.invalidate(key);
+        return result;
     }
 
     // Декремент значения
     public Long decrement(String key) {
-        return redisTemplate.opsForValue().decrement(key);
+        if (counterAggregator.isAggregated(key)) {
+            return counterAggregator.add(key, -1);
+        }
+        Long result = redisTemplate.opsForValue().decrement(key);
+        nearCache.invalidate(key);
+        return result;
     }
 
     // Декремент на определенное значение
     public Long decrement(String key, long delta) {
-        return redisTemplate.opsForValue().decrement(key, delta);
+        if (counterAggregator.isAggregated(key)) {
+            return counterAggregator.add(key, -delta);
+        }
+        Long result = redisTemplate.opsForValue().decrement(key, delta);
+        nearCache.invalidate(key);
+        return result;
+    }
+
+    // Значение счётчика: strict — со сбросом накопленного этим экземпляром, иначе приблизительное
+    // без обращения к Redis. Ключи вне агрегации читаются обычным GET
+    public long getCounter(String key, boolean strict) {
+        if (counterAggregator.isAggregated(key)) {
+            return counterAggregator.get(key, strict);
+        }
+        String value = redisTemplate.opsForValue().get(key);
+        return value != null ? Long.parseLong(value) : 0L;
+    }
+
+    // =========================================================================
+    // Пакетные операции: один запрос к Redis (MGET/DEL) или один pipeline
+    // =========================================================================
+
+    // Получить значения нескольких ключей одной командой MGET
+    public Map<String, String> multiGet(List<String> keys) {
+        List<String> values = redisTemplate.opsForValue().multiGet(keys);
+        Map<String, String> result = new LinkedHashMap<>();
+        for (int i = 0; i < keys.size(); i++) {
+            result.put(keys.get(i), values != null ? values.get(i) : null);
+        }
+        return result;
+    }
+
+    // Установить несколько значений; ключи с TTL (в секундах) пишутся через SET EX в том же pipeline
+    public void multiSet(Map<String, String> values, Map<String, Long> ttlSeconds) {
+        values.keySet().forEach(counterAggregator::requireNotAggregated);
+        if (ttlSeconds == null || ttlSeconds.isEmpty()) {
+            redisTemplate.opsForValue().multiSet(values);
+            nearCache.invalidateAll(values.keySet());
+            return;
+        }
+        RedisSerializer<String> serializer = redisTemplate.getStringSerializer();
+        redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            values.forEach((key, value) -> {
+                Long ttl = ttlSeconds.get(key);
+                Expiration expiration = ttl != null ? Expiration.seconds(ttl) : Expiration.persistent();
+                connection.stringCommands().set(serializer.serialize(key), serializer.serialize(value),
+                        expiration, RedisStringCommands.SetOption.upsert());
+            });
+            return null;
+        });
+        nearCache.invalidateAll(values.keySet());
+    }
+
+    // Инкремент нескольких ключей в одном pipeline; возвращает новые значения.
+    // Агрегируемые счётчики идут через CounterAggregator, как и одиночный инкремент
+    public Map<String, Long> multiIncrement(Map<String, Long> deltas) {
+        List<String> keys = new ArrayList<>();
+        Map<String, Long> result = new LinkedHashMap<>();
+        deltas.forEach((key, delta) -> {
+            if (counterAggregator.isAggregated(key)) {
+                result.put(key, counterAggregator.add(key, delta));
+            } else {
+                keys.add(key);
+                result.put(key, null);
+            }
+        });
+        if (keys.isEmpty()) {
+            return result;
+        }
+        RedisSerializer<String> serializer = redisTemplate.getStringSerializer();
+        List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+            for (String key : keys) {
+                connection.stringCommands().incrBy(serializer.serialize(key), deltas.get(key));
+            }
+            return null;
+        });
+        nearCache.invalidateAll(keys);
+        for (int i = 0; i < keys.size(); i++) {
+            result.put(keys.get(i), (Long) results.get(i));
+        }
+        return result;
+    }
+
+    // Удалить несколько ключей одной командой DEL; возвращает число удалённых.
+    // Агрегируемые счётчики удаляются вместе с несброшенными изменениями и шардами
+    public long multiDelete(Collection<String> keys) {
+        List<String> plain = new ArrayList<>();
+        long deleted = 0;
+        for (String key : keys) {
+            if (!counterAggregator.isAggregated(key)) {
+                plain.add(key);
+            } else if (counterAggregator.delete(key)) {
+                deleted++;
+            }
+        }
+        if (!plain.isEmpty()) {
+            Long count = redisTemplate.delete(plain);
+            deleted += count != null ? count : 0L;
+        }
+        nearCache.invalidateAll(keys);
+        return deleted;
     }
-}
\ No newline at end of file
+}
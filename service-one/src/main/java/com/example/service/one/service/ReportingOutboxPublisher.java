@@ -0,0 +1,126 @@
+package com.example.service.one.service;
+
+import com.example.service.one.dto.ReportChange;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Публикует изменённые ключи отчётов из reporting_outbox в Kafka.
+ *
+ * Строки журнала удаляются в той же транзакции, что ждёт подтверждения
+ * отправки: при сбое Kafka они остаются и уходят следующим запуском.
+ * SKIP LOCKED позволяет нескольким экземплярам разбирать журнал параллельно.
+ */
+@Service
+public class ReportingOutboxPublisher {
+
+    public static final String TOPIC = "reporting-changes";
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportingOutboxPublisher.class);
+    private static final Logger kafkaEventsLogger = LoggerFactory.getLogger("KAFKA_EVENTS");
+
+    private static final String TAKE_BATCH_SQL = """
+            DELETE FROM reporting_outbox
+            WHERE event_id IN (SELECT event_id FROM reporting_outbox
+                               ORDER BY event_id
+                               LIMIT :limit
+                               FOR UPDATE SKIP LOCKED)
+            RETURNING aggregate, key_id
+            """;
+
+    private final JdbcClient jdbcClient;
+    private final TransactionTemplate transactionTemplate;
+    private final KafkaTemplate<String, String> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final int keysPerMessage;
+    private final Duration sendTimeout;
+
+    public ReportingOutboxPublisher(JdbcClient jdbcClient,
+                                    PlatformTransactionManager transactionManager,
+                                    KafkaTemplate<String, String> kafkaTemplate,
+                                    ObjectMapper objectMapper,
+                                    @Value("${app.reporting.outbox.batch-size:5000}") int batchSize,
+                                    @Value("${app.reporting.outbox.keys-per-message:500}") int keysPerMessage,
+                                    @Value("${app.reporting.outbox.send-timeout:10s}") Duration sendTimeout) {
+        this.jdbcClient = jdbcClient;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        this.keysPerMessage = keysPerMessage;
+        this.sendTimeout = sendTimeout;
+    }
+
+    @Scheduled(fixedDelayString = "${app.reporting.outbox.poll-interval:1s}")
+    public void publishPending() {
+        try {
+            transactionTemplate.executeWithoutResult(status -> publishBatch());
+        } catch (RuntimeException e) {
+            // Строки журнала остались на месте, следующий запуск повторит отправку
+            logger.warn("Журнал отчётов не опубликован: {}", e.getMessage());
+        }
+    }
+
+    private void publishBatch() {
+        // Повторы одного ключа схлопываются: пересчёт идёт по текущему состоянию таблиц
+        Map<String, TreeSet<Integer>> changed = new TreeMap<>();
+        jdbcClient.sql(TAKE_BATCH_SQL)
+                .param("limit", batchSize)
+                .query((rs, rowNum) -> changed.computeIfAbsent(rs.getString("aggregate"), a -> new TreeSet<>())
+                        .add(rs.getInt("key_id")))
+                .list();
+        if (changed.isEmpty()) {
+            return;
+        }
+
+        List<CompletableFuture<?>> sends = new ArrayList<>();
+        changed.forEach((aggregate, keys) -> {
+            List<Integer> all = List.copyOf(keys);
+            for (int from = 0; from < all.size(); from += keysPerMessage) {
+                List<Integer> chunk = all.subList(from, Math.min(from + keysPerMessage, all.size()));
+                sends.add(kafkaTemplate.send(TOPIC, aggregate, toJson(new ReportChange(aggregate, chunk))));
+            }
+        });
+        try {
+            CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new))
+                    .get(sendTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Reporting outbox publish interrupted", e);
+        } catch (ExecutionException | TimeoutException e) {
+            // Откат транзакции возвращает строки в журнал
+            throw new IllegalStateException("Reporting outbox publish failed: " + e.getMessage(), e);
+        }
+        kafkaEventsLogger.info("Reporting changes published - Aggregates: {}, Messages: {}",
+                changed.keySet(), sends.size());
+    }
+
+    private String toJson(ReportChange change) {
+        try {
+            return objectMapper.writeValueAsString(change);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось сериализовать событие отчёта", e);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.service.one.service;
+
+import com.example.service.one.dto.ClientTotal;
+import com.example.service.one.dto.DepartmentHeadcount;
+import com.example.service.one.dto.ProductSales;
+import com.example.service.one.dto.ReportChange;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.simple.JdbcClient;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Отчёты «топ клиентов», «самые продаваемые товары» и «численность по отделам».
+ *
+ * Агрегаты хранятся в таблицах report_* и пересчитываются только для
+ * изменившихся ключей (события из reporting_outbox через Kafka). Готовые
+ * отчёты лежат в Redis одной JSON-строкой и отдаются без обращения к БД.
+ */
+@Service
+public class ReportingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReportingService.class);
+
+    private final JdbcClient jdbcClient;
+    private final RedisService redisService;
+    private final ObjectMapper objectMapper;
+    private final int topSize;
+    private final Duration snapshotTtl;
+
+    public ReportingService(JdbcClient jdbcClient,
+                            RedisService redisService,
+                            ObjectMapper objectMapper,
+                            @Value("${app.reporting.top-size:100}") int topSize,
+                            @Value("${app.reporting.snapshot-ttl:1h}") Duration snapshotTtl) {
+        this.jdbcClient = jdbcClient;
+        this.redisService = redisService;
+        this.objectMapper = objectMapper;
+        this.topSize = topSize;
+        this.snapshotTtl = snapshotTtl;
+    }
+
+    /**
+     * Пересчитывает агрегаты для ключей из события и обновляет снимок в Redis.
+     * Повторная обработка того же события даёт тот же результат.
+     */
+    @Transactional
+    public void refresh(ReportChange change) {
+        Report report = Report.of(change.aggregate());
+        if (!change.keys().isEmpty()) {
+            jdbcClient.sql(report.upsertSql).param("keys", change.keys()).update();
+            // Ключи, у которых не осталось строк (удалены все заказы клиента и т.п.)
+            jdbcClient.sql(report.cleanupSql).param("keys", change.keys()).update();
+        }
+        publishSnapshot(report);
+    }
+
+    public String topClients() {
+        return snapshot(Report.CLIENTS);
+    }
+
+    public String bestSellers() {
+        return snapshot(Report.PRODUCTS);
+    }
+
+    public String headcount() {
+        return snapshot(Report.DEPARTMENTS);
+    }
+
+    // Снимок из Redis; если его нет или Redis недоступен — из таблицы агрегатов
+    private String snapshot(Report report) {
+        try {
+            String cached = redisService.getValue(report.redisKey);
+            if (cached != null) {
+                return cached;
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Redis недоступен, отчёт {} читается из БД: {}", report.redisKey, e.getMessage());
+            return toJson(load(report));
+        }
+        return publishSnapshot(report);
+    }
+
+    private String publishSnapshot(Report report) {
+        String json = toJson(load(report));
+        redisService.setValue(report.redisKey, json, snapshotTtl);
+        return json;
+    }
+
+    private List<?> load(Report report) {
+        return jdbcClient.sql(report.topSql)
+                .param("limit", topSize)
+                .query(report.rowType)
+                .list();
+    }
+
+    private String toJson(List<?> rows) {
+        try {
+            return objectMapper.writeValueAsString(rows);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось сериализовать отчёт", e);
+        }
+    }
+
+    private enum Report {
+
+        CLIENTS("client", "report:top-clients", ClientTotal.class,
+                """
+                INSERT INTO report_client_totals (client_id, company_name, total_amount, order_count, updated_at)
+                SELECT c.client_id, c.company_name, COALESCE(SUM(o.total_amount), 0), COUNT(o.order_id), CURRENT_TIMESTAMP
+                FROM clients c
+                JOIN orders o ON c.client_id = o.client_id
+                WHERE c.client_id IN (:keys)
+                GROUP BY c.client_id, c.company_name
+                ON CONFLICT (client_id) DO UPDATE SET company_name = EXCLUDED.company_name,
+                    total_amount = EXCLUDED.total_amount, order_count = EXCLUDED.order_count,
+                    updated_at = EXCLUDED.updated_at
+                """,
+                """
+                DELETE FROM report_client_totals r
+                WHERE r.client_id IN (:keys)
+                  AND NOT EXISTS (SELECT 1 FROM orders o WHERE o.client_id = r.client_id)
+                """,
+                """
+                SELECT client_id, company_name, total_amount, order_count
+                FROM report_client_totals
+                ORDER BY total_amount DESC, client_id
+                LIMIT :limit
+                """),
+
+        PRODUCTS("product", "report:best-sellers", ProductSales.class,
+                """
+                INSERT INTO report_product_sales (product_id, product_name, total_sold, revenue, updated_at)
+                SELECT p.product_id, p.name, SUM(oi.quantity), SUM(oi.total_price), CURRENT_TIMESTAMP
+                FROM products p
+                JOIN order_items oi ON p.product_id = oi.product_id
+                WHERE p.product_id IN (:keys)
+                GROUP BY p.product_id, p.name
+                ON CONFLICT (product_id) DO UPDATE SET product_name = EXCLUDED.product_name,
+                    total_sold = EXCLUDED.total_sold, revenue = EXCLUDED.revenue,
+                    updated_at = EXCLUDED.updated_at
+                """,
+                """
+                DELETE FROM report_product_sales r
+                WHERE r.product_id IN (:keys)
+                  AND NOT EXISTS (SELECT 1 FROM order_items oi WHERE oi.product_id = r.product_id)
+                """,
+                """
+                SELECT product_id, product_name, total_sold, revenue
+                FROM report_product_sales
+                ORDER BY total_sold DESC, product_id
+                LIMIT :limit
+                """),
+
+        // Отдел без сотрудников остаётся в отчёте с нулём, как в LEFT JOIN исходного запроса
+        DEPARTMENTS("department", "report:headcount", DepartmentHeadcount.class,
+                """
+                INSERT INTO report_department_headcount (department_id, name, employee_count, updated_at)
+                SELECT d.department_id, d.name, COUNT(e.employee_id), CURRENT_TIMESTAMP
+                FROM departments d
+                LEFT JOIN employees e ON d.department_id = e.department_id
+                WHERE d.department_id IN (:keys)
+                GROUP BY d.department_id, d.name
+                ON CONFLICT (department_id) DO UPDATE SET name = EXCLUDED.name,
+                    employee_count = EXCLUDED.employee_count, updated_at = EXCLUDED.updated_at
+                """,
+                """
+                DELETE FROM report_department_headcount r
+                WHERE r.department_id IN (:keys)
+                  AND NOT EXISTS (SELECT 1 FROM departments d WHERE d.department_id = r.department_id)
+                """,
+                """
+                SELECT department_id, name, employee_count
+                FROM report_department_headcount
+                ORDER BY employee_count DESC, department_id
+                LIMIT :limit
+                """);
+
+        private final String aggregate;
+        private final String redisKey;
+        private final Class<?> rowType;
+        private final String upsertSql;
+        private final String cleanupSql;
+        private final String topSql;
+
+        Report(String aggregate, String redisKey, Class<?> rowType,
+               String upsertSql, String cleanupSql, String topSql) {
+            this.aggregate = aggregate;
+            this.redisKey = redisKey;
+            this.rowType = rowType;
+            this.upsertSql = upsertSql;
+            this.cleanupSql = cleanupSql;
+            this.topSql = topSql;
+        }
+
+        static Report of(String aggregate) {
+            for (Report report : values()) {
+                if (report.aggregate.equals(aggregate)) {
+                    return report;
+                }
+            }
+            throw new IllegalArgumentException("Неизвестный агрегат отчёта: " + aggregate);
+        }
+    }
+}
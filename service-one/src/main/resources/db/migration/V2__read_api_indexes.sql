@@ -0,0 +1,12 @@
+-- ========================================
+-- ИНДЕКСЫ ДЛЯ KEYSET-ПАГИНАЦИИ
+-- ========================================
+
+-- Список заказов: ORDER BY order_date DESC, order_id DESC с позиции курсора
+CREATE INDEX idx_orders_date_id ON orders(order_date DESC, order_id DESC);
+
+-- Сотрудники отдела по возрастанию id
+CREATE INDEX idx_employees_department_id ON employees(department_id, employee_id);
+
+-- Проекты со статусом по возрастанию id
+CREATE INDEX idx_projects_status_id ON projects(status, project_id);
@@ -0,0 +1,124 @@
+-- ========================================
+-- ОТЧЁТНЫЕ АГРЕГАТЫ
+-- ========================================
+
+-- Сумма заказов по клиентам (топ клиентов)
+CREATE TABLE report_client_totals (
+    client_id INTEGER PRIMARY KEY REFERENCES clients(client_id) ON DELETE CASCADE,
+    company_name VARCHAR(200) NOT NULL,
+    total_amount DECIMAL(14,2) NOT NULL DEFAULT 0,
+    order_count INTEGER NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+CREATE INDEX idx_report_client_totals_amount ON report_client_totals(total_amount DESC);
+
+-- Продажи по товарам (самые продаваемые)
+CREATE TABLE report_product_sales (
+    product_id INTEGER PRIMARY KEY REFERENCES products(product_id) ON DELETE CASCADE,
+    product_name VARCHAR(200) NOT NULL,
+    total_sold BIGINT NOT NULL DEFAULT 0,
+    revenue DECIMAL(14,2) NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+CREATE INDEX idx_report_product_sales_sold ON report_product_sales(total_sold DESC);
+
+-- Численность по отделам
+CREATE TABLE report_department_headcount (
+    department_id INTEGER PRIMARY KEY REFERENCES departments(department_id) ON DELETE CASCADE,
+    name VARCHAR(100) NOT NULL,
+    employee_count INTEGER NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Начальное заполнение
+INSERT INTO report_client_totals (client_id, company_name, total_amount, order_count)
+SELECT c.client_id, c.company_name, COALESCE(SUM(o.total_amount), 0), COUNT(o.order_id)
+FROM clients c
+JOIN orders o ON c.client_id = o.client_id
+GROUP BY c.client_id, c.company_name;
+
+INSERT INTO report_product_sales (product_id, product_name, total_sold, revenue)
+SELECT p.product_id, p.name, SUM(oi.quantity), SUM(oi.total_price)
+FROM products p
+JOIN order_items oi ON p.product_id = oi.product_id
+GROUP BY p.product_id, p.name;
+
+INSERT INTO report_department_headcount (department_id, name, employee_count)
+SELECT d.department_id, d.name, COUNT(e.employee_id)
+FROM departments d
+LEFT JOIN employees e ON d.department_id = e.department_id
+GROUP BY d.department_id, d.name;
+
+-- ========================================
+-- ЖУРНАЛ ИЗМЕНЁННЫХ КЛЮЧЕЙ (OUTBOX)
+-- ========================================
+
+-- Какие агрегаты нужно пересчитать. Строки публикуются в Kafka и удаляются
+-- (ReportingOutboxPublisher), пересчёт выполняет ReportingChangeListener
+CREATE TABLE reporting_outbox (
+    event_id BIGSERIAL PRIMARY KEY,
+    aggregate VARCHAR(20) NOT NULL CHECK (aggregate IN ('client', 'product', 'department')),
+    key_id INTEGER NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Триггеры уровня оператора с таблицами переходов: одна строка журнала на
+-- ключ за оператор, поэтому массовая вставка или COPY не умножают журнал.
+-- Аргументы: тип агрегата и колонка с его ключом
+CREATE FUNCTION reporting_rows_changed() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        EXECUTE format('INSERT INTO reporting_outbox (aggregate, key_id) '
+                       'SELECT DISTINCT %L, %I FROM new_rows WHERE %I IS NOT NULL',
+                       TG_ARGV[0], TG_ARGV[1], TG_ARGV[1]);
+    END IF;
+    IF TG_OP IN ('UPDATE', 'DELETE') THEN
+        EXECUTE format('INSERT INTO reporting_outbox (aggregate, key_id) '
+                       'SELECT DISTINCT %L, %I FROM old_rows WHERE %I IS NOT NULL',
+                       TG_ARGV[0], TG_ARGV[1], TG_ARGV[1]);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Заказы и клиенты — суммы клиентов
+CREATE TRIGGER orders_reporting_insert AFTER INSERT ON orders
+    REFERENCING NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION reporting_rows_changed('client', 'client_id');
+CREATE TRIGGER orders_reporting_update AFTER UPDATE ON orders
+    REFERENCING NEW TABLE AS new_rows OLD TABLE AS old_rows FOR EACH STATEMENT EXECUTE FUNCTION reporting_rows_changed('client', 'client_id');
+CREATE TRIGGER orders_reporting_delete AFTER DELETE ON orders
+    REFERENCING OLD TABLE AS old_rows FOR EACH STATEMENT EXECUTE FUNCTION reporting_rows_changed('client', 'client_id');
+CREATE TRIGGER clients_reporting_insert AFTER INSERT ON clients
+    REFERENCING NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION reporting_rows_changed('client', 'client_id');
+CREATE TRIGGER clients_reporting_update AFTER UPDATE ON clients
+    REFERENCING NEW TABLE AS new_rows OLD TABLE AS old_rows FOR EACH STATEMENT EXECUTE FUNCTION reporting_rows_changed('client', 'client_id');
+CREATE TRIGGER clients_reporting_delete AFTER DELETE ON clients
+    REFERENCING OLD TABLE AS old_rows FOR EACH STATEMENT EXECUTE FUNCTION reporting_rows_changed('client', 'client_id');
+
+-- Позиции и товары — продажи товаров
+CREATE TRIGGER order_items_reporting_insert AFTER INSERT ON order_items
+    REFERENCING NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION reporting_rows_changed('product', 'product_id');
+CREATE TRIGGER order_items_reporting_update AFTER UPDATE ON order_items
+    REFERENCING NEW TABLE AS new_rows OLD TABLE AS old_rows FOR EACH STATEMENT EXECUTE FUNCTION reporting_rows_changed('product', 'product_id');
+CREATE TRIGGER order_items_reporting_delete AFTER DELETE ON order_items
+    REFERENCING OLD TABLE AS old_rows FOR EACH STATEMENT EXECUTE FUNCTION reporting_rows_changed('product', 'product_id');
+CREATE TRIGGER products_reporting_insert AFTER INSERT ON products
+    REFERENCING NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION reporting_rows_changed('product', 'product_id');
+CREATE TRIGGER products_reporting_update AFTER UPDATE ON products
+    REFERENCING NEW TABLE AS new_rows OLD TABLE AS old_rows FOR EACH STATEMENT EXECUTE FUNCTION reporting_rows_changed('product', 'product_id');
+CREATE TRIGGER products_reporting_delete AFTER DELETE ON products
+    REFERENCING OLD TABLE AS old_rows FOR EACH STATEMENT EXECUTE FUNCTION reporting_rows_changed('product', 'product_id');
+
+-- Сотрудники и отделы — численность
+CREATE TRIGGER employees_reporting_insert AFTER INSERT ON employees
+    REFERENCING NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION reporting_rows_changed('department', 'department_id');
+CREATE TRIGGER employees_reporting_update AFTER UPDATE ON employees
+    REFERENCING NEW TABLE AS new_rows OLD TABLE AS old_rows FOR EACH STATEMENT EXECUTE FUNCTION reporting_rows_changed('department', 'department_id');
+CREATE TRIGGER employees_reporting_delete AFTER DELETE ON employees
+    REFERENCING OLD TABLE AS old_rows FOR EACH STATEMENT EXECUTE FUNCTION reporting_rows_changed('department', 'department_id');
+CREATE TRIGGER departments_reporting_insert AFTER INSERT ON departments
+    REFERENCING NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION reporting_rows_changed('department', 'department_id');
+CREATE TRIGGER departments_reporting_update AFTER UPDATE ON departments
+    REFERENCING NEW TABLE AS new_rows OLD TABLE AS old_rows FOR EACH STATEMENT EXECUTE FUNCTION reporting_rows_changed('department', 'department_id');
+CREATE TRIGGER departments_reporting_delete AFTER DELETE ON departments
+    REFERENCING OLD TABLE AS old_rows FOR EACH STATEMENT EXECUTE FUNCTION reporting_rows_changed('department', 'department_id');
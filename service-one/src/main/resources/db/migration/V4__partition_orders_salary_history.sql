@@ -0,0 +1,304 @@
+-- ========================================
+-- СЕКЦИОНИРОВАНИЕ orders И salary_history ПО МЕСЯЦАМ
+-- ========================================
+
+-- Миграция без остановки записи:
+-- 1. здесь создаются секционированные копии orders_partitioned и
+--    salary_history_partitioned, а исходные таблицы триггерами зеркалируют
+--    в них все изменения;
+-- 2. существующие строки порциями по ключу переносит PartitionMigrationService
+--    (partition_migrate_chunk);
+-- 3. после переноса partition_cutover под короткой блокировкой меняет таблицы
+--    местами. Старые таблицы остаются как *_legacy и удаляются вручную.
+
+-- Отсоединённые старые секции (PartitionMaintenanceService)
+CREATE SCHEMA IF NOT EXISTS archive;
+
+-- Таблица, в которую сейчас пишутся секции: копия до переключения, потом сама base
+CREATE FUNCTION partition_parent(base TEXT) RETURNS TEXT AS $$
+    SELECT CASE WHEN to_regclass(base || '_partitioned') IS NOT NULL THEN base || '_partitioned' ELSE base END;
+$$ LANGUAGE sql STABLE;
+
+-- Создаёт недостающие месячные секции base_ГГГГ_ММ, покрывающие [from_date, to_date].
+-- Возвращает число созданных секций
+CREATE FUNCTION partition_ensure_months(base TEXT, from_date DATE, to_date DATE) RETURNS INTEGER AS $$
+DECLARE
+    parent TEXT := partition_parent(base);
+    month_start DATE := date_trunc('month', from_date)::date;
+    partition_name TEXT;
+    created INTEGER := 0;
+BEGIN
+    -- Параллельные вызовы не создают одну секцию дважды
+    PERFORM pg_advisory_xact_lock(hashtext('partition:' || base));
+    WHILE month_start <= to_date LOOP
+        partition_name := base || '_' || to_char(month_start, 'YYYY_MM');
+        IF to_regclass(partition_name) IS NULL THEN
+            EXECUTE format('CREATE TABLE %I PARTITION OF %I FOR VALUES FROM (%L) TO (%L)',
+                           partition_name, parent, month_start, (month_start + INTERVAL '1 month')::date);
+            created := created + 1;
+        END IF;
+        month_start := (month_start + INTERVAL '1 month')::date;
+    END LOOP;
+    RETURN created;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Ключ секционирования не может быть NULL: такие строки считаем созданными сегодня,
+-- как и DEFAULT CURRENT_DATE
+UPDATE orders SET order_date = CURRENT_DATE WHERE order_date IS NULL;
+UPDATE salary_history SET change_date = CURRENT_DATE WHERE change_date IS NULL;
+
+-- ========================================
+-- СЕКЦИОНИРОВАННЫЕ КОПИИ
+-- ========================================
+
+-- Первичный ключ обязан включать ключ секционирования; уникальность order_id
+-- по-прежнему обеспечивает последовательность
+CREATE TABLE orders_partitioned (
+    order_id INTEGER NOT NULL DEFAULT nextval('orders_order_id_seq'),
+    client_id INTEGER REFERENCES clients(client_id),
+    order_date DATE NOT NULL DEFAULT CURRENT_DATE,
+    delivery_date DATE,
+    total_amount DECIMAL(12,2),
+    status VARCHAR(20) CHECK (status IN ('pending', 'confirmed', 'shipped', 'delivered', 'cancelled')),
+    sales_person_id INTEGER REFERENCES employees(employee_id),
+    discount_percent DECIMAL(5,2) DEFAULT 0,
+    CONSTRAINT orders_partitioned_pkey PRIMARY KEY (order_id, order_date)
+) PARTITION BY RANGE (order_date);
+CREATE INDEX idx_orders_partitioned_client ON orders_partitioned(client_id);
+CREATE INDEX idx_orders_partitioned_date_id ON orders_partitioned(order_date DESC, order_id DESC);
+
+CREATE TABLE salary_history_partitioned (
+    history_id INTEGER NOT NULL DEFAULT nextval('salary_history_history_id_seq'),
+    employee_id INTEGER REFERENCES employees(employee_id),
+    old_salary DECIMAL(10,2),
+    new_salary DECIMAL(10,2),
+    change_date DATE NOT NULL DEFAULT CURRENT_DATE,
+    reason VARCHAR(200),
+    CONSTRAINT salary_history_partitioned_pkey PRIMARY KEY (history_id, change_date)
+) PARTITION BY RANGE (change_date);
+CREATE INDEX idx_salary_history_partitioned_employee ON salary_history_partitioned(employee_id, change_date);
+
+-- Секции на всю историю и три месяца вперёд
+SELECT partition_ensure_months('orders',
+    COALESCE((SELECT min(order_date) FROM orders), CURRENT_DATE),
+    GREATEST((SELECT max(order_date) FROM orders), (CURRENT_DATE + INTERVAL '3 months')::date));
+SELECT partition_ensure_months('salary_history',
+    COALESCE((SELECT min(change_date) FROM salary_history), CURRENT_DATE),
+    GREATEST((SELECT max(change_date) FROM salary_history), (CURRENT_DATE + INTERVAL '3 months')::date));
+
+-- ========================================
+-- ЗЕРКАЛИРОВАНИЕ НА ВРЕМЯ ПЕРЕНОСА
+-- ========================================
+
+-- Строка копии всегда заменяется текущей версией исходной (upsert, а не DO NOTHING):
+-- изменение не теряется, даже если копия появилась раньше, чем её увидел DELETE
+
+CREATE FUNCTION orders_mirror() RETURNS trigger AS $$
+DECLARE
+    row_date DATE;
+BEGIN
+    IF TG_OP IN ('UPDATE', 'DELETE') THEN
+        DELETE FROM orders_partitioned p WHERE p.order_id = OLD.order_id;
+    END IF;
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        row_date := COALESCE(NEW.order_date, CURRENT_DATE);
+        IF to_regclass('orders_' || to_char(row_date, 'YYYY_MM')) IS NULL THEN
+            PERFORM partition_ensure_months('orders', row_date, row_date);
+        END IF;
+        INSERT INTO orders_partitioned (order_id, client_id, order_date, delivery_date, total_amount,
+                                        status, sales_person_id, discount_percent)
+        VALUES (NEW.order_id, NEW.client_id, row_date, NEW.delivery_date, NEW.total_amount,
+                NEW.status, NEW.sales_person_id, NEW.discount_percent)
+        ON CONFLICT (order_id, order_date) DO UPDATE
+        SET client_id = EXCLUDED.client_id,
+            delivery_date = EXCLUDED.delivery_date,
+            total_amount = EXCLUDED.total_amount,
+            status = EXCLUDED.status,
+            sales_person_id = EXCLUDED.sales_person_id,
+            discount_percent = EXCLUDED.discount_percent;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE FUNCTION salary_history_mirror() RETURNS trigger AS $$
+DECLARE
+    row_date DATE;
+BEGIN
+    IF TG_OP IN ('UPDATE', 'DELETE') THEN
+        DELETE FROM salary_history_partitioned p WHERE p.history_id = OLD.history_id;
+    END IF;
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        row_date := COALESCE(NEW.change_date, CURRENT_DATE);
+        IF to_regclass('salary_history_' || to_char(row_date, 'YYYY_MM')) IS NULL THEN
+            PERFORM partition_ensure_months('salary_history', row_date, row_date);
+        END IF;
+        INSERT INTO salary_history_partitioned (history_id, employee_id, old_salary, new_salary,
+                                                change_date, reason)
+        VALUES (NEW.history_id, NEW.employee_id, NEW.old_salary, NEW.new_salary, row_date, NEW.reason)
+        ON CONFLICT (history_id, change_date) DO UPDATE
+        SET employee_id = EXCLUDED.employee_id,
+            old_salary = EXCLUDED.old_salary,
+            new_salary = EXCLUDED.new_salary,
+            reason = EXCLUDED.reason;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER orders_mirror AFTER INSERT OR UPDATE OR DELETE ON orders
+    FOR EACH ROW EXECUTE FUNCTION orders_mirror();
+CREATE TRIGGER salary_history_mirror AFTER INSERT OR UPDATE OR DELETE ON salary_history
+    FOR EACH ROW EXECUTE FUNCTION salary_history_mirror();
+
+-- ========================================
+-- ПЕРЕНОС СУЩЕСТВУЮЩИХ СТРОК ПОРЦИЯМИ
+-- ========================================
+
+-- Строки с ключом больше max_key появились уже при работающем зеркалировании
+CREATE TABLE partition_migration (
+    table_name VARCHAR(63) PRIMARY KEY,
+    key_column VARCHAR(63) NOT NULL,
+    last_key BIGINT NOT NULL DEFAULT 0,
+    max_key BIGINT NOT NULL,
+    copied_rows BIGINT NOT NULL DEFAULT 0,
+    state VARCHAR(20) NOT NULL DEFAULT 'copying' CHECK (state IN ('copying', 'done')),
+    started_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    finished_at TIMESTAMP
+);
+
+INSERT INTO partition_migration (table_name, key_column, max_key) VALUES
+('orders', 'order_id', COALESCE((SELECT max(order_id) FROM orders), 0)),
+('salary_history', 'history_id', COALESCE((SELECT max(history_id) FROM salary_history), 0));
+
+-- Копирует следующую порцию ключей (last_key, last_key + chunk_size].
+-- Возвращает число скопированных строк или -1, если копировать больше нечего.
+-- Исходные строки порции блокируются FOR SHARE до конца транзакции: UPDATE и DELETE
+-- этих строк (и их триггер зеркалирования) ждут, пока копия не станет видна, а уже
+-- начатое изменение порция дожидается и копирует его результат
+CREATE FUNCTION partition_migrate_chunk(base TEXT, chunk_size INTEGER) RETURNS INTEGER AS $$
+DECLARE
+    migration partition_migration%ROWTYPE;
+    upper_key BIGINT;
+    copied INTEGER;
+BEGIN
+    -- Другой экземпляр уже копирует эту таблицу — пропускаем
+    SELECT * INTO migration FROM partition_migration WHERE table_name = base FOR UPDATE SKIP LOCKED;
+    IF NOT FOUND OR migration.state <> 'copying' OR migration.last_key >= migration.max_key THEN
+        RETURN -1;
+    END IF;
+    upper_key := LEAST(migration.last_key + chunk_size, migration.max_key);
+    EXECUTE format('INSERT INTO %I SELECT * FROM %I WHERE %I > $1 AND %I <= $2 FOR SHARE ON CONFLICT DO NOTHING',
+                   base || '_partitioned', base, migration.key_column, migration.key_column)
+        USING migration.last_key, upper_key;
+    GET DIAGNOSTICS copied = ROW_COUNT;
+    UPDATE partition_migration
+    SET last_key = upper_key, copied_rows = copied_rows + copied
+    WHERE table_name = base;
+    RETURN copied;
+END;
+$$ LANGUAGE plpgsql;
+
+-- ========================================
+-- ПЕРЕКЛЮЧЕНИЕ
+-- ========================================
+
+-- Внешний ключ на секционированную таблицу обязан включать order_date, которого
+-- нет в order_items, поэтому ссылочная целостность order_items -> orders после
+-- переключения проверяется триггерами с теми же кодом ошибки и блокировками, что у FK
+CREATE FUNCTION order_items_check_order() RETURNS trigger AS $$
+BEGIN
+    IF NEW.order_id IS NOT NULL THEN
+        PERFORM 1 FROM orders WHERE order_id = NEW.order_id FOR KEY SHARE;
+        IF NOT FOUND THEN
+            RAISE EXCEPTION 'insert or update on table "order_items" violates foreign key constraint "order_items_order_id_fkey"'
+                USING ERRCODE = 'foreign_key_violation',
+                      DETAIL = format('Key (order_id)=(%s) is not present in table "orders".', NEW.order_id);
+        END IF;
+    END IF;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE FUNCTION orders_check_items() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'UPDATE' AND NEW.order_id = OLD.order_id THEN
+        RETURN NULL;
+    END IF;
+    IF EXISTS (SELECT 1 FROM order_items WHERE order_id = OLD.order_id) THEN
+        RAISE EXCEPTION 'update or delete on table "orders" violates foreign key constraint "order_items_order_id_fkey" on table "order_items"'
+            USING ERRCODE = 'foreign_key_violation',
+                  DETAIL = format('Key (order_id)=(%s) is still referenced from table "order_items".', OLD.order_id);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE FUNCTION partition_cutover_orders() RETURNS VOID AS $$
+BEGIN
+    LOCK TABLE orders, orders_partitioned, order_items IN ACCESS EXCLUSIVE MODE;
+
+    DROP TRIGGER orders_mirror ON orders;
+    DROP TRIGGER orders_reporting_insert ON orders;
+    DROP TRIGGER orders_reporting_update ON orders;
+    DROP TRIGGER orders_reporting_delete ON orders;
+    ALTER TABLE order_items DROP CONSTRAINT order_items_order_id_fkey;
+
+    ALTER TABLE orders RENAME TO orders_legacy;
+    ALTER INDEX orders_pkey RENAME TO orders_legacy_pkey;
+    ALTER INDEX idx_orders_client RENAME TO idx_orders_legacy_client;
+    ALTER INDEX idx_orders_date RENAME TO idx_orders_legacy_date;
+    ALTER INDEX idx_orders_date_id RENAME TO idx_orders_legacy_date_id;
+
+    ALTER TABLE orders_partitioned RENAME TO orders;
+    ALTER INDEX orders_partitioned_pkey RENAME TO orders_pkey;
+    ALTER INDEX idx_orders_partitioned_client RENAME TO idx_orders_client;
+    ALTER INDEX idx_orders_partitioned_date_id RENAME TO idx_orders_date_id;
+    -- Иначе последовательность удалится вместе с orders_legacy
+    ALTER SEQUENCE orders_order_id_seq OWNED BY orders.order_id;
+
+    CREATE TRIGGER orders_reporting_insert AFTER INSERT ON orders
+        REFERENCING NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION reporting_rows_changed('client', 'client_id');
+    CREATE TRIGGER orders_reporting_update AFTER UPDATE ON orders
+        REFERENCING NEW TABLE AS new_rows OLD TABLE AS old_rows FOR EACH STATEMENT EXECUTE FUNCTION reporting_rows_changed('client', 'client_id');
+    CREATE TRIGGER orders_reporting_delete AFTER DELETE ON orders
+        REFERENCING OLD TABLE AS old_rows FOR EACH STATEMENT EXECUTE FUNCTION reporting_rows_changed('client', 'client_id');
+
+    CREATE TRIGGER order_items_order_fk BEFORE INSERT OR UPDATE OF order_id ON order_items
+        FOR EACH ROW EXECUTE FUNCTION order_items_check_order();
+    CREATE TRIGGER orders_order_items_fk AFTER DELETE OR UPDATE OF order_id ON orders
+        FOR EACH ROW EXECUTE FUNCTION orders_check_items();
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE FUNCTION partition_cutover_salary_history() RETURNS VOID AS $$
+BEGIN
+    LOCK TABLE salary_history, salary_history_partitioned IN ACCESS EXCLUSIVE MODE;
+
+    DROP TRIGGER salary_history_mirror ON salary_history;
+
+    ALTER TABLE salary_history RENAME TO salary_history_legacy;
+    ALTER INDEX salary_history_pkey RENAME TO salary_history_legacy_pkey;
+
+    ALTER TABLE salary_history_partitioned RENAME TO salary_history;
+    ALTER INDEX salary_history_partitioned_pkey RENAME TO salary_history_pkey;
+    ALTER INDEX idx_salary_history_partitioned_employee RENAME TO idx_salary_history_employee;
+    ALTER SEQUENCE salary_history_history_id_seq OWNED BY salary_history.history_id;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Переключает таблицу, когда все строки скопированы
+CREATE FUNCTION partition_cutover(base TEXT) RETURNS BOOLEAN AS $$
+DECLARE
+    migration partition_migration%ROWTYPE;
+BEGIN
+    SELECT * INTO migration FROM partition_migration WHERE table_name = base FOR UPDATE;
+    IF migration.state <> 'copying' OR migration.last_key < migration.max_key THEN
+        RETURN FALSE;
+    END IF;
+    EXECUTE format('SELECT partition_cutover_%s()', base);
+    UPDATE partition_migration SET state = 'done', finished_at = CURRENT_TIMESTAMP WHERE table_name = base;
+    RETURN TRUE;
+END;
+$$ LANGUAGE plpgsql;
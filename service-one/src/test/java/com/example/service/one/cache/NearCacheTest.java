@@ -0,0 +1,120 @@
+package com.example.service.one.cache;
+
+import io.lettuce.core.RedisChannelHandler;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisConnectionStateListener;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.StatefulRedisConnectionImpl;
+import io.lettuce.core.TrackingArgs;
+import io.lettuce.core.api.async.RedisAsyncCommands;
+import io.lettuce.core.api.sync.RedisCommands;
+import io.lettuce.core.codec.RedisCodec;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Redis заменён моком Lettuce: GET возвращает текущее значение value, переподключение
+ * имитируется вызовом слушателя клиента
+ */
+class NearCacheTest {
+
+    private final AtomicReference<String> value = new AtomicReference<>("v1");
+    private final RedisClient client = mock(RedisClient.class);
+    private final RedisCommands<String, String> sync = mockCommands();
+    @SuppressWarnings("unchecked")
+    private final StatefulRedisConnectionImpl<String, String> connection = mock(StatefulRedisConnectionImpl.class);
+    private NearCache nearCache;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void fakeRedis() throws Exception {
+        LettuceConnectionFactory connectionFactory = mock(LettuceConnectionFactory.class);
+        when(connectionFactory.getRequiredNativeClient()).thenReturn(client);
+        when(client.connect(any(RedisCodec.class))).thenReturn(connection);
+        when(connection.sync()).thenReturn(sync);
+
+        RedisAsyncCommands<String, String> async = mock(RedisAsyncCommands.class);
+        when(connection.async()).thenReturn(async);
+        when(async.get(anyString())).thenAnswer(inv -> future(value.get()));
+        when(async.pttl(anyString())).thenAnswer(inv -> future(-1L));
+
+        nearCache = new NearCache(connectionFactory, new SimpleMeterRegistry(), true, 100, Duration.ofMinutes(1));
+    }
+
+    @AfterEach
+    void close() {
+        nearCache.close();
+    }
+
+    @Test
+    void reconnectRestoresTrackingAndDropsCachedValues() throws Exception {
+        assertThat(nearCache.get("key").value()).isEqualTo("v1");
+        value.set("v2");
+        // Без tracking изменение не видно до max-ttl
+        assertThat(nearCache.get("key").value()).isEqualTo("v1");
+
+        reconnectListener().onRedisConnected(connection, new InetSocketAddress(6379));
+
+        verify(sync, timeout(5000).times(2)).clientTracking(any(TrackingArgs.class));
+        assertThat(awaitValue("key", "v2")).isEqualTo("v2");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void otherConnectionsOfClientAreIgnored() throws Exception {
+        nearCache.get("key");
+
+        reconnectListener().onRedisConnected(mock(RedisChannelHandler.class), new InetSocketAddress(6379));
+        value.set("v2");
+        Thread.sleep(100);
+
+        verify(sync, times(1)).clientTracking(any(TrackingArgs.class));
+        assertThat(nearCache.get("key").value()).isEqualTo("v1");
+    }
+
+    // Очистка идёт в потоке near-cache-invalidation сразу после CLIENT TRACKING
+    private String awaitValue(String key, String expected) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        String current = nearCache.get(key).value();
+        while (!expected.equals(current) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            current = nearCache.get(key).value();
+        }
+        return current;
+    }
+
+    private RedisConnectionStateListener reconnectListener() {
+        ArgumentCaptor<RedisConnectionStateListener> listener = ArgumentCaptor.forClass(RedisConnectionStateListener.class);
+        verify(client).addListener(listener.capture());
+        return listener.getValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static RedisCommands<String, String> mockCommands() {
+        return mock(RedisCommands.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> RedisFuture<T> future(T result) throws Exception {
+        RedisFuture<T> future = mock(RedisFuture.class);
+        when(future.get()).thenReturn(result);
+        return future;
+    }
+}
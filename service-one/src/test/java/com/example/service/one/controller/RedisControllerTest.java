@@ -0,0 +1,74 @@
+package com.example.service.one.controller;
+
+import com.example.service.one.dto.KeyPage;
+import com.example.service.one.service.RedisService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class RedisControllerTest {
+
+    private final RedisService redisService = mock(RedisService.class);
+    private final MockMvc mockMvc = MockMvcBuilders
+            .standaloneSetup(new RedisController(redisService, new ObjectMapper(), 500))
+            .build();
+
+    @Test
+    void streamKeysUsesRequestedCount() throws Exception {
+        doAnswer(inv -> {
+            Consumer<String> action = inv.getArgument(2);
+            action.accept("a");
+            action.accept("b");
+            return null;
+        }).when(redisService).scanKeys(eq("user:*"), anyInt(), any());
+
+        MvcResult result = mockMvc.perform(get("/redis/keys/stream").param("pattern", "user:*").param("count", "50"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string("\"a\"\n\"b\"\n"));
+
+        verify(redisService).scanKeys(eq("user:*"), eq(50), any());
+    }
+
+    @Test
+    void streamKeysClampsCount() throws Exception {
+        MvcResult result = mockMvc.perform(get("/redis/keys/stream").param("count", "0")).andReturn();
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+        verify(redisService).scanKeys(eq("*"), eq(1), any());
+
+        result = mockMvc.perform(get("/redis/keys/stream").param("count", "100000")).andReturn();
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+        verify(redisService).scanKeys(eq("*"), eq(500), any());
+    }
+
+    @Test
+    void keyPageUsesClampedCount() throws Exception {
+        when(redisService.scanKeys("*", "0", 1)).thenReturn(new KeyPage(List.of("a"), "17"));
+
+        mockMvc.perform(get("/redis/keys").param("count", "-5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.keys[0]").value("a"))
+                .andExpect(jsonPath("$.cursor").value("17"));
+    }
+}
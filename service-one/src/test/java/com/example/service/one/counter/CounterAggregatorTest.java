@@ -0,0 +1,274 @@
+package com.example.service.one.counter;
+
+import com.example.service.one.cache.NearCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStringCommands;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatNoException;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Redis заменён картой: INCRBY, MGET и DEL работают с ней, redisDown имитирует недоступность,
+ * а gate задерживает pipeline или DEL, пока тест не отпустит его
+ */
+class CounterAggregatorTest {
+
+    private final Map<String, Long> redis = new ConcurrentHashMap<>();
+    private volatile boolean redisDown;
+    private volatile Gate pipelineGate;
+    private volatile Gate deleteGate;
+
+    @SuppressWarnings("unchecked")
+    private final RedisTemplate<String, String> redisTemplate = mock(RedisTemplate.class);
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void fakeRedis() {
+        ValueOperations<String, String> values = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(values);
+        when(redisTemplate.getStringSerializer()).thenReturn(RedisSerializer.string());
+        when(values.increment(anyString(), anyLong()))
+                .thenAnswer(inv -> incrBy(inv.getArgument(0), inv.getArgument(1)));
+        when(values.multiGet(anyCollection())).thenAnswer(inv -> {
+            checkUp();
+            List<String> result = new ArrayList<>();
+            for (String key : inv.<Collection<String>>getArgument(0)) {
+                Long value = redis.get(key);
+                result.add(value != null ? value.toString() : null);
+            }
+            return result;
+        });
+        when(redisTemplate.delete(anyList())).thenAnswer(inv -> {
+            checkUp();
+            pass(deleteGate);
+            return inv.<List<String>>getArgument(0).stream().filter(key -> redis.remove(key) != null).count();
+        });
+        when(redisTemplate.executePipelined(any(RedisCallback.class))).thenAnswer(inv -> {
+            checkUp();
+            pass(pipelineGate);
+            List<Object> results = new ArrayList<>();
+            RedisStringCommands commands = mock(RedisStringCommands.class);
+            when(commands.incrBy(any(byte[].class), anyLong())).thenAnswer(call -> {
+                results.add(incrBy(new String(call.<byte[]>getArgument(0), StandardCharsets.UTF_8), call.getArgument(1)));
+                return null;
+            });
+            RedisConnection connection = mock(RedisConnection.class);
+            when(connection.stringCommands()).thenReturn(commands);
+            inv.<RedisCallback<Object>>getArgument(0).doInRedis(connection);
+            return results;
+        });
+    }
+
+    @Test
+    void aggregatesOnlyConfiguredPrefixes() {
+        CounterAggregator aggregator = aggregator(1, 1000);
+
+        assertThat(aggregator.isAggregated("counter:views")).isTrue();
+        assertThat(aggregator.isAggregated("views")).isFalse();
+        assertThatIllegalArgumentException().isThrownBy(() -> aggregator.requireNotAggregated("counter:views"));
+        assertThatNoException().isThrownBy(() -> aggregator.requireNotAggregated("views"));
+    }
+
+    @Test
+    void disabledAggregatesNothing() {
+        CounterAggregator aggregator = new CounterAggregator(redisTemplate, mock(NearCache.class),
+                new SimpleMeterRegistry(), false, List.of("counter:"), 1000, 1);
+
+        assertThat(aggregator.isAggregated("counter:views")).isFalse();
+    }
+
+    @Test
+    void incrementsAreBatchedUntilFlush() {
+        CounterAggregator aggregator = aggregator(1, 1000);
+
+        // Первый инкремент читает счётчик строго и сразу попадает в Redis
+        assertThat(aggregator.add("counter:views", 1)).isEqualTo(1);
+        assertThat(aggregator.add("counter:views", 2)).isEqualTo(3);
+        assertThat(aggregator.add("counter:views", 3)).isEqualTo(6);
+        assertThat(redis).containsEntry("counter:views", 1L);
+        assertThat(aggregator.get("counter:views", false)).isEqualTo(6);
+
+        aggregator.flushAll();
+
+        assertThat(redis).containsEntry("counter:views", 6L);
+        assertThat(aggregator.get("counter:views", true)).isEqualTo(6);
+    }
+
+    @Test
+    void thresholdFlushesImmediately() {
+        CounterAggregator aggregator = aggregator(1, 3);
+        aggregator.add("counter:views", 1);
+
+        aggregator.add("counter:views", 1);
+        aggregator.add("counter:views", 1);
+        assertThat(redis).containsEntry("counter:views", 1L);
+
+        aggregator.add("counter:views", 1);
+        assertThat(redis).containsEntry("counter:views", 4L);
+    }
+
+    @Test
+    void failedFlushRestoresPendingDeltas() {
+        CounterAggregator aggregator = aggregator(1, 1000);
+        aggregator.add("counter:views", 1);
+        aggregator.add("counter:views", 4);
+        aggregator.add("counter:clicks", 2);
+
+        redisDown = true;
+        aggregator.flushAll();
+        assertThat(aggregator.get("counter:views", false)).isEqualTo(5);
+        assertThat(aggregator.get("counter:clicks", false)).isEqualTo(2);
+
+        redisDown = false;
+        aggregator.flushAll();
+        assertThat(redis).containsEntry("counter:views", 5L).containsEntry("counter:clicks", 2L);
+    }
+
+    @Test
+    void failedThresholdFlushKeepsDelta() {
+        CounterAggregator aggregator = aggregator(1, 2);
+        aggregator.add("counter:views", 1);
+
+        redisDown = true;
+        aggregator.add("counter:views", 1);
+        aggregator.add("counter:views", 1);
+        assertThat(redis).containsEntry("counter:views", 1L);
+
+        redisDown = false;
+        assertThat(aggregator.get("counter:views", true)).isEqualTo(3);
+        assertThat(redis).containsEntry("counter:views", 3L);
+    }
+
+    @Test
+    void deleteDropsPendingDeltas() {
+        CounterAggregator aggregator = aggregator(1, 1000);
+        aggregator.add("counter:views", 1);
+        aggregator.add("counter:views", 10);
+
+        assertThat(aggregator.delete("counter:views")).isTrue();
+        aggregator.flushAll();
+
+        assertThat(redis).doesNotContainKey("counter:views");
+        assertThat(aggregator.get("counter:views", true)).isZero();
+        assertThat(aggregator.delete("counter:views")).isFalse();
+    }
+
+    @Test
+    void deleteWaitsForRunningFlush() throws Exception {
+        CounterAggregator aggregator = aggregator(1, 1000);
+        aggregator.add("counter:views", 1);
+        aggregator.add("counter:views", 10);
+
+        pipelineGate = new Gate();
+        CompletableFuture<Void> flush = CompletableFuture.runAsync(aggregator::flushAll);
+        pipelineGate.awaitEntered();
+        CompletableFuture<Boolean> delete = CompletableFuture.supplyAsync(() -> aggregator.delete("counter:views"));
+        Thread.sleep(100);
+        assertThat(delete).isNotDone();
+
+        // INCRBY уже взятых изменений уходит до DEL и не воскрешает ключ
+        pipelineGate.release();
+        flush.get(5, TimeUnit.SECONDS);
+        assertThat(delete.get(5, TimeUnit.SECONDS)).isTrue();
+        aggregator.flushAll();
+        assertThat(redis).doesNotContainKey("counter:views");
+    }
+
+    @Test
+    void addDuringDeleteGoesToFreshCounter() throws Exception {
+        CounterAggregator aggregator = aggregator(1, 1000);
+        aggregator.add("counter:views", 1);
+
+        deleteGate = new Gate();
+        CompletableFuture<Boolean> delete = CompletableFuture.supplyAsync(() -> aggregator.delete("counter:views"));
+        deleteGate.awaitEntered();
+        CompletableFuture<Long> add = CompletableFuture.supplyAsync(() -> aggregator.add("counter:views", 5));
+        Thread.sleep(100);
+        assertThat(add).isNotDone();
+
+        deleteGate.release();
+        assertThat(delete.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(add.get(5, TimeUnit.SECONDS)).isEqualTo(5);
+        aggregator.flushAll();
+        assertThat(redis).containsEntry("counter:views", 5L);
+        assertThat(aggregator.get("counter:views", true)).isEqualTo(5);
+    }
+
+    @Test
+    void shardsAreSummedOnRead() {
+        CounterAggregator aggregator = aggregator(4, 1000);
+        for (int i = 0; i < 100; i++) {
+            aggregator.add("counter:views", 1);
+            aggregator.flushAll();
+        }
+
+        assertThat(redis.keySet()).allMatch(key -> key.matches("counter:views:[0-3]"));
+        assertThat(redis.values().stream().mapToLong(Long::longValue).sum()).isEqualTo(100);
+        assertThat(aggregator.get("counter:views", true)).isEqualTo(100);
+
+        assertThat(aggregator.delete("counter:views")).isTrue();
+        assertThat(redis).isEmpty();
+    }
+
+    private CounterAggregator aggregator(int shards, long flushThreshold) {
+        return new CounterAggregator(redisTemplate, mock(NearCache.class), new SimpleMeterRegistry(),
+                true, List.of("counter:"), flushThreshold, shards);
+    }
+
+    private Long incrBy(String key, long delta) {
+        checkUp();
+        return redis.merge(key, delta, Long::sum);
+    }
+
+    private static void pass(Gate gate) throws InterruptedException {
+        if (gate != null) {
+            gate.entered.countDown();
+            gate.released.await(5, TimeUnit.SECONDS);
+        }
+    }
+
+    private void checkUp() {
+        if (redisDown) {
+            throw new RedisConnectionFailureException("Redis недоступен");
+        }
+    }
+
+    private static class Gate {
+        final CountDownLatch entered = new CountDownLatch(1);
+        final CountDownLatch released = new CountDownLatch(1);
+
+        void awaitEntered() throws InterruptedException {
+            assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+        }
+
+        void release() {
+            released.countDown();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.service.one.kafka;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MessageEnvelopeSerializerTest {
+
+    private final MessageEnvelopeSerializer serializer = new MessageEnvelopeSerializer();
+
+    @Test
+    void writesHeaderThenUtf8Body() {
+        MessageEnvelope envelope = new MessageEnvelope(MessageType.JSON, 1_700_000_000_123L, "{\"текст\": 1}");
+
+        ByteBuffer value = ByteBuffer.wrap(serializer.serialize("service-messages", envelope));
+
+        assertThat(value.get()).isEqualTo(MessageEnvelope.MAGIC);
+        assertThat(value.get()).isEqualTo(MessageEnvelope.VERSION);
+        assertThat(value.get()).isEqualTo(MessageType.JSON.code());
+        assertThat(value.getLong()).isEqualTo(1_700_000_000_123L);
+        assertThat(value.position()).isEqualTo(MessageEnvelope.HEADER_SIZE);
+        assertThat(StandardCharsets.UTF_8.decode(value).toString()).isEqualTo("{\"текст\": 1}");
+    }
+
+    @Test
+    void emptyBodyIsHeaderOnly() {
+        byte[] value = serializer.serialize("service-messages", MessageEnvelope.of(MessageType.SIMPLE, ""));
+
+        assertThat(value).hasSize(MessageEnvelope.HEADER_SIZE);
+    }
+
+    @Test
+    void nullEnvelopeIsTombstone() {
+        assertThat(serializer.serialize("service-messages", null)).isNull();
+    }
+}
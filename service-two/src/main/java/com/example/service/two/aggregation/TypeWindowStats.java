@@ -0,0 +1,22 @@
+package com.example.service.two.aggregation;
+
+import com.example.service.two.kafka.MessageType;
+
+import java.time.Instant;
+
+/**
+ * Итог окна по одному типу сообщений. Перцентили — верхняя граница корзины
+ * гистограммы, в которую попал перцентиль. closed = false — окно ещё открыто.
+ */
+public record TypeWindowStats(String window,
+                              Instant start,
+                              Instant end,
+                              MessageType type,
+                              long count,
+                              long errors,
+                              double avgMs,
+                              long p50Ms,
+                              long p99Ms,
+                              long maxMs,
+                              boolean closed) {
+}
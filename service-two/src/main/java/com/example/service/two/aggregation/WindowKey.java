@@ -0,0 +1,6 @@
+package com.example.service.two.aggregation;
+
+import com.example.service.two.kafka.MessageType;
+
+record WindowKey(String window, long start, MessageType type) {
+}
@@ -0,0 +1,16 @@
+package com.example.service.two.aggregation;
+
+import com.example.service.two.kafka.MessageType;
+
+/**
+ * Состояние открытого окна в changelog-топике
+ */
+record WindowSnapshot(String window,
+                      long start,
+                      MessageType type,
+                      long count,
+                      long errors,
+                      long totalMs,
+                      long maxMs,
+                      long[] buckets) {
+}
@@ -0,0 +1,10 @@
+package com.example.service.two.aggregation;
+
+import java.time.Duration;
+
+/**
+ * Окно агрегации: size — длина окна, advance — шаг между началами соседних окон.
+ * advance == size — окна не перекрываются (tumbling), advance &lt; size — скользящие (hopping).
+ */
+public record WindowSpec(String name, Duration size, Duration advance) {
+}
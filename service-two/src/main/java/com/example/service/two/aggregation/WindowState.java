@@ -0,0 +1,99 @@
+package com.example.service.two.aggregation;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Счётчики одного окна по одному типу. Обновляется параллельно из потоков
+ * обработчиков без блокировок.
+ */
+final class WindowState {
+
+    // Верхние границы корзин гистограммы времени обработки, мс; последняя корзина — всё, что дольше
+    static final long[] BOUNDS = {1, 2, 5, 10, 20, 50, 100, 150, 200, 300, 500, 750, 1000, 2000, 5000, 10000};
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder totalMs = new LongAdder();
+    private final AtomicLong maxMs = new AtomicLong();
+    private final AtomicLongArray buckets = new AtomicLongArray(BOUNDS.length + 1);
+    // Изменилось после последней записи в changelog
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    void add(long processingMs, boolean failed) {
+        count.increment();
+        if (failed) {
+            errors.increment();
+        }
+        totalMs.add(processingMs);
+        maxMs.accumulateAndGet(processingMs, Math::max);
+        buckets.incrementAndGet(bucketOf(processingMs));
+        dirty.set(true);
+    }
+
+    boolean takeDirty() {
+        return dirty.getAndSet(false);
+    }
+
+    void markDirty() {
+        dirty.set(true);
+    }
+
+    TypeWindowStats toStats(WindowKey key, long end, boolean closed) {
+        long total = count.sum();
+        return new TypeWindowStats(key.window(), Instant.ofEpochMilli(key.start()),
+                Instant.ofEpochMilli(end), key.type(), total, errors.sum(),
+                total > 0 ? (double) totalMs.sum() / total : 0, percentile(total, 0.50), percentile(total, 0.99),
+                maxMs.get(), closed);
+    }
+
+    WindowSnapshot snapshot(WindowKey key) {
+        long[] values = new long[buckets.length()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = buckets.get(i);
+        }
+        return new WindowSnapshot(key.window(), key.start(), key.type(), count.sum(), errors.sum(),
+                totalMs.sum(), maxMs.get(), values);
+    }
+
+    static WindowState restore(WindowSnapshot snapshot) {
+        WindowState state = new WindowState();
+        state.count.add(snapshot.count());
+        state.errors.add(snapshot.errors());
+        state.totalMs.add(snapshot.totalMs());
+        state.maxMs.set(snapshot.maxMs());
+        long[] values = snapshot.buckets();
+        for (int i = 0; i < Math.min(values.length, state.buckets.length()); i++) {
+            state.buckets.set(i, values[i]);
+        }
+        return state;
+    }
+
+    // Для последней корзины границы нет — берём максимум окна
+    private long percentile(long total, double quantile) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * quantile);
+        long seen = 0;
+        for (int i = 0; i < BOUNDS.length; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                return Math.min(BOUNDS[i], maxMs.get());
+            }
+        }
+        return maxMs.get();
+    }
+
+    private static int bucketOf(long processingMs) {
+        for (int i = 0; i < BOUNDS.length; i++) {
+            if (processingMs <= BOUNDS[i]) {
+                return i;
+            }
+        }
+        return BOUNDS.length;
+    }
+}
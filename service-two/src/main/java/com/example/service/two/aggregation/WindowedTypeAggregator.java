@@ -0,0 +1,241 @@
+package com.example.service.two.aggregation;
+
+import com.example.service.two.kafka.MessageType;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Статистика обработки по типам сообщений в окнах: tumbling (по минутам) и
+ * hopping (5 минут с шагом в минуту). Окна привязаны ко времени обработки.
+ *
+ * Закрытое окно (конец + grace в прошлом) публикуется в service-messages-stats
+ * и хранится для запросов retention. Состояние открытых окон раз в flush-interval
+ * пишется в компактируемый changelog-топик и восстанавливается из него при старте,
+ * поэтому перезапуск теряет не больше одного интервала.
+ */
+@Service
+public class WindowedTypeAggregator {
+
+    public static final String OUTPUT_TOPIC = "service-messages-stats";
+    public static final String CHANGELOG_TOPIC = "service-two-stats-changelog";
+
+    private static final Logger logger = LoggerFactory.getLogger(WindowedTypeAggregator.class);
+
+    private final KafkaTemplate<String, ByteBuffer> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+    private final Map<String, WindowSpec> windows = new LinkedHashMap<>();
+    private final Duration grace;
+    private final Duration retention;
+    // Ключи changelog и результатов начинаются с id экземпляра: у каждого экземпляра свои партиции
+    private final String instanceId;
+    private final String bootstrapServers;
+    private final Duration restoreTimeout;
+    private final ConcurrentMap<WindowKey, WindowState> open = new ConcurrentHashMap<>();
+    private final Queue<TypeWindowStats> closed = new ConcurrentLinkedQueue<>();
+
+    public WindowedTypeAggregator(KafkaTemplate<String, ByteBuffer> kafkaTemplate,
+                                  ObjectMapper objectMapper,
+                                  @Value("${app.aggregation.tumbling.size:1m}") Duration tumblingSize,
+                                  @Value("${app.aggregation.hopping.size:5m}") Duration hoppingSize,
+                                  @Value("${app.aggregation.hopping.advance:1m}") Duration hoppingAdvance,
+                                  @Value("${app.aggregation.grace:5s}") Duration grace,
+                                  @Value("${app.aggregation.retention:1h}") Duration retention,
+                                  @Value("${app.aggregation.instance-id:}") String instanceId,
+                                  @Value("${spring.kafka.bootstrap-servers}") String bootstrapServers,
+                                  @Value("${app.aggregation.restore-timeout:10s}") Duration restoreTimeout) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+        this.windows.put("tumbling", new WindowSpec("tumbling", tumblingSize, tumblingSize));
+        this.windows.put("hopping", new WindowSpec("hopping", hoppingSize, hoppingAdvance));
+        this.grace = grace;
+        this.retention = retention;
+        this.instanceId = resolveInstanceId(instanceId);
+        this.bootstrapServers = bootstrapServers;
+        this.restoreTimeout = restoreTimeout;
+    }
+
+    // Без явного id — имя хоста (в Kubernetes — имя пода): id, общий для нескольких
+    // экземпляров, смешал бы их состояние в changelog
+    private static String resolveInstanceId(String configured) {
+        if (!configured.isBlank()) {
+            return configured;
+        }
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            throw new IllegalStateException(
+                    "Не удалось определить имя хоста: задайте app.aggregation.instance-id (AGGREGATION_INSTANCE_ID)", e);
+        }
+    }
+
+    /**
+     * Учитывает обработанное сообщение во всех окнах, которые содержат текущий момент
+     */
+    public void record(MessageType type, long processingMs, boolean failed) {
+        long now = System.currentTimeMillis();
+        for (WindowSpec spec : windows.values()) {
+            long size = spec.size().toMillis();
+            long advance = spec.advance().toMillis();
+            for (long start = now - Math.floorMod(now, advance); start > now - size; start -= advance) {
+                open.computeIfAbsent(new WindowKey(spec.name(), start, type), key -> new WindowState())
+                        .add(processingMs, failed);
+            }
+        }
+    }
+
+    /**
+     * Открытые и недавно закрытые окна, по времени начала
+     */
+    public List<TypeWindowStats> stats(String window) {
+        List<TypeWindowStats> result = new ArrayList<>();
+        closed.stream().filter(stats -> stats.window().equals(window)).forEach(result::add);
+        open.forEach((key, state) -> {
+            if (key.window().equals(window)) {
+                result.add(state.toStats(key, endOf(key), false));
+            }
+        });
+        result.sort(Comparator.comparing(TypeWindowStats::start).thenComparing(TypeWindowStats::type));
+        return result;
+    }
+
+    public boolean isKnownWindow(String window) {
+        return windows.containsKey(window);
+    }
+
+    @Scheduled(fixedDelayString = "${app.aggregation.flush-interval:10s}")
+    public void flush() {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<WindowKey, WindowState> entry : open.entrySet()) {
+            WindowKey key = entry.getKey();
+            WindowState state = entry.getValue();
+            long end = endOf(key);
+            if (end + grace.toMillis() <= now) {
+                open.remove(key);
+                TypeWindowStats stats = state.toStats(key, end, true);
+                closed.add(stats);
+                send(OUTPUT_TOPIC, instanceId + "|" + key.window() + "|" + key.type(), stats, null);
+                // Tombstone: компактирование уберёт закрытое окно из changelog
+                send(CHANGELOG_TOPIC, changelogKey(key), null, null);
+            } else if (state.takeDirty()) {
+                send(CHANGELOG_TOPIC, changelogKey(key), state.snapshot(key), state);
+            }
+        }
+        closed.removeIf(stats -> stats.end().toEpochMilli() < now - retention.toMillis());
+    }
+
+    /**
+     * Восстанавливает открытые окна этого экземпляра из changelog до начала чтения сообщений.
+     * Если Kafka недоступна, агрегация начинается с пустого состояния.
+     */
+    @PostConstruct
+    public void restore() {
+        Map<String, Object> props = Map.of(
+                ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers,
+                ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        try (KafkaConsumer<String, byte[]> consumer =
+                     new KafkaConsumer<>(props, new StringDeserializer(), new ByteArrayDeserializer())) {
+            List<TopicPartition> partitions = consumer.partitionsFor(CHANGELOG_TOPIC, restoreTimeout).stream()
+                    .map(info -> new TopicPartition(info.topic(), info.partition()))
+                    .toList();
+            if (partitions.isEmpty()) {
+                return;
+            }
+            consumer.assign(partitions);
+            consumer.seekToBeginning(partitions);
+            Map<TopicPartition, Long> endOffsets = consumer.endOffsets(partitions, restoreTimeout);
+
+            Map<String, WindowSnapshot> latest = new HashMap<>();
+            long deadline = System.currentTimeMillis() + restoreTimeout.toMillis();
+            while (!reachedEnd(consumer, endOffsets) && System.currentTimeMillis() < deadline) {
+                for (ConsumerRecord<String, byte[]> record : consumer.poll(Duration.ofMillis(500))) {
+                    if (record.key() == null || !record.key().startsWith(instanceId + "|")) {
+                        continue;
+                    }
+                    if (record.value() == null) {
+                        latest.remove(record.key());
+                    } else {
+                        latest.put(record.key(), objectMapper.readValue(record.value(), WindowSnapshot.class));
+                    }
+                }
+            }
+
+            for (WindowSnapshot snapshot : latest.values()) {
+                if (windows.containsKey(snapshot.window())) {
+                    open.put(new WindowKey(snapshot.window(), snapshot.start(), snapshot.type()),
+                            WindowState.restore(snapshot));
+                }
+            }
+            logger.info("Восстановлено окон статистики из {}: {}", CHANGELOG_TOPIC, open.size());
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Окна статистики не восстановлены, агрегация начнётся с нуля: {}", e.getMessage());
+        }
+    }
+
+    private static boolean reachedEnd(KafkaConsumer<?, ?> consumer, Map<TopicPartition, Long> endOffsets) {
+        return endOffsets.entrySet().stream()
+                .allMatch(entry -> consumer.position(entry.getKey()) >= entry.getValue());
+    }
+
+    private long endOf(WindowKey key) {
+        return key.start() + windows.get(key.window()).size().toMillis();
+    }
+
+    private String changelogKey(WindowKey key) {
+        return instanceId + "|" + key.window() + "|" + key.start() + "|" + key.type();
+    }
+
+    // Снимок, не дошедший до брокера, будет отправлен при следующем flush
+    private void send(String topic, String key, Object value, WindowState state) {
+        ByteBuffer payload;
+        try {
+            payload = value != null ? ByteBuffer.wrap(objectMapper.writeValueAsBytes(value)) : null;
+        } catch (JsonProcessingException e) {
+            logger.error("❌ Не удалось сериализовать статистику {}: {}", key, e.getOriginalMessage());
+            return;
+        }
+        try {
+            kafkaTemplate.send(topic, key, payload).whenComplete((result, ex) -> {
+                if (ex != null) {
+                    if (state != null) {
+                        state.markDirty();
+                    }
+                    logger.warn("Статистика {} не отправлена в {}: {}", key, topic, ex.getMessage());
+                }
+            });
+        } catch (RuntimeException e) {
+            if (state != null) {
+                state.markDirty();
+            }
+            logger.warn("Статистика {} не отправлена в {}: {}", key, topic, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.service.two.commit;
+
+/**
+ * Когда коммитить offset'ы обработанных записей
+ */
+public enum CommitMode {
+
+    // После каждой обработанной записи
+    RECORD,
+
+    // Один раз после обработки всех записей poll'а
+    BATCH,
+
+    // Не чаще, чем раз в app.kafka.consumer.commit.interval
+    TIME,
+
+    // После накопления app.kafka.consumer.commit.count обработанных записей
+    COUNT
+}
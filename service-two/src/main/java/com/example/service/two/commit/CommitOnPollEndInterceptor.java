@@ -0,0 +1,33 @@
+package com.example.service.two.commit;
+
+import lombok.RequiredArgsConstructor;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.springframework.kafka.listener.BatchInterceptor;
+import org.springframework.kafka.listener.RecordInterceptor;
+
+/**
+ * Сообщает движку коммитов о конце цикла poll'а: контейнер вызывает
+ * clearThreadState в потоке консьюмера после обработки всех записей poll'а
+ */
+@RequiredArgsConstructor
+public class CommitOnPollEndInterceptor<K, V> implements RecordInterceptor<K, V>, BatchInterceptor<K, V> {
+
+    private final OffsetCommitEngine commitEngine;
+
+    @Override
+    public ConsumerRecord<K, V> intercept(ConsumerRecord<K, V> record, Consumer<K, V> consumer) {
+        return record;
+    }
+
+    @Override
+    public ConsumerRecords<K, V> intercept(ConsumerRecords<K, V> records, Consumer<K, V> consumer) {
+        return records;
+    }
+
+    @Override
+    public void clearThreadState(Consumer<?, ?> consumer) {
+        commitEngine.afterPoll(consumer);
+    }
+}
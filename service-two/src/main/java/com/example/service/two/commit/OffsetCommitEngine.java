@@ -0,0 +1,222 @@
+package com.example.service.two.commit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.event.ConsumerStoppingEvent;
+import org.springframework.kafka.event.ListenerContainerIdleEvent;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Коммитит offset'ы вместо контейнера (контейнеры работают в AckMode.MANUAL).
+ *
+ * Листенеры сообщают о взятых в обработку и обработанных записях, движок копит
+ * непрерывные префиксы завершённых offset'ов и коммитит их асинхронно по выбранному
+ * режиму. Все обработанные с прошлого коммита записи уходят одним commitAsync.
+ * Сам коммит всегда выполняется в потоке консьюмера: KafkaConsumer не потокобезопасен.
+ */
+@Component
+public class OffsetCommitEngine implements ConsumerAwareRebalanceListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(OffsetCommitEngine.class);
+
+    private final CommitMode mode;
+    private final Duration interval;
+    private final long count;
+
+    private final Timer commitLatency;
+    private final Counter commitsSucceeded;
+    private final Counter commitsFailed;
+
+    // Состояние коммитов отдельно для каждого консьюмера контейнера
+    private final Map<Consumer<?, ?>, CommitState> states = new ConcurrentHashMap<>();
+
+    public OffsetCommitEngine(MeterRegistry meterRegistry,
+                              @Value("${app.kafka.consumer.commit.mode:batch}") CommitMode mode,
+                              @Value("${app.kafka.consumer.commit.interval:1s}") Duration interval,
+                              @Value("${app.kafka.consumer.commit.count:100}") long count) {
+        this.mode = mode;
+        this.interval = interval;
+        this.count = count;
+
+        this.commitLatency = Timer.builder("kafka.consumer.commit.latency")
+                .description("Время от отправки коммита offset'ов до ответа брокера")
+                .tag("mode", mode.name().toLowerCase())
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        this.commitsSucceeded = Counter.builder("kafka.consumer.commits")
+                .description("Количество коммитов offset'ов")
+                .tag("mode", mode.name().toLowerCase())
+                .tag("result", "success")
+                .register(meterRegistry);
+        this.commitsFailed = Counter.builder("kafka.consumer.commits")
+                .description("Количество коммитов offset'ов")
+                .tag("mode", mode.name().toLowerCase())
+                .tag("result", "failure")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Запись взята в обработку — её offset нельзя коммитить, пока она не завершится
+     */
+    public void track(Consumer<?, ?> consumer, ConsumerRecord<?, ?> record) {
+        state(consumer).tracker.track(topicPartition(record), record.offset());
+    }
+
+    /**
+     * Запись обработана (или передана в retry-топик). Можно вызывать из любого потока.
+     */
+    public void complete(Consumer<?, ?> consumer, ConsumerRecord<?, ?> record) {
+        CommitState state = state(consumer);
+        state.tracker.complete(topicPartition(record), record.offset());
+        state.completedSinceCommit.incrementAndGet();
+    }
+
+    /**
+     * Вызывается в потоке консьюмера после каждой записи
+     */
+    public void afterRecord(Consumer<?, ?> consumer) {
+        CommitState state = state(consumer);
+        boolean due = switch (mode) {
+            case RECORD -> true;
+            case COUNT -> state.completedSinceCommit.get() >= count;
+            case TIME -> state.intervalElapsed(interval);
+            case BATCH -> false;
+        };
+        if (due) {
+            commitAsync(consumer, state);
+        }
+    }
+
+    /**
+     * Вызывается в потоке консьюмера после обработки всех записей poll'а
+     */
+    public void afterPoll(Consumer<?, ?> consumer) {
+        CommitState state = state(consumer);
+        boolean due = switch (mode) {
+            case RECORD, BATCH -> true;
+            case COUNT -> state.completedSinceCommit.get() >= count;
+            case TIME -> state.intervalElapsed(interval);
+        };
+        if (due) {
+            commitAsync(consumer, state);
+        }
+    }
+
+    /**
+     * Партиции, которые нужно перечитать: первый незавершённый offset по каждой
+     */
+    public Map<TopicPartition, Long> pendingPositions(Consumer<?, ?> consumer) {
+        return state(consumer).tracker.pendingPositions();
+    }
+
+    // Новых записей нет — дожимаем накопленное, чтобы TIME/COUNT не держали offset'ы бесконечно
+    @EventListener
+    public void onIdle(ListenerContainerIdleEvent event) {
+        CommitState state = states.get(event.getConsumer());
+        if (state != null) {
+            commitAsync(event.getConsumer(), state);
+        }
+    }
+
+    @EventListener
+    public void onStopping(ConsumerStoppingEvent event) {
+        CommitState state = states.remove(event.getConsumer());
+        if (state != null) {
+            commitSync(event.getConsumer(), state);
+        }
+    }
+
+    // Перед отдачей партиций другому консьюмеру синхронно фиксируем всё обработанное
+    @Override
+    public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        CommitState state = states.get(consumer);
+        if (state != null) {
+            commitSync(consumer, state);
+            state.tracker.remove(partitions);
+        }
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        CommitState state = states.get(consumer);
+        if (state != null) {
+            state.tracker.remove(partitions);
+        }
+    }
+
+    private void commitAsync(Consumer<?, ?> consumer, CommitState state) {
+        Map<TopicPartition, OffsetAndMetadata> offsets = state.drain();
+        if (offsets.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        consumer.commitAsync(offsets, (committed, exception) -> {
+            commitLatency.record(Duration.ofNanos(System.nanoTime() - start));
+            if (exception == null) {
+                commitsSucceeded.increment();
+            } else {
+                // Следующий коммит всё равно покроет эти offset'ы
+                commitsFailed.increment();
+                logger.warn("⚠️ Асинхронный коммит offset'ов не удался: {}", exception.getMessage());
+            }
+        });
+    }
+
+    private void commitSync(Consumer<?, ?> consumer, CommitState state) {
+        Map<TopicPartition, OffsetAndMetadata> offsets = state.drain();
+        if (offsets.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            consumer.commitSync(offsets);
+            commitsSucceeded.increment();
+        } catch (RuntimeException e) {
+            commitsFailed.increment();
+            logger.warn("⚠️ Синхронный коммит offset'ов не удался: {}", e.getMessage());
+        } finally {
+            commitLatency.record(Duration.ofNanos(System.nanoTime() - start));
+        }
+    }
+
+    private CommitState state(Consumer<?, ?> consumer) {
+        return states.computeIfAbsent(consumer, c -> new CommitState());
+    }
+
+    private static TopicPartition topicPartition(ConsumerRecord<?, ?> record) {
+        return new TopicPartition(record.topic(), record.partition());
+    }
+
+    private static class CommitState {
+
+        private final OffsetTracker tracker = new OffsetTracker();
+        private final AtomicLong completedSinceCommit = new AtomicLong();
+        private volatile long lastCommitNanos = System.nanoTime();
+
+        private boolean intervalElapsed(Duration interval) {
+            return System.nanoTime() - lastCommitNanos >= interval.toNanos();
+        }
+
+        private Map<TopicPartition, OffsetAndMetadata> drain() {
+            completedSinceCommit.set(0);
+            lastCommitNanos = System.nanoTime();
+            return tracker.drainCommittable();
+        }
+    }
+}
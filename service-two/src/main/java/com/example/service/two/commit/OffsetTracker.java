@@ -0,0 +1,78 @@
+package com.example.service.two.commit;
+
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Отслеживает завершение обработки записей по каждой партиции.
+ * Коммитить можно только до наибольшего непрерывно завершённого offset'а:
+ * если запись 5 обработана, а запись 4 ещё нет — коммитим только до 4.
+ */
+public class OffsetTracker {
+
+    // offset -> завершена ли обработка, отдельно для каждой партиции
+    private final Map<TopicPartition, NavigableMap<Long, Boolean>> partitions = new HashMap<>();
+
+    /**
+     * Регистрирует запись как взятую в обработку
+     */
+    public synchronized void track(TopicPartition partition, long offset) {
+        partitions.computeIfAbsent(partition, p -> new TreeMap<>()).put(offset, Boolean.FALSE);
+    }
+
+    /**
+     * Отмечает запись как обработанную
+     */
+    public synchronized void complete(TopicPartition partition, long offset) {
+        NavigableMap<Long, Boolean> offsets = partitions.get(partition);
+        if (offsets != null && offsets.containsKey(offset)) {
+            offsets.put(offset, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Возвращает offset'ы для коммита (следующий offset после непрерывного
+     * префикса завершённых записей) и убирает этот префикс из трекера
+     */
+    public synchronized Map<TopicPartition, OffsetAndMetadata> drainCommittable() {
+        Map<TopicPartition, OffsetAndMetadata> result = new HashMap<>();
+        for (Map.Entry<TopicPartition, NavigableMap<Long, Boolean>> entry : partitions.entrySet()) {
+            NavigableMap<Long, Boolean> offsets = entry.getValue();
+            Long lastCompleted = null;
+            while (!offsets.isEmpty() && offsets.firstEntry().getValue()) {
+                lastCompleted = offsets.pollFirstEntry().getKey();
+            }
+            if (lastCompleted != null) {
+                result.put(entry.getKey(), new OffsetAndMetadata(lastCompleted + 1));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Возвращает первый незавершённый offset по каждой партиции —
+     * с него нужно перечитать партицию после таймаута обработки
+     */
+    public synchronized Map<TopicPartition, Long> pendingPositions() {
+        Map<TopicPartition, Long> result = new HashMap<>();
+        partitions.forEach((partition, offsets) -> {
+            if (!offsets.isEmpty()) {
+                result.put(partition, offsets.firstKey());
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Забывает партиции, которые консьюмер больше не читает (ребалансировка)
+     */
+    public synchronized void remove(Collection<TopicPartition> revoked) {
+        revoked.forEach(partitions::remove);
+    }
+}
@@ -1,16 +1,32 @@
 package com.example.service.two.config;
 
+import com.example.service.two.commit.CommitOnPollEndInterceptor;
+import com.example.service.two.commit.OffsetCommitEngine;
+import com.example.service.two.service.RetryTopicForwarder;
+import org.apache.kafka.clients.admin.NewTopic;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.ByteBufferDeserializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.TopicBuilder;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.MicrometerConsumerListener;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.util.backoff.FixedBackOff;
 
+import java.nio.ByteBuffer;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @Configuration
 public class KafkaConsumerConfig {
@@ -18,27 +34,110 @@ public class KafkaConsumerConfig {
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
+    // Количество потоков-консьюмеров в контейнере (не больше числа партиций топика)
+    @Value("${app.kafka.consumer.concurrency:1}")
+    private int concurrency;
+
+    // Сколько записей отдаёт один poll в пакетном режиме
+    @Value("${app.kafka.consumer.max-poll-records:500}")
+    private int maxPollRecords;
+
+    @Value("${app.kafka.consumer.worker.virtual-threads:true}")
+    private boolean virtualThreads;
+
+    // Общий переключатель режима потоков: фабрики ниже собраны вручную,
+    // поэтому Spring Boot не назначает им исполнитель сам
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualListenerThreads;
+
+    @Value("${app.kafka.consumer.worker.pool-size:16}")
+    private int workerPoolSize;
+
+    // Как часто контейнер сообщает о простое — движок коммитов дожимает накопленные offset'ы
+    @Value("${app.kafka.consumer.commit.interval:1s}")
+    private Duration commitInterval;
+
     @Bean
     public Map<String, Object> consumerConfigs() {
         Map<String, Object> props = new HashMap<>();
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        // Значение отдаётся срезом буфера выборки без копирования; разбирает его MessageEnvelope
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteBufferDeserializer.class);
         props.put(ConsumerConfig.GROUP_ID_CONFIG, "service-two-group");
         props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, maxPollRecords);
+        // Offset'ы коммитит OffsetCommitEngine, автокоммит клиента отключён
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
         return props;
     }
 
+    // Метрики клиента Kafka, в том числе отставание по каждой партиции
+    // (kafka.consumer.fetch.manager.records.lag{topic, partition})
     @Bean
-    public ConsumerFactory<String, String> consumerFactory() {
-        return new DefaultKafkaConsumerFactory<>(consumerConfigs());
+    public ConsumerFactory<String, ByteBuffer> consumerFactory(MeterRegistry meterRegistry) {
+        DefaultKafkaConsumerFactory<String, ByteBuffer> factory = new DefaultKafkaConsumerFactory<>(consumerConfigs());
+        factory.addListener(new MicrometerConsumerListener<>(meterRegistry));
+        return factory;
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, ByteBuffer> kafkaListenerContainerFactory(
+            ConsumerFactory<String, ByteBuffer> consumerFactory, OffsetCommitEngine commitEngine) {
+        ConcurrentKafkaListenerContainerFactory<String, ByteBuffer> factory = manualCommitFactory(consumerFactory, commitEngine);
+        factory.setRecordInterceptor(new CommitOnPollEndInterceptor<>(commitEngine));
+        // Если запись не удалось ни обработать, ни переслать в retry-топик — перечитываем её
+        factory.setCommonErrorHandler(new DefaultErrorHandler(new FixedBackOff(1000L, FixedBackOff.UNLIMITED_ATTEMPTS)));
+        return factory;
     }
 
+    // Фабрика для пакетного режима: весь результат poll'а приходит одним списком
+    // и обрабатывается листенером параллельно
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, String> kafkaListenerContainerFactory() {
-        ConcurrentKafkaListenerContainerFactory<String, String> factory =
+    public ConcurrentKafkaListenerContainerFactory<String, ByteBuffer> batchKafkaListenerContainerFactory(
+            ConsumerFactory<String, ByteBuffer> consumerFactory, OffsetCommitEngine commitEngine) {
+        ConcurrentKafkaListenerContainerFactory<String, ByteBuffer> factory = manualCommitFactory(consumerFactory, commitEngine);
+        factory.setBatchListener(true);
+        factory.setBatchInterceptor(new CommitOnPollEndInterceptor<>(commitEngine));
+        return factory;
+    }
+
+    // Контейнер сам ничего не коммитит: это делает OffsetCommitEngine по выбранному режиму
+    private ConcurrentKafkaListenerContainerFactory<String, ByteBuffer> manualCommitFactory(
+            ConsumerFactory<String, ByteBuffer> consumerFactory, OffsetCommitEngine commitEngine) {
+        ConcurrentKafkaListenerContainerFactory<String, ByteBuffer> factory =
                 new ConcurrentKafkaListenerContainerFactory<>();
-        factory.setConsumerFactory(consumerFactory());
+        factory.setConsumerFactory(consumerFactory);
+        factory.setConcurrency(concurrency);
+        ContainerProperties containerProperties = factory.getContainerProperties();
+        containerProperties.setAckMode(ContainerProperties.AckMode.MANUAL);
+        containerProperties.setConsumerRebalanceListener(commitEngine);
+        containerProperties.setIdleEventInterval(commitInterval.toMillis());
+        if (virtualListenerThreads) {
+            // Поток консьюмера каждого контейнера — виртуальный
+            SimpleAsyncTaskExecutor listenerExecutor = new SimpleAsyncTaskExecutor("kafka-listener-");
+            listenerExecutor.setVirtualThreads(true);
+            containerProperties.setListenerTaskExecutor(listenerExecutor);
+        }
         return factory;
     }
+
+    @Bean
+    public NewTopic retryTopic() {
+        return TopicBuilder.name(RetryTopicForwarder.RETRY_TOPIC).partitions(1).replicas(1).build();
+    }
+
+    @Bean
+    public NewTopic deadLetterTopic() {
+        return TopicBuilder.name(RetryTopicForwarder.DLT_TOPIC).partitions(1).replicas(1).build();
+    }
+
+    // Пул обработчиков записей пакетного листенера
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService messageWorkerExecutor() {
+        if (virtualThreads) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("message-worker-", 0).factory());
+        }
+        return Executors.newFixedThreadPool(workerPoolSize, Thread.ofPlatform().name("message-worker-", 0).factory());
+    }
 }
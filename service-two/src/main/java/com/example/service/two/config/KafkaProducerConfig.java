@@ -0,0 +1,67 @@
+package com.example.service.two.config;
+
+import com.example.service.two.aggregation.WindowedTypeAggregator;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteBufferSerializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.MicrometerProducerListener;
+import org.springframework.kafka.core.ProducerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+// Продюсер service-two: пересылка сообщений в retry-топик и DLT, публикация статистики по типам
+@Configuration
+public class KafkaProducerConfig {
+
+    @Value("${spring.kafka.bootstrap-servers}")
+    private String bootstrapServers;
+
+    @Value("${app.kafka.producer.compression-type:lz4}")
+    private String compressionType;
+
+    @Bean
+    public Map<String, Object> producerConfigs() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        // Записи пересылаются как есть — конверт или строка старого формата
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteBufferSerializer.class);
+        props.put(ProducerConfig.ACKS_CONFIG, "all");
+        props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        props.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+        return props;
+    }
+
+    @Bean
+    public ProducerFactory<String, ByteBuffer> producerFactory(MeterRegistry meterRegistry) {
+        DefaultKafkaProducerFactory<String, ByteBuffer> factory = new DefaultKafkaProducerFactory<>(producerConfigs());
+        factory.addListener(new MicrometerProducerListener<>(meterRegistry));
+        return factory;
+    }
+
+    @Bean
+    public KafkaTemplate<String, ByteBuffer> kafkaTemplate(ProducerFactory<String, ByteBuffer> producerFactory) {
+        return new KafkaTemplate<>(producerFactory);
+    }
+
+    @Bean
+    public NewTopic statsTopic() {
+        return TopicBuilder.name(WindowedTypeAggregator.OUTPUT_TOPIC).partitions(1).replicas(1).build();
+    }
+
+    // Хранится только последнее состояние каждого окна
+    @Bean
+    public NewTopic statsChangelogTopic() {
+        return TopicBuilder.name(WindowedTypeAggregator.CHANGELOG_TOPIC).partitions(1).replicas(1).compact().build();
+    }
+}
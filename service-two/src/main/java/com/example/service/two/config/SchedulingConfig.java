@@ -0,0 +1,10 @@
+package com.example.service.two.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Фоновые задачи по расписанию (закрытие окон статистики и запись changelog)
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,29 @@
+package com.example.service.two.controller;
+
+import com.example.service.two.aggregation.TypeWindowStats;
+import com.example.service.two.aggregation.WindowedTypeAggregator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+// Статистика обработки по типам сообщений: window=tumbling | hopping
+@RestController
+@RequestMapping("/two/stats")
+@RequiredArgsConstructor
+public class StatsController {
+
+    private final WindowedTypeAggregator aggregator;
+
+    @GetMapping
+    public ResponseEntity<List<TypeWindowStats>> stats(@RequestParam(defaultValue = "tumbling") String window) {
+        if (!aggregator.isKnownWindow(window)) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(aggregator.stats(window));
+    }
+}
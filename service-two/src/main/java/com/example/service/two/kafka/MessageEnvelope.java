@@ -0,0 +1,120 @@
+package com.example.service.two.kafka;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Значение записи service-messages без копирования: читает поля конверта прямо
+ * из ByteBuffer, который отдаёт ByteBufferDeserializer.
+ *
+ * Формат конверта (service-one, MessageEnvelope): magic 0xFF, версия, код типа,
+ * время создания (8 байт), тело в UTF-8. Запись без magic-байта — строка старого
+ * формата: её тип по-прежнему определяется по содержимому.
+ */
+public final class MessageEnvelope {
+
+    public static final byte MAGIC = (byte) 0xFF;
+    public static final byte VERSION = 1;
+    public static final int HEADER_SIZE = 11;
+
+    private static final int TYPE_OFFSET = 2;
+    private static final int CREATED_AT_OFFSET = 3;
+
+    private final ByteBuffer value;
+    private final int bodyStart;
+    private final boolean typed;
+
+    private MessageEnvelope(ByteBuffer value, boolean typed) {
+        this.value = value;
+        this.typed = typed;
+        this.bodyStart = value.position() + (typed ? HEADER_SIZE : 0);
+    }
+
+    /**
+     * Оборачивает значение записи; позиция буфера не меняется
+     */
+    public static MessageEnvelope wrap(ByteBuffer value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Empty or null message received");
+        }
+        int start = value.position();
+        if (value.remaining() == 0 || value.get(start) != MAGIC) {
+            return new MessageEnvelope(value, false);
+        }
+        if (value.remaining() < HEADER_SIZE) {
+            throw new IllegalArgumentException("Truncated message envelope: " + value.remaining() + " bytes");
+        }
+        if (value.get(start + 1) != VERSION) {
+            throw new IllegalArgumentException("Unsupported message envelope version: " + value.get(start + 1));
+        }
+        return new MessageEnvelope(value, true);
+    }
+
+    // false — строка старого формата
+    public boolean isTyped() {
+        return typed;
+    }
+
+    /**
+     * Тип из конверта — один байт, тело не читается
+     */
+    public MessageType type() {
+        if (typed) {
+            return MessageType.ofCode(value.get(value.position() + TYPE_OFFSET));
+        }
+        return MessageType.classify(text());
+    }
+
+    // Время создания сообщения у отправителя, epoch ms; -1 для старого формата
+    public long createdAt() {
+        return typed ? value.getLong(value.position() + CREATED_AT_OFFSET) : -1L;
+    }
+
+    // Длина тела в байтах
+    public int bodyLength() {
+        return value.limit() - bodyStart;
+    }
+
+    /**
+     * true, если тело пустое или из одних пробельных и управляющих символов
+     * (как String.trim().isEmpty()). Просмотр останавливается на первом значащем байте.
+     */
+    public boolean isBlank() {
+        for (int i = bodyStart; i < value.limit(); i++) {
+            byte b = value.get(i);
+            // Байты многобайтовых символов UTF-8 отрицательны
+            if (b < 0 || b > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Начало тела не длиннее maxChars символов — для логов.
+     * Декодируется только нужный префикс.
+     */
+    public String preview(int maxChars) {
+        CharBuffer out = CharBuffer.allocate(maxChars);
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        ByteBuffer in = body();
+        decoder.decode(in, out, true);
+        String text = out.flip().toString();
+        return in.hasRemaining() ? text + "..." : text;
+    }
+
+    // Тело целиком как строка
+    public String text() {
+        return StandardCharsets.UTF_8.decode(body()).toString();
+    }
+
+    // Тело без копирования: отдельный буфер над теми же байтами
+    public ByteBuffer body() {
+        return value.duplicate().position(bodyStart);
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.service.two.kafka;
+
+/**
+ * Тип сообщения топика service-messages. Коды совпадают с кодами отправителя
+ * (service-one, MessageType) и не меняются.
+ */
+public enum MessageType {
+
+    SIMPLE(0),
+    JSON(1),
+    ERROR(2),
+    TEST(3),
+    LARGE(4);
+
+    private static final MessageType[] BY_CODE = values();
+
+    private final byte code;
+
+    MessageType(int code) {
+        this.code = (byte) code;
+    }
+
+    public byte code() {
+        return code;
+    }
+
+    /**
+     * Тип по коду из конверта. Неизвестный код (тип, добавленный отправителем
+     * позже) обрабатывается как SIMPLE.
+     */
+    public static MessageType ofCode(byte code) {
+        return code >= 0 && code < BY_CODE.length ? BY_CODE[code] : SIMPLE;
+    }
+
+    /**
+     * Тип сообщения старого строкового формата — по содержимому
+     */
+    public static MessageType classify(String message) {
+        String lowerMessage = message.toLowerCase();
+
+        if (lowerMessage.contains("json") || lowerMessage.startsWith("{")) {
+            return JSON;
+        } else if (lowerMessage.contains("error") || lowerMessage.contains("ошибка")) {
+            return ERROR;
+        } else if (lowerMessage.contains("test") || lowerMessage.contains("тест")) {
+            return TEST;
+        } else if (lowerMessage.length() > 100) {
+            return LARGE;
+        } else {
+            return SIMPLE;
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.example.service.two.listener;
+
+import com.example.service.two.commit.OffsetCommitEngine;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.event.ConsumerStoppingEvent;
+import org.springframework.kafka.event.ListenerContainerIdleEvent;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Пакетный режим чтения топика: записи одного poll'а раздаются пулу обработчиков.
+ * Записи с одинаковым ключом обрабатываются последовательно в порядке offset'ов,
+ * записи без ключа — независимо друг от друга. Движок коммитов фиксирует только
+ * непрерывный префикс завершённых записей каждой партиции, остальное перечитывается.
+ *
+ * Если пакет не успел обработаться за batch-timeout, партиции с ещё работающими
+ * цепочками ставятся на паузу: их записи не перечитываются, пока старые цепочки
+ * не завершатся, иначе одна запись обрабатывалась бы дважды параллельно.
+ */
+@Component
+public class BatchMessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchMessageListener.class);
+    private static final Logger kafkaConsumerLogger = LoggerFactory.getLogger("KAFKA_CONSUMER");
+
+    private static final String TOPIC = "service-messages";
+
+    private final MessageListener messageListener;
+    private final OffsetCommitEngine commitEngine;
+    private final ExecutorService workerExecutor;
+    private final Semaphore inFlight;
+    private final Duration batchTimeout;
+    // Цепочки партиций, не завершившиеся за batch-timeout. Общие для всех консьюмеров:
+    // после ребалансировки партиция может перейти к другому потоку контейнера
+    private final Map<TopicPartition, CompletableFuture<Void>> unfinished = new ConcurrentHashMap<>();
+    // Партиции, поставленные консьюмером на паузу; каждый набор меняет только поток своего консьюмера
+    private final Map<Consumer<?, ?>, Set<TopicPartition>> paused = new ConcurrentHashMap<>();
+
+    public BatchMessageListener(MessageListener messageListener,
+                                OffsetCommitEngine commitEngine,
+                                @Qualifier("messageWorkerExecutor") ExecutorService workerExecutor,
+                                @Value("${app.kafka.consumer.worker.pool-size:16}") int poolSize,
+                                @Value("${app.kafka.consumer.worker.batch-timeout:30s}") Duration batchTimeout) {
+        this.messageListener = messageListener;
+        this.commitEngine = commitEngine;
+        this.workerExecutor = workerExecutor;
+        this.inFlight = new Semaphore(poolSize);
+        this.batchTimeout = batchTimeout;
+    }
+
+    @KafkaListener(topics = TOPIC, groupId = "service-two-group",
+            containerFactory = "batchKafkaListenerContainerFactory",
+            autoStartup = "${app.kafka.consumer.batch.enabled:false}")
+    public void listenBatch(List<ConsumerRecord<String, ByteBuffer>> records, Consumer<?, ?> consumer) {
+        resumeFinished(consumer);
+        if (records.isEmpty()) {
+            return;
+        }
+
+        long batchStart = System.currentTimeMillis();
+        long deadline = System.nanoTime() + batchTimeout.toNanos();
+        Map<TopicPartition, List<CompletableFuture<Void>>> chains = new LinkedHashMap<>();
+        boolean saturated = false;
+
+        for (Map.Entry<TopicPartition, List<ConsumerRecord<String, ByteBuffer>>> entry : byPartition(records).entrySet()) {
+            TopicPartition partition = entry.getKey();
+            List<ConsumerRecord<String, ByteBuffer>> partitionRecords = entry.getValue();
+            if (busy(partition)) {
+                // Партиция вернулась после ребалансировки, а цепочки прежнего владельца ещё
+                // работают: её записи возьмём заново, когда они завершатся
+                consumer.seek(partition, partitionRecords.get(0).offset());
+                pause(consumer, partition);
+                continue;
+            }
+            // Все записи отслеживаются до запуска: не запущенные останутся незавершёнными и будут перечитаны
+            partitionRecords.forEach(record -> commitEngine.track(consumer, record));
+            List<CompletableFuture<Void>> partitionChains = chains.computeIfAbsent(partition, p -> new ArrayList<>());
+            for (List<ConsumerRecord<String, ByteBuffer>> chain : splitByKey(partitionRecords)) {
+                if (saturated || !acquire(deadline)) {
+                    saturated = true;
+                    break;
+                }
+                partitionChains.add(submit(chain, consumer));
+            }
+        }
+
+        awaitCompletion(chains.values().stream().flatMap(List::stream).toList(), deadline);
+
+        // Незавершённое перечитаем со следующим poll'ом; коммит сделает движок в конце цикла poll'а.
+        // Партиции с работающими цепочками перечитаем только после их завершения
+        Map<TopicPartition, Long> pending = commitEngine.pendingPositions(consumer);
+        int reread = 0;
+        for (Map.Entry<TopicPartition, List<CompletableFuture<Void>>> entry : chains.entrySet()) {
+            TopicPartition partition = entry.getKey();
+            CompletableFuture<Void> running = CompletableFuture.allOf(entry.getValue().toArray(new CompletableFuture[0]));
+            if (!running.isDone()) {
+                unfinished.put(partition, running);
+                pause(consumer, partition);
+            } else if (pending.containsKey(partition)) {
+                consumer.seek(partition, pending.get(partition));
+                reread++;
+            }
+        }
+
+        kafkaConsumerLogger.info("Batch processed - Records: {}, Chains: {}, Partitions to re-read: {}, Paused: {}, Time: {}ms",
+                records.size(), chains.values().stream().mapToInt(List::size).sum(), reread,
+                paused.getOrDefault(consumer, Set.of()).size(), System.currentTimeMillis() - batchStart);
+    }
+
+    // Новых записей нет (например, все партиции на паузе): снимаем паузу с завершившихся.
+    // Событие публикуется в потоке консьюмера, поэтому работать с ним здесь можно
+    @EventListener
+    public void onIdle(ListenerContainerIdleEvent event) {
+        resumeFinished(event.getConsumer());
+    }
+
+    @EventListener
+    public void onStopping(ConsumerStoppingEvent event) {
+        paused.remove(event.getConsumer());
+    }
+
+    private Map<TopicPartition, List<ConsumerRecord<String, ByteBuffer>>> byPartition(
+            List<ConsumerRecord<String, ByteBuffer>> records) {
+        Map<TopicPartition, List<ConsumerRecord<String, ByteBuffer>>> byPartition = new LinkedHashMap<>();
+        for (ConsumerRecord<String, ByteBuffer> record : records) {
+            byPartition.computeIfAbsent(new TopicPartition(record.topic(), record.partition()), p -> new ArrayList<>())
+                    .add(record);
+        }
+        return byPartition;
+    }
+
+    /**
+     * Делит записи партиции на цепочки: одна цепочка на ключ, отдельная цепочка на каждую запись без ключа
+     */
+    private List<List<ConsumerRecord<String, ByteBuffer>>> splitByKey(List<ConsumerRecord<String, ByteBuffer>> records) {
+        Map<String, List<ConsumerRecord<String, ByteBuffer>>> byKey = new LinkedHashMap<>();
+        List<List<ConsumerRecord<String, ByteBuffer>>> chains = new ArrayList<>();
+        for (ConsumerRecord<String, ByteBuffer> record : records) {
+            if (record.key() == null) {
+                chains.add(List.of(record));
+            } else {
+                byKey.computeIfAbsent(record.key(), k -> new ArrayList<>()).add(record);
+            }
+        }
+        chains.addAll(byKey.values());
+        return chains;
+    }
+
+    /**
+     * Ждёт свободного обработчика, но не дольше срока пакета
+     */
+    private boolean acquire(long deadline) {
+        try {
+            return inFlight.tryAcquire(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Запускает цепочку в пуле (разрешение inFlight уже получено). Цепочка останавливается
+     * на первой записи, которую нужно повторить, чтобы не нарушить порядок внутри ключа.
+     */
+    private CompletableFuture<Void> submit(List<ConsumerRecord<String, ByteBuffer>> chain, Consumer<?, ?> consumer) {
+        try {
+            return CompletableFuture.runAsync(() -> {
+                try {
+                    for (ConsumerRecord<String, ByteBuffer> record : chain) {
+                        if (!messageListener.process(record)) {
+                            return;
+                        }
+                        commitEngine.complete(consumer, record);
+                    }
+                } finally {
+                    inFlight.release();
+                }
+            }, workerExecutor);
+        } catch (RuntimeException e) {
+            inFlight.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Ждёт завершения пакета, но не дольше batch-timeout, чтобы не превысить max.poll.interval.ms
+     */
+    private void awaitCompletion(List<CompletableFuture<Void>> chains, long deadline) {
+        try {
+            CompletableFuture.allOf(chains.toArray(new CompletableFuture[0]))
+                    .get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            logger.warn("⏱ Пакет не обработан за {}: партиции с незавершёнными цепочками на паузе до их завершения",
+                    batchTimeout);
+        } catch (ExecutionException e) {
+            logger.error("❌ Ошибка в обработчике пакета: {}", e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean busy(TopicPartition partition) {
+        CompletableFuture<Void> running = unfinished.get(partition);
+        if (running == null) {
+            return false;
+        }
+        if (!running.isDone()) {
+            return true;
+        }
+        unfinished.remove(partition, running);
+        return false;
+    }
+
+    private void pause(Consumer<?, ?> consumer, TopicPartition partition) {
+        consumer.pause(List.of(partition));
+        paused.computeIfAbsent(consumer, c -> new HashSet<>()).add(partition);
+    }
+
+    /**
+     * Снимает паузу с партиций, чьи цепочки завершились, и перематывает их
+     * на первую незавершённую запись. Вызывается только в потоке консьюмера.
+     */
+    private void resumeFinished(Consumer<?, ?> consumer) {
+        Set<TopicPartition> partitions = paused.get(consumer);
+        if (partitions == null || partitions.isEmpty()) {
+            return;
+        }
+        Map<TopicPartition, Long> pending = commitEngine.pendingPositions(consumer);
+        Set<TopicPartition> assignment = consumer.assignment();
+        for (Iterator<TopicPartition> iterator = partitions.iterator(); iterator.hasNext(); ) {
+            TopicPartition partition = iterator.next();
+            if (busy(partition)) {
+                continue;
+            }
+            iterator.remove();
+            // Партиция ушла при ребалансировке — новый владелец прочитает её с закоммиченного offset'а
+            if (!assignment.contains(partition)) {
+                continue;
+            }
+            Long position = pending.get(partition);
+            if (position != null) {
+                consumer.seek(partition, position);
+            }
+            consumer.resume(List.of(partition));
+        }
+    }
+}
@@ -1,159 +1,204 @@
 package com.example.service.two.listener;
 
+import com.example.service.two.aggregation.WindowedTypeAggregator;
+import com.example.service.two.commit.OffsetCommitEngine;
+import com.example.service.two.kafka.MessageEnvelope;
+import com.example.service.two.kafka.MessageType;
+import com.example.service.two.logging.MessageEvent;
+import com.example.service.two.logging.MessageEventLogger;
+import com.example.service.two.metrics.ConsumerMetrics;
+import com.example.service.two.service.DedupStore;
+import com.example.service.two.service.RetryTopicForwarder;
+import lombok.RequiredArgsConstructor;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.slf4j.MDC;
+import org.springframework.kafka.KafkaException;
 import org.springframework.kafka.annotation.KafkaListener;
-import org.springframework.kafka.support.Acknowledgment;
-import org.springframework.kafka.support.KafkaHeaders;
-import org.springframework.messaging.handler.annotation.Header;
-import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.stereotype.Component;
 
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.UUID;
 
 @Component
+@RequiredArgsConstructor
 public class MessageListener {
 
     // Разные логгеры для разных типов событий (для лучшей фильтрации в ELK)
-    private static final Logger logger = LoggerFactory.getLogger(MessageListener.class);
     private static final Logger kafkaConsumerLogger = LoggerFactory.getLogger("KAFKA_CONSUMER");
     private static final Logger messageProcessingLogger = LoggerFactory.getLogger("MESSAGE_PROCESSING");
 
     private static final String TOPIC = "service-messages";
+    // Идентификатор, назначенный отправителем (service-one); одинаков у всех доставок сообщения
+    public static final String MESSAGE_ID_HEADER = "message-id";
+
+    private final OffsetCommitEngine commitEngine;
+    private final RetryTopicForwarder retryTopicForwarder;
+    private final DedupStore dedupStore;
+    private final WindowedTypeAggregator aggregator;
+    private final MessageEventLogger eventLogger;
+    private final ConsumerMetrics metrics;
+
+    // В пакетном режиме записи читает BatchMessageListener, а этот контейнер не стартует
+    @KafkaListener(topics = TOPIC, groupId = "service-two-group",
+            autoStartup = "#{!${app.kafka.consumer.batch.enabled:false}}")
+    public void listen(ConsumerRecord<String, ByteBuffer> record, Consumer<?, ?> consumer) {
+        consume(record, consumer);
+    }
 
-    @KafkaListener(topics = TOPIC, groupId = "service-two-group")
-    public void listen(@Payload String message,
-                       @Header(KafkaHeaders.RECEIVED_TOPIC) String topic,
-                       @Header(KafkaHeaders.RECEIVED_PARTITION) Integer partition,
-                       @Header(KafkaHeaders.OFFSET) Long offset,
-                       @Header(KafkaHeaders.RECEIVED_TIMESTAMP) Long timestamp,
-                       Acknowledgment acknowledgment) {
-
-        // Генерируем уникальный ID для трассировки сообщения
-        String messageId = UUID.randomUUID().toString();
-        String processingStartTime = LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+    // Повторная обработка: ждём время из заголовка, основную партицию это не задерживает
+    @KafkaListener(topics = RetryTopicForwarder.RETRY_TOPIC, groupId = "service-two-group")
+    public void listenRetry(ConsumerRecord<String, ByteBuffer> record, Consumer<?, ?> consumer) {
+        long delay = RetryTopicForwarder.notBeforeOf(record) - System.currentTimeMillis();
+        if (delay > 0) {
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new KafkaException("Retry delay interrupted", e);
+            }
+        }
+        consume(record, consumer);
+    }
 
-        try {
-            // Добавляем контекстную информацию в MDC для структурированного логирования
-            MDC.put("messageId", messageId);
-            MDC.put("topic", topic);
-            MDC.put("partition", String.valueOf(partition));
-            MDC.put("offset", String.valueOf(offset));
-            MDC.put("messageTimestamp", String.valueOf(timestamp));
-            MDC.put("processingStartTime", processingStartTime);
-            MDC.put("messageLength", String.valueOf(message.length()));
-
-            // Логируем получение сообщения
-            kafkaConsumerLogger.info("Received message from Kafka - Topic: {}, Partition: {}, Offset: {}, MessageId: {}",
-                    topic, partition, offset, messageId);
-
-            // Симулируем обработку сообщения
-            long processingStart = System.currentTimeMillis();
+    private void consume(ConsumerRecord<String, ByteBuffer> record, Consumer<?, ?> consumer) {
+        commitEngine.track(consumer, record);
+        if (!process(record)) {
+            // Не удалось даже переслать в retry-топик: ошибку обработает контейнер и перечитает запись
+            throw new KafkaException("Failed to forward message " + record.topic() + "-"
+                    + record.partition() + "@" + record.offset() + " to retry topic");
+        }
+        commitEngine.complete(consumer, record);
+        commitEngine.afterRecord(consumer);
+    }
 
-            // Основная обработка
-            processMessage(message, messageId);
+    /**
+     * Обрабатывает запись, а при повторяемой ошибке пересылает её в retry-топик.
+     * Уже обработанное сообщение пропускается. Возвращает true, если offset записи можно коммитить.
+     */
+    public boolean process(ConsumerRecord<String, ByteBuffer> record) {
+        String producerId = messageIdOf(record);
+        if (producerId != null && !dedupStore.claim(producerId)) {
+            kafkaConsumerLogger.info("Duplicate message skipped - Topic: {}, Partition: {}, Offset: {}, MessageId: {}",
+                    record.topic(), record.partition(), record.offset(), producerId);
+            return true;
+        }
 
-            long processingTime = System.currentTimeMillis() - processingStart;
-            MDC.put("processingTimeMs", String.valueOf(processingTime));
+        // Записи старого формата без message-id трассируются по id доставки
+        String messageId = producerId != null ? producerId : UUID.randomUUID().toString();
+        if (handle(record.value(), messageId, record.topic(), record.partition(), record.offset(), record.timestamp())) {
+            if (producerId != null) {
+                dedupStore.markProcessed(producerId);
+            }
+            return true;
+        }
+        if (producerId != null) {
+            dedupStore.release(producerId);
+        }
+        return retryTopicForwarder.forward(record);
+    }
 
-            // Логируем успешную обработку
-            messageProcessingLogger.info("Message processed successfully - MessageId: {}, ProcessingTime: {}ms, Content: '{}'",
-                    messageId, processingTime, truncateMessage(message, 100));
+    private static String messageIdOf(ConsumerRecord<?, ?> record) {
+        Header header = record.headers().lastHeader(MESSAGE_ID_HEADER);
+        return header != null ? new String(header.value(), StandardCharsets.UTF_8) : null;
+    }
 
-            // Подтверждаем получение сообщения
-            if (acknowledgment != null) {
-                acknowledgment.acknowledge();
-            }
+    /**
+     * Обрабатывает одну запись со всем логированием.
+     * Возвращает true, если обработка прошла успешно или ошибка не подлежит повтору.
+     * false — ошибка повторяемая, запись нужно обработать ещё раз.
+     */
+    private boolean handle(ByteBuffer value, String messageId, String topic, int partition, long offset, long timestamp) {
+        // Поля для логов копятся в событии и превращаются в строки, только если событие будет записано
+        MessageEvent event = new MessageEvent(messageId, topic, partition, offset, timestamp);
+        metrics.recordEndToEnd(topic, timestamp);
 
-            // Общий лог для консоли
-            logger.info("✅ Обработано сообщение [{}]: {} (время: {}ms)", messageId, truncateMessage(message, 50), processingTime);
+        try {
+            // Конверт читается на месте; строка старого формата декодируется только при определении типа
+            event.message(MessageEnvelope.wrap(value));
+            eventLogger.received(event);
 
-        } catch (Exception e) {
-            // Логируем ошибку обработки
-            MDC.put("errorMessage", e.getMessage());
-            MDC.put("errorClass", e.getClass().getSimpleName());
+            // Основная обработка
+            MessageType messageType = analyzeMessage(event);
+            processMessage(event);
 
-            messageProcessingLogger.error("Failed to process message - MessageId: {}, Error: {}",
-                    messageId, e.getMessage(), e);
+            long processingTime = event.finish();
+            aggregator.record(messageType, processingTime, false);
+            metrics.recordProcessing(messageType, processingTime, true);
+            eventLogger.processed(event);
+            return true;
 
-            logger.error("❌ Ошибка обработки сообщения [{}]: {}", messageId, e.getMessage());
+        } catch (Exception e) {
+            long processingTime = event.finish();
+            eventLogger.failed(event, e);
 
-            // В зависимости от типа ошибки можем решить подтверждать или нет
-            if (acknowledgment != null && !isRetryableError(e)) {
-                acknowledgment.acknowledge(); // Подтверждаем чтобы не зациклиться
+            // Сообщения, не прошедшие проверку, в статистику по типам не попадают
+            if (event.type() != null) {
+                aggregator.record(event.type(), processingTime, true);
+                metrics.recordProcessing(event.type(), processingTime, false);
             }
 
+            // В зависимости от типа ошибки можем решить подтверждать или нет:
+            // неповторяемые ошибки подтверждаем, чтобы не зациклиться
+            return !isRetryableError(e);
+
         } finally {
-            // Очищаем MDC
-            MDC.clear();
+            eventLogger.clear();
         }
     }
 
     /**
-     * Основная логика обработки сообщения
+     * Проверка сообщения и определение его типа
      */
-    private void processMessage(String message, String messageId) {
-        MDC.put("processingStep", "validation");
+    private MessageType analyzeMessage(MessageEvent event) {
+        event.step("validation");
 
         // Валидация сообщения
-        if (message == null || message.trim().isEmpty()) {
+        if (event.message().isBlank()) {
             throw new IllegalArgumentException("Empty or null message received");
         }
 
-        messageProcessingLogger.debug("Message validation passed - MessageId: {}", messageId);
-
-        MDC.put("processingStep", "analysis");
-
-        // Анализируем тип сообщения
-        String messageType = determineMessageType(message);
-        MDC.put("messageType", messageType);
+        messageProcessingLogger.debug("Message validation passed - MessageId: {}", event.messageId());
 
-        messageProcessingLogger.info("Message type determined: {} - MessageId: {}", messageType, messageId);
+        event.step("analysis");
 
-        MDC.put("processingStep", "business_logic");
-
-        // Симулируем различное время обработки в зависимости от типа
-        simulateProcessing(messageType, messageId);
+        // Тип берётся из конверта, тело для этого не читается
+        MessageType messageType = event.message().type();
+        event.type(messageType);
 
-        MDC.put("processingStep", "completed");
-        messageProcessingLogger.debug("Message processing completed - MessageId: {}", messageId);
+        eventLogger.typeDetermined(event);
+        return messageType;
     }
 
     /**
-     * Определяет тип сообщения для метрик и логирования
+     * Основная логика обработки сообщения
      */
-    private String determineMessageType(String message) {
-        String lowerMessage = message.toLowerCase();
-
-        if (lowerMessage.contains("json") || lowerMessage.startsWith("{")) {
-            return "JSON";
-        } else if (lowerMessage.contains("error") || lowerMessage.contains("ошибка")) {
-            return "ERROR";
-        } else if (lowerMessage.contains("test") || lowerMessage.contains("тест")) {
-            return "TEST";
-        } else if (lowerMessage.length() > 100) {
-            return "LARGE";
-        } else {
-            return "SIMPLE";
-        }
+    private void processMessage(MessageEvent event) {
+        event.step("business_logic");
+
+        // Симулируем различное время обработки в зависимости от типа
+        simulateProcessing(event);
+
+        event.step("completed");
+        messageProcessingLogger.debug("Message processing completed - MessageId: {}", event.messageId());
     }
 
     /**
      * Симулирует обработку разных типов сообщений
      */
-    private void simulateProcessing(String messageType, String messageId) {
+    private void simulateProcessing(MessageEvent event) {
         try {
-            int delay = switch (messageType) {
-                case "JSON" -> 100 + (int)(Math.random() * 200); // 100-300ms
-                case "ERROR" -> 50;  // Быстрая обработка ошибок
-                case "LARGE" -> 200 + (int)(Math.random() * 500); // 200-700ms
+            int delay = switch (event.type()) {
+                case JSON -> 100 + (int)(Math.random() * 200); // 100-300ms
+                case ERROR -> 50;  // Быстрая обработка ошибок
+                case LARGE -> 200 + (int)(Math.random() * 500); // 200-700ms
                 default -> 50 + (int)(Math.random() * 100); // 50-150ms
             };
 
-            MDC.put("simulatedDelay", String.valueOf(delay));
+            event.simulatedDelay(delay);
             Thread.sleep(delay);
 
         } catch (InterruptedException e) {
@@ -167,18 +212,9 @@ public class MessageListener {
      */
     private boolean isRetryableError(Exception e) {
         // Сетевые ошибки и временные сбои можно повторить
-        return e instanceof RuntimeException &&
+        return e instanceof RuntimeException && e.getMessage() != null &&
                 (e.getMessage().contains("timeout") ||
                         e.getMessage().contains("connection") ||
                         e.getMessage().contains("temporary"));
     }
-
-    /**
-     * Обрезает сообщение для логирования
-     */
-    private String truncateMessage(String message, int maxLength) {
-        if (message == null) return "null";
-        if (message.length() <= maxLength) return message;
-        return message.substring(0, maxLength) + "...";
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,192 @@
+package com.example.service.two.logging;
+
+import com.example.service.two.kafka.MessageEnvelope;
+import com.example.service.two.kafka.MessageType;
+import com.fasterxml.jackson.core.JsonGenerator;
+import net.logstash.logback.marker.LogstashMarker;
+import org.slf4j.MDC;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Все поля обработки одного сообщения. Во время обработки заполняются только
+ * примитивы и ссылки; строки для Logstash строятся при записи события в JSON
+ * (в потоке аппендера) или при переносе в MDC в режиме verbose.
+ *
+ * Имена и строковые значения полей совпадают с прежними полями MDC.
+ */
+public final class MessageEvent extends LogstashMarker {
+
+    private static final String MARKER_NAME = "MESSAGE_EVENT";
+    private static final int NOT_SET = -1;
+
+    private final String messageId;
+    private final String topic;
+    private final int partition;
+    private final long offset;
+    private final long timestamp;
+    private final long startedAt = System.currentTimeMillis();
+    private MessageEnvelope message;
+    private MessageType type;
+    private String step;
+    private int simulatedDelay = NOT_SET;
+    private long processingTimeMs = NOT_SET;
+    private Exception error;
+    // Доля успешных событий, попадающих в лог; 1 — все
+    private double sampleRate = 1.0;
+
+    public MessageEvent(String messageId, String topic, int partition, long offset, long timestamp) {
+        super(MARKER_NAME);
+        this.messageId = messageId;
+        this.topic = topic;
+        this.partition = partition;
+        this.offset = offset;
+        this.timestamp = timestamp;
+    }
+
+    public String messageId() {
+        return messageId;
+    }
+
+    public String topic() {
+        return topic;
+    }
+
+    public int partition() {
+        return partition;
+    }
+
+    public long offset() {
+        return offset;
+    }
+
+    public MessageEnvelope message() {
+        return message;
+    }
+
+    public void message(MessageEnvelope message) {
+        this.message = message;
+    }
+
+    public MessageType type() {
+        return type;
+    }
+
+    public void type(MessageType type) {
+        this.type = type;
+    }
+
+    public void step(String step) {
+        this.step = step;
+    }
+
+    public void simulatedDelay(int simulatedDelay) {
+        this.simulatedDelay = simulatedDelay;
+    }
+
+    // Фиксирует время обработки и возвращает его
+    public long finish() {
+        processingTimeMs = System.currentTimeMillis() - startedAt;
+        return processingTimeMs;
+    }
+
+    public long processingTimeMs() {
+        return processingTimeMs;
+    }
+
+    public void error(Exception error) {
+        this.error = error;
+    }
+
+    void sampleRate(double sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+
+    /**
+     * Переносит поля в MDC — для построчного режима verbose
+     */
+    void toMdc() {
+        MDC.put("messageId", messageId);
+        MDC.put("topic", topic);
+        MDC.put("partition", String.valueOf(partition));
+        MDC.put("offset", String.valueOf(offset));
+        MDC.put("messageTimestamp", String.valueOf(timestamp));
+        MDC.put("processingStartTime", processingStartTime());
+        if (message != null) {
+            MDC.put("messageFormat", format());
+            MDC.put("messageLength", String.valueOf(message.bodyLength()));
+        }
+        if (type != null) {
+            MDC.put("messageType", type.name());
+        }
+        if (step != null) {
+            MDC.put("processingStep", step);
+        }
+        if (simulatedDelay != NOT_SET) {
+            MDC.put("simulatedDelay", String.valueOf(simulatedDelay));
+        }
+        if (processingTimeMs != NOT_SET) {
+            MDC.put("processingTimeMs", String.valueOf(processingTimeMs));
+        }
+        if (error != null) {
+            MDC.put("errorMessage", error.getMessage());
+            MDC.put("errorClass", error.getClass().getSimpleName());
+        }
+    }
+
+    @Override
+    public void writeTo(JsonGenerator generator) throws IOException {
+        generator.writeStringField("messageId", messageId);
+        generator.writeStringField("topic", topic);
+        generator.writeStringField("partition", String.valueOf(partition));
+        generator.writeStringField("offset", String.valueOf(offset));
+        generator.writeStringField("messageTimestamp", String.valueOf(timestamp));
+        generator.writeStringField("processingStartTime", processingStartTime());
+        if (message != null) {
+            generator.writeStringField("messageFormat", format());
+            generator.writeStringField("messageLength", String.valueOf(message.bodyLength()));
+        }
+        if (type != null) {
+            generator.writeStringField("messageType", type.name());
+        }
+        if (step != null) {
+            generator.writeStringField("processingStep", step);
+        }
+        if (simulatedDelay != NOT_SET) {
+            generator.writeStringField("simulatedDelay", String.valueOf(simulatedDelay));
+        }
+        if (processingTimeMs != NOT_SET) {
+            generator.writeStringField("processingTimeMs", String.valueOf(processingTimeMs));
+        }
+        if (error != null) {
+            generator.writeStringField("errorMessage", error.getMessage());
+            generator.writeStringField("errorClass", error.getClass().getSimpleName());
+        }
+        if (sampleRate < 1.0) {
+            generator.writeNumberField("sampleRate", sampleRate);
+        }
+    }
+
+    private String format() {
+        return message.isTyped() ? "envelope" : "string";
+    }
+
+    private String processingStartTime() {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(startedAt), ZoneId.systemDefault())
+                .format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o;
+    }
+
+    @Override
+    public int hashCode() {
+        return System.identityHashCode(this);
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.service.two.logging;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Логирование обработки сообщений.
+ *
+ * structured — одно событие на сообщение с полями MessageEvent; успешные события
+ * пишутся с вероятностью success-sample-rate, ошибки — всегда.
+ * verbose — прежний построчный режим: несколько записей на сообщение с полями в MDC.
+ */
+@Component
+public class MessageEventLogger {
+
+    private static final Logger logger = LoggerFactory.getLogger(MessageEventLogger.class);
+    private static final Logger kafkaConsumerLogger = LoggerFactory.getLogger("KAFKA_CONSUMER");
+    private static final Logger messageProcessingLogger = LoggerFactory.getLogger("MESSAGE_PROCESSING");
+
+    private final boolean structured;
+    private final double sampleRate;
+    private final Counter sampledOut;
+
+    public MessageEventLogger(MeterRegistry meterRegistry,
+                              @Value("${app.logging.message-events.mode:structured}") String mode,
+                              @Value("${app.logging.message-events.success-sample-rate:0.01}") double sampleRate) {
+        this.structured = !"verbose".equalsIgnoreCase(mode);
+        this.sampleRate = sampleRate;
+        this.sampledOut = Counter.builder("log.message.events.sampled.out")
+                .description("Успешные события обработки, не записанные из-за сэмплирования")
+                .register(meterRegistry);
+    }
+
+    public void received(MessageEvent event) {
+        if (structured) {
+            return;
+        }
+        event.toMdc();
+        kafkaConsumerLogger.info("Received message from Kafka - Topic: {}, Partition: {}, Offset: {}, MessageId: {}",
+                event.topic(), event.partition(), event.offset(), event.messageId());
+    }
+
+    public void typeDetermined(MessageEvent event) {
+        if (structured) {
+            return;
+        }
+        event.toMdc();
+        messageProcessingLogger.info("Message type determined: {} - MessageId: {}", event.type(), event.messageId());
+    }
+
+    public void processed(MessageEvent event) {
+        if (!messageProcessingLogger.isInfoEnabled()) {
+            return;
+        }
+        if (structured) {
+            if (sampleRate < 1.0 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+                sampledOut.increment();
+                return;
+            }
+            event.sampleRate(sampleRate);
+            messageProcessingLogger.info(event, "Message processed successfully - MessageId: {}, ProcessingTime: {}ms, Content: '{}'",
+                    event.messageId(), event.processingTimeMs(), event.message().preview(100));
+            return;
+        }
+        event.toMdc();
+        messageProcessingLogger.info("Message processed successfully - MessageId: {}, ProcessingTime: {}ms, Content: '{}'",
+                event.messageId(), event.processingTimeMs(), event.message().preview(100));
+        logger.info("✅ Обработано сообщение [{}]: {} (время: {}ms)",
+                event.messageId(), event.message().preview(50), event.processingTimeMs());
+    }
+
+    public void failed(MessageEvent event, Exception e) {
+        event.error(e);
+        if (structured) {
+            messageProcessingLogger.error(event, "Failed to process message - MessageId: {}, Error: {}",
+                    event.messageId(), e.getMessage(), e);
+            return;
+        }
+        event.toMdc();
+        messageProcessingLogger.error("Failed to process message - MessageId: {}, Error: {}",
+                event.messageId(), e.getMessage(), e);
+        logger.error("❌ Ошибка обработки сообщения [{}]: {}", event.messageId(), e.getMessage());
+    }
+
+    public void clear() {
+        if (!structured) {
+            MDC.clear();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.service.two.metrics;
+
+import com.example.service.two.kafka.MessageType;
+import com.example.service.two.service.RetryTopicForwarder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Метрики обработки сообщений. Набор тегов ограничен и известен заранее
+ * (топики, типы сообщений, исход), поэтому все таймеры регистрируются при старте,
+ * а обработка только записывает значение.
+ *
+ * Перцентили (p50, p99 по типам) считает Prometheus по гистограммам:
+ * histogram_quantile(0.99, sum by (le, type) (rate(kafka_consumer_processing_time_seconds_bucket[1m]))).
+ */
+@Component
+public class ConsumerMetrics {
+
+    private static final String MAIN_TOPIC = "service-messages";
+
+    private final Map<String, Timer> endToEnd;
+    private final Map<MessageType, Timer> processed = new EnumMap<>(MessageType.class);
+    private final Map<MessageType, Timer> failed = new EnumMap<>(MessageType.class);
+
+    public ConsumerMetrics(MeterRegistry meterRegistry) {
+        this.endToEnd = Map.of(
+                MAIN_TOPIC, endToEndTimer(meterRegistry, MAIN_TOPIC),
+                RetryTopicForwarder.RETRY_TOPIC, endToEndTimer(meterRegistry, RetryTopicForwarder.RETRY_TOPIC));
+        for (MessageType type : MessageType.values()) {
+            processed.put(type, processingTimer(meterRegistry, type, "success"));
+            failed.put(type, processingTimer(meterRegistry, type, "error"));
+        }
+    }
+
+    /**
+     * Время от отметки времени записи (время отправки продюсером) до начала обработки.
+     * Для retry-топика это время с момента пересылки.
+     */
+    public void recordEndToEnd(String topic, long recordTimestamp) {
+        Timer timer = endToEnd.get(topic);
+        long latency = System.currentTimeMillis() - recordTimestamp;
+        if (timer != null && recordTimestamp > 0 && latency >= 0) {
+            timer.record(latency, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public void recordProcessing(MessageType type, long processingMs, boolean success) {
+        (success ? processed : failed).get(type).record(processingMs, TimeUnit.MILLISECONDS);
+    }
+
+    private static Timer endToEndTimer(MeterRegistry meterRegistry, String topic) {
+        return Timer.builder("kafka.consumer.e2e.latency")
+                .description("Задержка от отправки сообщения продюсером до начала обработки")
+                .tag("topic", topic)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofMinutes(5))
+                .register(meterRegistry);
+    }
+
+    private static Timer processingTimer(MeterRegistry meterRegistry, MessageType type, String outcome) {
+        return Timer.builder("kafka.consumer.processing.time")
+                .description("Время обработки сообщения по типам")
+                .tag("type", type.name())
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(30))
+                .register(meterRegistry);
+    }
+}
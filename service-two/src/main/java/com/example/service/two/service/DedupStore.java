@@ -0,0 +1,110 @@
+package com.example.service.two.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+/**
+ * Идентификаторы уже обработанных сообщений: ключ dedup:service-two:&lt;message-id&gt;
+ * в Redis живёт ttl. Повторная доставка той же записи (после ребаланса, перечитывания
+ * пакета или повторной отправки клиентом) по нему пропускается.
+ *
+ * Id занимается до обработки одной командой SET NX с коротким claim-ttl, поэтому из двух
+ * одновременных доставок обрабатывает только одна. После успешной обработки ключ
+ * продлевается до ttl, при повторяемой ошибке освобождается; если экземпляр упал посреди
+ * обработки, ключ истекает через claim-ttl, и запись, перечитанная позже, обрабатывается снова.
+ *
+ * Если Redis недоступен, запись обрабатывается как новая: повтор лучше потери.
+ */
+@Service
+public class DedupStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(DedupStore.class);
+
+    private static final String KEY_PREFIX = "dedup:service-two:";
+    private static final String IN_PROGRESS = "0";
+    private static final String PROCESSED = "1";
+
+    private final StringRedisTemplate redisTemplate;
+    private final boolean enabled;
+    private final Duration ttl;
+    private final Duration claimTtl;
+    private final Counter duplicates;
+    private final Counter errors;
+
+    public DedupStore(StringRedisTemplate redisTemplate,
+                      MeterRegistry meterRegistry,
+                      @Value("${app.kafka.consumer.dedup.enabled:true}") boolean enabled,
+                      @Value("${app.kafka.consumer.dedup.ttl:24h}") Duration ttl,
+                      @Value("${app.kafka.consumer.dedup.claim-ttl:5m}") Duration claimTtl) {
+        this.redisTemplate = redisTemplate;
+        this.enabled = enabled;
+        this.ttl = ttl;
+        this.claimTtl = claimTtl;
+        this.duplicates = Counter.builder("kafka.consumer.duplicates.skipped")
+                .description("Повторные доставки, пропущенные по message-id")
+                .register(meterRegistry);
+        this.errors = Counter.builder("kafka.consumer.dedup.errors")
+                .description("Обращения к хранилищу дедупликации, завершившиеся ошибкой")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Занять id перед обработкой (SET NX PX claim-ttl). false — сообщение уже обработано
+     * или его сейчас обрабатывает другая доставка, запись нужно пропустить
+     */
+    public boolean claim(String messageId) {
+        if (!enabled) {
+            return true;
+        }
+        try {
+            if (Boolean.FALSE.equals(redisTemplate.opsForValue().setIfAbsent(KEY_PREFIX + messageId, IN_PROGRESS, claimTtl))) {
+                duplicates.increment();
+                return false;
+            }
+        } catch (RuntimeException e) {
+            errors.increment();
+            logger.warn("Хранилище дедупликации недоступно, сообщение {} обрабатывается: {}", messageId, e.getMessage());
+        }
+        return true;
+    }
+
+    /**
+     * Запоминает обработанное сообщение на ttl. Вызывается до коммита offset'а,
+     * чтобы перечитанная после сбоя запись уже считалась обработанной.
+     */
+    public void markProcessed(String messageId) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            redisTemplate.opsForValue().set(KEY_PREFIX + messageId, PROCESSED, ttl);
+        } catch (RuntimeException e) {
+            errors.increment();
+            logger.warn("Не удалось запомнить обработанное сообщение {}: {}", messageId, e.getMessage());
+        }
+    }
+
+    /**
+     * Освобождает id после неудачной обработки, чтобы повтор из retry-топика или
+     * перечитанная запись не были приняты за дубликат
+     */
+    public void release(String messageId) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            redisTemplate.delete(KEY_PREFIX + messageId);
+        } catch (RuntimeException e) {
+            errors.increment();
+            logger.warn("Не удалось освободить сообщение {}, повтор возможен через claim-ttl {}: {}",
+                    messageId, claimTtl, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.service.two.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Пересылает сообщения с повторяемыми ошибками в retry-топик, а исчерпавшие
+ * попытки — в DLT. Основная партиция при этом не останавливается: её offset
+ * коммитится сразу после успешной пересылки.
+ */
+@Service
+public class RetryTopicForwarder {
+
+    public static final String RETRY_TOPIC = "service-messages-retry";
+    public static final String DLT_TOPIC = "service-messages-dlt";
+
+    // Сколько неудачных попыток уже было
+    public static final String ATTEMPT_HEADER = "retry-attempt";
+    // Раньше этого момента (epoch ms) повторять обработку не нужно
+    public static final String NOT_BEFORE_HEADER = "retry-not-before";
+    public static final String ORIGINAL_PARTITION_HEADER = "retry-original-partition";
+    public static final String ORIGINAL_OFFSET_HEADER = "retry-original-offset";
+
+    private static final Logger logger = LoggerFactory.getLogger(RetryTopicForwarder.class);
+
+    private final KafkaTemplate<String, ByteBuffer> kafkaTemplate;
+    private final int maxAttempts;
+    private final Duration backoff;
+    private final Duration sendTimeout;
+    private final Counter retryForwarded;
+    private final Counter dltForwarded;
+
+    public RetryTopicForwarder(KafkaTemplate<String, ByteBuffer> kafkaTemplate,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.kafka.consumer.retry.max-attempts:3}") int maxAttempts,
+                               @Value("${app.kafka.consumer.retry.backoff:5s}") Duration backoff,
+                               @Value("${app.kafka.consumer.retry.send-timeout:10s}") Duration sendTimeout) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.maxAttempts = maxAttempts;
+        this.backoff = backoff;
+        this.sendTimeout = sendTimeout;
+        this.retryForwarded = Counter.builder("kafka.consumer.retry.forwarded")
+                .description("Сообщения, отправленные на повторную обработку")
+                .tag("target", "retry")
+                .register(meterRegistry);
+        this.dltForwarded = Counter.builder("kafka.consumer.retry.forwarded")
+                .description("Сообщения, отправленные на повторную обработку")
+                .tag("target", "dlt")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Пересылает запись, которую не удалось обработать.
+     * Возвращает true, если брокер подтвердил запись и исходный offset можно коммитить.
+     */
+    public boolean forward(ConsumerRecord<String, ByteBuffer> record) {
+        int attempt = attemptOf(record) + 1;
+        boolean exhausted = attempt >= maxAttempts;
+        String target = exhausted ? DLT_TOPIC : RETRY_TOPIC;
+
+        // ByteBufferSerializer пишет буфер с нулевой позиции, поэтому передаём срез
+        ByteBuffer value = record.value() != null ? record.value().slice() : null;
+        ProducerRecord<String, ByteBuffer> forwarded = new ProducerRecord<>(target, record.key(), value);
+        // Заголовки отправителя (в том числе message-id) переносятся, служебные — пересчитываются
+        for (Header header : record.headers()) {
+            if (!isRetryHeader(header.key())) {
+                forwarded.headers().add(header);
+            }
+        }
+        forwarded.headers().add(ATTEMPT_HEADER, bytes(attempt));
+        forwarded.headers().add(NOT_BEFORE_HEADER, bytes(System.currentTimeMillis() + backoff.toMillis() * attempt));
+        forwarded.headers().add(ORIGINAL_PARTITION_HEADER, bytes(originalPartition(record)));
+        forwarded.headers().add(ORIGINAL_OFFSET_HEADER, bytes(originalOffset(record)));
+
+        try {
+            kafkaTemplate.send(forwarded).get(sendTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            logger.error("❌ Не удалось переслать сообщение в {}: {}", target, e.getMessage());
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+
+        (exhausted ? dltForwarded : retryForwarded).increment();
+        logger.warn("🔁 Сообщение {}-{}@{} отправлено в {} (попытка {} из {})",
+                record.topic(), record.partition(), record.offset(), target, attempt, maxAttempts);
+        return true;
+    }
+
+    public static int attemptOf(ConsumerRecord<?, ?> record) {
+        String value = headerValue(record, ATTEMPT_HEADER);
+        return value != null ? Integer.parseInt(value) : 0;
+    }
+
+    public static long notBeforeOf(ConsumerRecord<?, ?> record) {
+        String value = headerValue(record, NOT_BEFORE_HEADER);
+        return value != null ? Long.parseLong(value) : 0L;
+    }
+
+    // Для повторных попыток сохраняем координаты самой первой записи
+    private static String originalPartition(ConsumerRecord<?, ?> record) {
+        String value = headerValue(record, ORIGINAL_PARTITION_HEADER);
+        return value != null ? value : String.valueOf(record.partition());
+    }
+
+    private static String originalOffset(ConsumerRecord<?, ?> record) {
+        String value = headerValue(record, ORIGINAL_OFFSET_HEADER);
+        return value != null ? value : String.valueOf(record.offset());
+    }
+
+    private static boolean isRetryHeader(String name) {
+        return ATTEMPT_HEADER.equals(name) || NOT_BEFORE_HEADER.equals(name)
+                || ORIGINAL_PARTITION_HEADER.equals(name) || ORIGINAL_OFFSET_HEADER.equals(name);
+    }
+
+    private static String headerValue(ConsumerRecord<?, ?> record, String name) {
+        Header header = record.headers().lastHeader(name);
+        return header != null ? new String(header.value(), StandardCharsets.UTF_8) : null;
+    }
+
+    private static byte[] bytes(Object value) {
+        return String.valueOf(value).getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.service.two.aggregation;
+
+import com.example.service.two.kafka.MessageType;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WindowStateTest {
+
+    private static final WindowKey KEY = new WindowKey("tumbling", 60_000, MessageType.JSON);
+
+    @Test
+    void emptyWindowHasZeroStats() {
+        TypeWindowStats stats = new WindowState().toStats(KEY, 120_000, false);
+
+        assertThat(stats.count()).isZero();
+        assertThat(stats.avgMs()).isZero();
+        assertThat(stats.p50Ms()).isZero();
+        assertThat(stats.p99Ms()).isZero();
+        assertThat(stats.maxMs()).isZero();
+    }
+
+    @Test
+    void percentileIsUpperBoundOfBucket() {
+        WindowState state = new WindowState();
+        // 50 записей по 3 мс (корзина до 5), 49 по 40 мс (до 50), одна 180 мс (до 200)
+        add(state, 50, 3);
+        add(state, 49, 40);
+        state.add(180, true);
+
+        TypeWindowStats stats = state.toStats(KEY, 120_000, true);
+
+        assertThat(stats.count()).isEqualTo(100);
+        assertThat(stats.errors()).isEqualTo(1);
+        assertThat(stats.avgMs()).isEqualTo((50 * 3 + 49 * 40 + 180) / 100.0);
+        assertThat(stats.p50Ms()).isEqualTo(5);
+        assertThat(stats.p99Ms()).isEqualTo(50);
+        assertThat(stats.maxMs()).isEqualTo(180);
+        assertThat(stats.closed()).isTrue();
+    }
+
+    @Test
+    void percentileNeverExceedsMax() {
+        WindowState state = new WindowState();
+        add(state, 10, 120);
+
+        TypeWindowStats stats = state.toStats(KEY, 120_000, false);
+
+        assertThat(stats.p50Ms()).isEqualTo(120);
+        assertThat(stats.p99Ms()).isEqualTo(120);
+    }
+
+    @Test
+    void overflowBucketReportsMax() {
+        WindowState state = new WindowState();
+        add(state, 99, 1);
+        state.add(25_000, false);
+
+        TypeWindowStats stats = state.toStats(KEY, 120_000, false);
+
+        assertThat(stats.p50Ms()).isEqualTo(1);
+        assertThat(stats.p99Ms()).isEqualTo(1);
+        state.add(30_000, false);
+        assertThat(state.toStats(KEY, 120_000, false).p99Ms()).isEqualTo(30_000);
+    }
+
+    @Test
+    void snapshotRestoresSameStats() {
+        WindowState state = new WindowState();
+        add(state, 7, 15);
+        state.add(700, true);
+
+        WindowState restored = WindowState.restore(state.snapshot(KEY));
+
+        assertThat(restored.toStats(KEY, 120_000, false)).isEqualTo(state.toStats(KEY, 120_000, false));
+    }
+
+    @Test
+    void dirtyUntilTaken() {
+        WindowState state = new WindowState();
+        assertThat(state.takeDirty()).isFalse();
+
+        state.add(1, false);
+        assertThat(state.takeDirty()).isTrue();
+        assertThat(state.takeDirty()).isFalse();
+
+        state.markDirty();
+        assertThat(state.takeDirty()).isTrue();
+    }
+
+    private static void add(WindowState state, int times, long processingMs) {
+        for (int i = 0; i < times; i++) {
+            state.add(processingMs, false);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.service.two.aggregation;
+
+import com.example.service.two.kafka.MessageType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.assertj.core.groups.Tuple;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WindowedTypeAggregatorTest {
+
+    @SuppressWarnings("unchecked")
+    private final KafkaTemplate<String, ByteBuffer> kafkaTemplate = mock(KafkaTemplate.class);
+
+    @Test
+    void recordLandsInEveryOverlappingWindow() {
+        WindowedTypeAggregator aggregator = aggregator(Duration.ofMinutes(1), Duration.ofMinutes(5), Duration.ofMinutes(1));
+
+        aggregator.record(MessageType.JSON, 12, false);
+
+        List<TypeWindowStats> tumbling = aggregator.stats("tumbling");
+        assertThat(tumbling).hasSize(1);
+        assertThat(Duration.between(tumbling.getFirst().start(), tumbling.getFirst().end())).isEqualTo(Duration.ofMinutes(1));
+
+        // Окно 5 минут с шагом в минуту: запись попадает в пять окон, начала выровнены по шагу
+        List<TypeWindowStats> hopping = aggregator.stats("hopping");
+        assertThat(hopping).hasSize(5);
+        assertThat(hopping).allSatisfy(stats -> {
+            assertThat(stats.start().toEpochMilli() % 60_000).isZero();
+            assertThat(Duration.between(stats.start(), stats.end())).isEqualTo(Duration.ofMinutes(5));
+            assertThat(stats.count()).isEqualTo(1);
+            assertThat(stats.closed()).isFalse();
+        });
+    }
+
+    @Test
+    void typesAreCountedSeparately() {
+        WindowedTypeAggregator aggregator = aggregator(Duration.ofMinutes(1), Duration.ofMinutes(5), Duration.ofMinutes(1));
+
+        aggregator.record(MessageType.JSON, 1, false);
+        aggregator.record(MessageType.JSON, 1, true);
+        aggregator.record(MessageType.ERROR, 1, false);
+
+        assertThat(aggregator.stats("tumbling"))
+                .extracting(TypeWindowStats::type, TypeWindowStats::count, TypeWindowStats::errors)
+                .containsExactlyInAnyOrder(
+                        Tuple.tuple(MessageType.JSON, 2L, 1L),
+                        Tuple.tuple(MessageType.ERROR, 1L, 0L));
+    }
+
+    @Test
+    void flushClosesExpiredWindowsAndPublishesThem() throws InterruptedException {
+        when(kafkaTemplate.send(any(), any(), any())).thenReturn(new CompletableFuture<>());
+        WindowedTypeAggregator aggregator = aggregator(Duration.ofMillis(20), Duration.ofMinutes(5), Duration.ofMinutes(1));
+
+        aggregator.record(MessageType.TEST, 5, false);
+        Thread.sleep(50);
+        aggregator.flush();
+
+        assertThat(aggregator.stats("tumbling")).singleElement().satisfies(stats -> {
+            assertThat(stats.closed()).isTrue();
+            assertThat(stats.count()).isEqualTo(1);
+        });
+        verify(kafkaTemplate).send(eq(WindowedTypeAggregator.OUTPUT_TOPIC), eq("pod-1|tumbling|TEST"), any());
+        // Tombstone закрытого окна в changelog
+        verify(kafkaTemplate).send(eq(WindowedTypeAggregator.CHANGELOG_TOPIC), startsWith("pod-1|tumbling|"), isNull());
+    }
+
+    private WindowedTypeAggregator aggregator(Duration tumblingSize, Duration hoppingSize, Duration hoppingAdvance) {
+        return new WindowedTypeAggregator(kafkaTemplate, new ObjectMapper().findAndRegisterModules(), tumblingSize, hoppingSize, hoppingAdvance,
+                Duration.ZERO, Duration.ofHours(1), "pod-1", "localhost:9092", Duration.ofSeconds(1));
+    }
+}
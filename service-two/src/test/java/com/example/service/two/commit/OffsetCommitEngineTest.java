@@ -0,0 +1,131 @@
+package com.example.service.two.commit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OffsetCommitEngineTest {
+
+    private static final TopicPartition PARTITION = new TopicPartition("service-messages", 0);
+
+    private final MockConsumer<String, String> consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+
+    @BeforeEach
+    void assign() {
+        consumer.assign(List.of(PARTITION));
+    }
+
+    @Test
+    void batchModeCommitsOnlyAfterPoll() {
+        OffsetCommitEngine engine = engine(CommitMode.BATCH, Duration.ofSeconds(1), 100);
+        process(engine, 0, 1);
+
+        engine.afterRecord(consumer);
+        assertThat(committed()).isNull();
+
+        engine.afterPoll(consumer);
+        assertThat(committed()).isEqualTo(2);
+    }
+
+    @Test
+    void recordModeCommitsAfterEachRecord() {
+        OffsetCommitEngine engine = engine(CommitMode.RECORD, Duration.ofSeconds(1), 100);
+
+        process(engine, 0);
+        engine.afterRecord(consumer);
+        assertThat(committed()).isEqualTo(1);
+
+        process(engine, 1);
+        engine.afterRecord(consumer);
+        assertThat(committed()).isEqualTo(2);
+    }
+
+    @Test
+    void countModeCommitsAfterEnoughCompletedRecords() {
+        OffsetCommitEngine engine = engine(CommitMode.COUNT, Duration.ofSeconds(1), 3);
+
+        process(engine, 0, 1);
+        engine.afterPoll(consumer);
+        assertThat(committed()).isNull();
+
+        process(engine, 2);
+        engine.afterRecord(consumer);
+        assertThat(committed()).isEqualTo(3);
+    }
+
+    @Test
+    void timeModeWaitsForInterval() {
+        OffsetCommitEngine waiting = engine(CommitMode.TIME, Duration.ofHours(1), 100);
+        process(waiting, 0);
+        waiting.afterPoll(consumer);
+        assertThat(committed()).isNull();
+
+        OffsetCommitEngine elapsed = engine(CommitMode.TIME, Duration.ZERO, 100);
+        process(elapsed, 0);
+        elapsed.afterRecord(consumer);
+        assertThat(committed()).isEqualTo(1);
+    }
+
+    @Test
+    void outOfOrderCompletionHoldsBackCommit() {
+        OffsetCommitEngine engine = engine(CommitMode.RECORD, Duration.ofSeconds(1), 100);
+        ConsumerRecord<String, String> first = record(0);
+        ConsumerRecord<String, String> second = record(1);
+        engine.track(consumer, first);
+        engine.track(consumer, second);
+
+        engine.complete(consumer, second);
+        engine.afterPoll(consumer);
+        assertThat(committed()).isNull();
+        assertThat(engine.pendingPositions(consumer)).containsEntry(PARTITION, 0L);
+
+        engine.complete(consumer, first);
+        engine.afterPoll(consumer);
+        assertThat(committed()).isEqualTo(2);
+        assertThat(engine.pendingPositions(consumer)).isEmpty();
+    }
+
+    @Test
+    void revokedPartitionsAreCommittedAndForgotten() {
+        OffsetCommitEngine engine = engine(CommitMode.BATCH, Duration.ofSeconds(1), 100);
+        process(engine, 0);
+        engine.track(consumer, record(1));
+
+        engine.onPartitionsRevokedBeforeCommit(consumer, List.of(PARTITION));
+
+        assertThat(committed()).isEqualTo(1);
+        assertThat(engine.pendingPositions(consumer)).isEmpty();
+    }
+
+    private OffsetCommitEngine engine(CommitMode mode, Duration interval, long count) {
+        return new OffsetCommitEngine(new SimpleMeterRegistry(), mode, interval, count);
+    }
+
+    private void process(OffsetCommitEngine engine, long... offsets) {
+        for (long offset : offsets) {
+            ConsumerRecord<String, String> record = record(offset);
+            engine.track(consumer, record);
+            engine.complete(consumer, record);
+        }
+    }
+
+    private static ConsumerRecord<String, String> record(long offset) {
+        return new ConsumerRecord<>(PARTITION.topic(), PARTITION.partition(), offset, "key", "value");
+    }
+
+    private Long committed() {
+        OffsetAndMetadata offset = consumer.committed(Set.of(PARTITION)).get(PARTITION);
+        return offset != null ? offset.offset() : null;
+    }
+}
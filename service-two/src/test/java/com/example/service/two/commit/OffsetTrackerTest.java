@@ -0,0 +1,94 @@
+package com.example.service.two.commit;
+
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OffsetTrackerTest {
+
+    private static final TopicPartition P0 = new TopicPartition("service-messages", 0);
+    private static final TopicPartition P1 = new TopicPartition("service-messages", 1);
+
+    private final OffsetTracker tracker = new OffsetTracker();
+
+    @Test
+    void commitsOnlyContiguousPrefixWhenCompletedOutOfOrder() {
+        track(P0, 10, 11, 12, 13);
+
+        tracker.complete(P0, 11);
+        tracker.complete(P0, 13);
+        assertThat(tracker.drainCommittable()).isEmpty();
+
+        tracker.complete(P0, 10);
+        assertThat(tracker.drainCommittable()).containsExactly(Map.entry(P0, new OffsetAndMetadata(12)));
+
+        tracker.complete(P0, 12);
+        assertThat(tracker.drainCommittable()).containsExactly(Map.entry(P0, new OffsetAndMetadata(14)));
+    }
+
+    @Test
+    void drainRemovesCommittedPrefix() {
+        track(P0, 0, 1);
+        tracker.complete(P0, 0);
+        tracker.complete(P0, 1);
+
+        assertThat(tracker.drainCommittable()).containsEntry(P0, new OffsetAndMetadata(2));
+        assertThat(tracker.drainCommittable()).isEmpty();
+        assertThat(tracker.pendingPositions()).isEmpty();
+    }
+
+    @Test
+    void partitionsAreTrackedIndependently() {
+        track(P0, 5, 6);
+        track(P1, 100);
+
+        tracker.complete(P1, 100);
+        tracker.complete(P0, 6);
+
+        assertThat(tracker.drainCommittable()).containsExactly(Map.entry(P1, new OffsetAndMetadata(101)));
+        assertThat(tracker.pendingPositions()).containsExactly(Map.entry(P0, 5L));
+    }
+
+    @Test
+    void pendingPositionIsFirstUnfinishedOffset() {
+        track(P0, 3, 4, 5);
+        tracker.complete(P0, 3);
+        tracker.complete(P0, 5);
+        tracker.drainCommittable();
+
+        assertThat(tracker.pendingPositions()).containsExactly(Map.entry(P0, 4L));
+    }
+
+    @Test
+    void completingUntrackedOffsetIsIgnored() {
+        track(P0, 1);
+        tracker.complete(P0, 7);
+        tracker.complete(P1, 1);
+
+        assertThat(tracker.drainCommittable()).isEmpty();
+        assertThat(tracker.pendingPositions()).containsExactly(Map.entry(P0, 1L));
+    }
+
+    @Test
+    void removedPartitionsAreForgotten() {
+        track(P0, 1);
+        track(P1, 1);
+        tracker.complete(P0, 1);
+
+        tracker.remove(List.of(P0));
+
+        assertThat(tracker.drainCommittable()).isEmpty();
+        assertThat(tracker.pendingPositions()).containsOnlyKeys(P1);
+    }
+
+    private void track(TopicPartition partition, long... offsets) {
+        for (long offset : offsets) {
+            tracker.track(partition, offset);
+        }
+    }
+}
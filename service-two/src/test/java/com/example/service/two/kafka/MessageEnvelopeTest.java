@@ -0,0 +1,120 @@
+package com.example.service.two.kafka;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class MessageEnvelopeTest {
+
+    private static final long CREATED_AT = 1_700_000_000_123L;
+
+    @Test
+    void readsTypedEnvelope() {
+        MessageEnvelope envelope = MessageEnvelope.wrap(envelope(MessageType.ERROR, "тело сообщения"));
+
+        assertThat(envelope.isTyped()).isTrue();
+        assertThat(envelope.type()).isEqualTo(MessageType.ERROR);
+        assertThat(envelope.createdAt()).isEqualTo(CREATED_AT);
+        assertThat(envelope.text()).isEqualTo("тело сообщения");
+        assertThat(envelope.bodyLength()).isEqualTo("тело сообщения".getBytes(StandardCharsets.UTF_8).length);
+    }
+
+    @Test
+    void typeComesFromHeaderNotFromBody() {
+        MessageEnvelope envelope = MessageEnvelope.wrap(envelope(MessageType.SIMPLE, "{\"json\": \"error test\"}"));
+
+        assertThat(envelope.type()).isEqualTo(MessageType.SIMPLE);
+    }
+
+    @Test
+    void respectsBufferPosition() {
+        byte[] value = envelope(MessageType.JSON, "{}").array();
+        ByteBuffer buffer = ByteBuffer.allocate(value.length + 3).put(new byte[]{1, 2, 3}).put(value);
+        buffer.position(3);
+
+        MessageEnvelope envelope = MessageEnvelope.wrap(buffer);
+
+        assertThat(envelope.type()).isEqualTo(MessageType.JSON);
+        assertThat(envelope.createdAt()).isEqualTo(CREATED_AT);
+        assertThat(envelope.text()).isEqualTo("{}");
+        assertThat(buffer.position()).isEqualTo(3);
+    }
+
+    @Test
+    void unknownTypeCodeIsSimple() {
+        ByteBuffer value = envelope(MessageType.TEST, "body");
+        value.put(2, (byte) 42);
+
+        assertThat(MessageEnvelope.wrap(value).type()).isEqualTo(MessageType.SIMPLE);
+    }
+
+    @Test
+    void rejectsMalformedInput() {
+        assertThatIllegalArgumentException().isThrownBy(() -> MessageEnvelope.wrap(null));
+
+        ByteBuffer truncated = ByteBuffer.wrap(new byte[]{MessageEnvelope.MAGIC, MessageEnvelope.VERSION, 0});
+        assertThatIllegalArgumentException().isThrownBy(() -> MessageEnvelope.wrap(truncated))
+                .withMessageContaining("Truncated");
+
+        ByteBuffer unsupported = envelope(MessageType.SIMPLE, "body");
+        unsupported.put(1, (byte) 2);
+        assertThatIllegalArgumentException().isThrownBy(() -> MessageEnvelope.wrap(unsupported))
+                .withMessageContaining("version");
+    }
+
+    @Test
+    void classifiesLegacyStringsByContent() {
+        assertThat(legacy("{\"id\": 1}").type()).isEqualTo(MessageType.JSON);
+        assertThat(legacy("payload as JSON").type()).isEqualTo(MessageType.JSON);
+        assertThat(legacy("Произошла ошибка").type()).isEqualTo(MessageType.ERROR);
+        assertThat(legacy("test message").type()).isEqualTo(MessageType.TEST);
+        assertThat(legacy("x".repeat(101)).type()).isEqualTo(MessageType.LARGE);
+        assertThat(legacy("hello").type()).isEqualTo(MessageType.SIMPLE);
+    }
+
+    @Test
+    void legacyStringHasNoHeader() {
+        MessageEnvelope envelope = legacy("hello");
+
+        assertThat(envelope.isTyped()).isFalse();
+        assertThat(envelope.createdAt()).isEqualTo(-1L);
+        assertThat(envelope.text()).isEqualTo("hello");
+        assertThat(MessageEnvelope.wrap(ByteBuffer.allocate(0)).isTyped()).isFalse();
+    }
+
+    @Test
+    void blankBodies() {
+        assertThat(MessageEnvelope.wrap(envelope(MessageType.SIMPLE, "")).isBlank()).isTrue();
+        assertThat(legacy(" \t\n").isBlank()).isTrue();
+        assertThat(legacy("  x ").isBlank()).isFalse();
+        assertThat(legacy(" я").isBlank()).isFalse();
+    }
+
+    @Test
+    void previewDecodesOnlyPrefix() {
+        MessageEnvelope envelope = MessageEnvelope.wrap(envelope(MessageType.LARGE, "привет, мир"));
+
+        assertThat(envelope.preview(6)).isEqualTo("привет...");
+        assertThat(envelope.preview(50)).isEqualTo("привет, мир");
+    }
+
+    // Тот же формат, что пишет MessageEnvelopeSerializer в service-one
+    private static ByteBuffer envelope(MessageType type, String body) {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        return ByteBuffer.allocate(MessageEnvelope.HEADER_SIZE + bytes.length)
+                .put(MessageEnvelope.MAGIC)
+                .put(MessageEnvelope.VERSION)
+                .put(type.code())
+                .putLong(CREATED_AT)
+                .put(bytes)
+                .flip();
+    }
+
+    private static MessageEnvelope legacy(String message) {
+        return MessageEnvelope.wrap(ByteBuffer.wrap(message.getBytes(StandardCharsets.UTF_8)));
+    }
+}
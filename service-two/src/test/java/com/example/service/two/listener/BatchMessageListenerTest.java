@@ -0,0 +1,155 @@
+package com.example.service.two.listener;
+
+import com.example.service.two.commit.CommitMode;
+import com.example.service.two.commit.OffsetCommitEngine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BatchMessageListenerTest {
+
+    private static final TopicPartition P0 = new TopicPartition("service-messages", 0);
+    private static final TopicPartition P1 = new TopicPartition("service-messages", 1);
+
+    private final MockConsumer<String, ByteBuffer> consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+    private final MessageListener messageListener = mock(MessageListener.class);
+    private final OffsetCommitEngine commitEngine =
+            new OffsetCommitEngine(new SimpleMeterRegistry(), CommitMode.BATCH, Duration.ofSeconds(1), 100);
+    private final ExecutorService workers = Executors.newFixedThreadPool(4);
+    private final CountDownLatch slowRelease = new CountDownLatch(1);
+
+    private BatchMessageListener listener;
+
+    @BeforeEach
+    void setUp() {
+        consumer.assign(List.of(P0, P1));
+        consumer.updateBeginningOffsets(Map.of(P0, 0L, P1, 0L));
+        // Запись с ключом slow ждёт slowRelease, остальные обрабатываются сразу
+        when(messageListener.process(any())).thenAnswer(inv -> {
+            ConsumerRecord<String, ByteBuffer> record = inv.getArgument(0);
+            if ("slow".equals(record.key())) {
+                slowRelease.await(5, TimeUnit.SECONDS);
+            }
+            return !"retry".equals(record.key());
+        });
+        listener = new BatchMessageListener(messageListener, commitEngine, workers, 4, Duration.ofMillis(200));
+    }
+
+    @AfterEach
+    void tearDown() {
+        slowRelease.countDown();
+        workers.shutdownNow();
+    }
+
+    @Test
+    void processesBatchAndCommitsEveryPartition() {
+        listener.listenBatch(List.of(record(P0, 0, "a"), record(P0, 1, "a"), record(P1, 0, null), record(P0, 2, "b")),
+                consumer);
+        commitEngine.afterPoll(consumer);
+
+        verify(messageListener, times(4)).process(any());
+        assertThat(consumer.paused()).isEmpty();
+        assertThat(committed(P0)).isEqualTo(3);
+        assertThat(committed(P1)).isEqualTo(1);
+    }
+
+    @Test
+    void rereadsFromRecordThatNeedsRetry() {
+        listener.listenBatch(List.of(record(P0, 0, "retry"), record(P0, 1, "retry"), record(P0, 2, "other")), consumer);
+        commitEngine.afterPoll(consumer);
+
+        // Цепочка ключа останавливается на первой записи для повтора, другие ключи идут дальше
+        verify(messageListener, times(2)).process(any());
+        assertThat(committed(P0)).isNull();
+        assertThat(consumer.position(P0)).isZero();
+        assertThat(consumer.paused()).isEmpty();
+    }
+
+    @Test
+    void pausesPartitionWithUnfinishedChainUntilItCompletes() throws InterruptedException {
+        listener.listenBatch(List.of(record(P0, 0, "slow"), record(P1, 0, "fast")), consumer);
+        commitEngine.afterPoll(consumer);
+
+        assertThat(consumer.paused()).containsExactly(P0);
+        assertThat(committed(P0)).isNull();
+        assertThat(committed(P1)).isEqualTo(1);
+
+        // Пока цепочка работает, пустой poll паузу не снимает
+        listener.listenBatch(List.of(), consumer);
+        assertThat(consumer.paused()).containsExactly(P0);
+
+        slowRelease.countDown();
+        pollUntilResumed();
+        commitEngine.afterPoll(consumer);
+
+        assertThat(consumer.paused()).isEmpty();
+        assertThat(committed(P0)).isEqualTo(1);
+        verify(messageListener, times(2)).process(any());
+    }
+
+    @Test
+    void recordsOfBusyPartitionAreNotProcessedTwice() throws InterruptedException {
+        listener.listenBatch(List.of(record(P0, 0, "slow")), consumer);
+        assertThat(consumer.paused()).containsExactly(P0);
+
+        // Ребалансировка: партицию забрали и вернули без паузы, записи пришли снова
+        // с закоммиченного offset'а, а первая цепочка ещё работает
+        commitEngine.onPartitionsLost(consumer, List.of(P0));
+        consumer.resume(List.of(P0));
+        listener.listenBatch(List.of(record(P0, 0, "slow"), record(P0, 1, "next")), consumer);
+
+        assertThat(consumer.paused()).containsExactly(P0);
+        assertThat(consumer.position(P0)).isZero();
+        verify(messageListener, times(1)).process(any());
+
+        // После завершения цепочки партиция читается с первой записи повторного пакета
+        slowRelease.countDown();
+        pollUntilResumed();
+        assertThat(consumer.paused()).isEmpty();
+        assertThat(consumer.position(P0)).isZero();
+        verify(messageListener, times(1)).process(any());
+    }
+
+    // Цепочка завершается асинхронно: повторяем пустой poll, как контейнер при простое, пока пауза не снимется
+    private void pollUntilResumed() throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!consumer.paused().isEmpty() && System.nanoTime() < deadline) {
+            listener.listenBatch(List.of(), consumer);
+            Thread.sleep(10);
+        }
+    }
+
+    private Long committed(TopicPartition partition) {
+        OffsetAndMetadata offset = consumer.committed(Set.of(partition)).get(partition);
+        return offset != null ? offset.offset() : null;
+    }
+
+    private static ConsumerRecord<String, ByteBuffer> record(TopicPartition partition, long offset, String key) {
+        return new ConsumerRecord<>(partition.topic(), partition.partition(), offset, key,
+                ByteBuffer.wrap(("message " + offset).getBytes(StandardCharsets.UTF_8)));
+    }
+}
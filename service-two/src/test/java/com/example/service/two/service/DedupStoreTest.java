@@ -0,0 +1,99 @@
+package com.example.service.two.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Redis заменён картой ключ → (значение, TTL): SET NX, SET и DEL работают с ней
+ */
+class DedupStoreTest {
+
+    private static final Duration TTL = Duration.ofHours(24);
+    private static final Duration CLAIM_TTL = Duration.ofMinutes(5);
+
+    private final Map<String, Entry> redis = new ConcurrentHashMap<>();
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private DedupStore dedupStore;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void fakeRedis() {
+        ValueOperations<String, String> values = mock(ValueOperations.class);
+        when(redisTemplate.opsForValue()).thenReturn(values);
+        when(values.setIfAbsent(anyString(), anyString(), any(Duration.class))).thenAnswer(inv ->
+                redis.putIfAbsent(inv.getArgument(0), new Entry(inv.getArgument(1), inv.getArgument(2))) == null);
+        doAnswer(inv -> redis.put(inv.getArgument(0), new Entry(inv.getArgument(1), inv.getArgument(2))))
+                .when(values).set(anyString(), anyString(), any(Duration.class));
+        when(redisTemplate.delete(anyString())).thenAnswer(inv -> redis.remove(inv.<String>getArgument(0)) != null);
+        dedupStore = new DedupStore(redisTemplate, meterRegistry, true, TTL, CLAIM_TTL);
+    }
+
+    @Test
+    void secondClaimIsDuplicate() {
+        assertThat(dedupStore.claim("m1")).isTrue();
+        assertThat(redis.get("dedup:service-two:m1").ttl()).isEqualTo(CLAIM_TTL);
+
+        assertThat(dedupStore.claim("m1")).isFalse();
+        assertThat(dedupStore.claim("m2")).isTrue();
+        assertThat(meterRegistry.counter("kafka.consumer.duplicates.skipped").count()).isEqualTo(1);
+    }
+
+    @Test
+    void processedIdIsKeptForTtl() {
+        dedupStore.claim("m1");
+        dedupStore.markProcessed("m1");
+
+        assertThat(redis.get("dedup:service-two:m1")).isEqualTo(new Entry("1", TTL));
+        assertThat(dedupStore.claim("m1")).isFalse();
+    }
+
+    @Test
+    void releasedIdCanBeClaimedAgain() {
+        dedupStore.claim("m1");
+        dedupStore.release("m1");
+
+        assertThat(dedupStore.claim("m1")).isTrue();
+    }
+
+    @Test
+    void unavailableRedisLetsMessageThrough() {
+        when(redisTemplate.opsForValue().setIfAbsent(anyString(), anyString(), any(Duration.class)))
+                .thenThrow(new RedisConnectionFailureException("Redis недоступен"));
+
+        assertThat(dedupStore.claim("m1")).isTrue();
+        assertThat(dedupStore.claim("m1")).isTrue();
+        assertThat(meterRegistry.counter("kafka.consumer.dedup.errors").count()).isEqualTo(2);
+    }
+
+    @Test
+    void disabledStoreDoesNotTouchRedis() {
+        StringRedisTemplate unused = mock(StringRedisTemplate.class);
+        DedupStore disabled = new DedupStore(unused, new SimpleMeterRegistry(), false, TTL, CLAIM_TTL);
+
+        assertThat(disabled.claim("m1")).isTrue();
+        assertThat(disabled.claim("m1")).isTrue();
+        disabled.markProcessed("m1");
+        disabled.release("m1");
+        verifyNoInteractions(unused);
+    }
+
+    private record Entry(String value, Duration ttl) {
+    }
+}